@@ -1,9 +1,14 @@
 package com.bookstore;
 
+import com.bookstore.repository.KeysetJpaRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableJpaRepositories(repositoryBaseClass = KeysetJpaRepository.class)
 public class BookstoreApplication {
 
     public static void main(String[] args) {
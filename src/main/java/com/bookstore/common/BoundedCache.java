@@ -0,0 +1,156 @@
+package com.bookstore.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size- and TTL-bounded cache. Keys are hashed into segments, each an access ordered map evicting
+ * its least recently used entry, so concurrent readers of different keys rarely share a lock.
+ * <p>
+ * A value loaded from the database is put with the {@link #generation()} read before the load and
+ * is dropped if anything was invalidated since, so a slow reader can't cache a value that a
+ * concurrent writer has just replaced.
+ */
+public class BoundedCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final List<Segment> segments = new ArrayList<>(SEGMENTS);
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        int segmentSize = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new Segment(segmentSize));
+        }
+    }
+
+    public V get(K key) {
+        V value = segmentFor(key).get(key, System.nanoTime());
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    // only the cached keys are returned, the caller loads the rest
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, generation());
+    }
+
+    public void put(K key, V value, long readGeneration) {
+        segmentFor(key).put(key, value, System.nanoTime() + ttlNanos, readGeneration);
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        segmentFor(key).remove(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        segments.forEach(Segment::clear);
+    }
+
+    public Stats getStats() {
+        int size = segments.stream().mapToInt(Segment::size).sum();
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size);
+    }
+
+    private Segment segmentFor(K key) {
+        return segments.get(Math.floorMod(key.hashCode(), SEGMENTS));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final int size;
+    }
+
+    @AllArgsConstructor
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+    }
+
+    private class Segment {
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        Segment(int maxSize) {
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() <= maxSize) {
+                        return false;
+                    }
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtNanos - now <= 0) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(K key, V value, long expiresAtNanos, long readGeneration) {
+            if (generation.get() == readGeneration) {
+                entries.put(key, new Entry<>(value, expiresAtNanos));
+            }
+        }
+
+        synchronized void remove(K key) {
+            entries.remove(key);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
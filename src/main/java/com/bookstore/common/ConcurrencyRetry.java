@@ -0,0 +1,95 @@
+package com.bookstore.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Re-runs an action that lost an optimistic lock, a deadlock or a serialization check, up to
+ * {@code maxAttempts} times in total. The pause before a retry is random between zero and an
+ * exponential ceiling (full jitter), so writers that collided on one row don't collide again.
+ * Attempts, conflicts, retries and failures are counted per key, which shows the hot spots.
+ */
+public class ConcurrencyRetry {
+
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Map<String, Counters> countersByKey = new ConcurrentHashMap<>();
+
+    public ConcurrencyRetry(int maxAttempts, Duration backoff, Duration maxBackoff) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    // the action must start its own transaction: a transaction that lost a conflict can only roll back
+    public <T> T execute(String key, Supplier<T> action) {
+        Counters counters = countersByKey.computeIfAbsent(key, k -> new Counters());
+
+        for (int attempt = 1; ; attempt++) {
+            counters.attempts.increment();
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                counters.conflicts.increment();
+                if (attempt == maxAttempts || !pause(attempt)) {
+                    counters.failures.increment();
+                    throw e;
+                }
+                counters.retries.increment();
+            }
+        }
+    }
+
+    // keys with the most conflicts first
+    public List<Stats> getStats(int limit) {
+        return countersByKey.entrySet().stream()
+                .map(counters -> counters.getValue().toStats(counters.getKey()))
+                .sorted(Comparator.comparingLong(Stats::getConflicts).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private boolean pause(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final String key;
+        private final long attempts;
+        private final long conflicts;
+        private final long retries;
+        private final long failures;
+    }
+
+    private static class Counters {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Stats toStats(String key) {
+            return new Stats(key, attempts.sum(), conflicts.sum(), retries.sum(), failures.sum());
+        }
+    }
+}
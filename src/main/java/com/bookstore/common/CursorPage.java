@@ -0,0 +1,31 @@
+package com.bookstore.common;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page of a search that also carries the cursor of its last row. Passing {@code nextCursor} back
+ * as {@code cursor} reads the following page by seeking on the sort key instead of skipping rows;
+ * it is {@code null} on the last page.
+ */
+public class CursorPage<T> extends PageImpl<T> {
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, String nextCursor) {
+        super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CursorPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), nextCursor);
+    }
+}
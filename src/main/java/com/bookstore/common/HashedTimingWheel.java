@@ -0,0 +1,83 @@
+package com.bookstore.common;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel: deadlines are hashed into {@code wheelSize} buckets of {@code tick} each, so
+ * scheduling and cancelling are O(1) and every tick only looks at one bucket. Entries further away
+ * than one rotation stay in their bucket until the tick of their deadline comes round.
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Map<T, Long>> buckets;
+    private final Map<T, Integer> bucketByItem = new HashMap<>();
+    private long currentTick;
+
+    public HashedTimingWheel(Duration tick, int wheelSize, Instant start) {
+        this.tickMillis = tick.toMillis();
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.currentTick = floorTick(start);
+    }
+
+    public synchronized void schedule(T item, Instant deadline) {
+        cancel(item);
+
+        long deadlineTick = Math.max(ceilTick(deadline), currentTick + 1);
+        int bucket = (int) (deadlineTick % buckets.size());
+        buckets.get(bucket).put(item, deadlineTick);
+        bucketByItem.put(item, bucket);
+    }
+
+    public synchronized void cancel(T item) {
+        Integer bucket = bucketByItem.remove(item);
+        if (bucket != null) {
+            buckets.get(bucket).remove(item);
+        }
+    }
+
+    public synchronized List<T> advance(Instant now) {
+        long targetTick = floorTick(now);
+        List<T> expired = new ArrayList<>();
+
+        // after a long pause one full rotation visits every bucket, there is no need to replay each missed tick
+        long ticks = Math.min(targetTick - currentTick, buckets.size());
+        for (long i = 1; i <= ticks; i++) {
+            expireBucket((int) ((currentTick + i) % buckets.size()), targetTick, expired);
+        }
+        currentTick = Math.max(currentTick, targetTick);
+
+        return expired;
+    }
+
+    public synchronized int size() {
+        return bucketByItem.size();
+    }
+
+    private void expireBucket(int bucket, long targetTick, List<T> expired) {
+        buckets.get(bucket).entrySet().removeIf(entry -> {
+            if (entry.getValue() > targetTick) {
+                return false;
+            }
+            expired.add(entry.getKey());
+            bucketByItem.remove(entry.getKey());
+            return true;
+        });
+    }
+
+    private long floorTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+    }
+
+    private long ceilTick(Instant instant) {
+        return -Math.floorDiv(-instant.toEpochMilli(), tickMillis);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bookstore.common;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory word index for free-text search. Text is split into words of letters and digits,
+ * lower-cased and stripped of accents, so "Café" and "cafe" are the same term. Every word of a query
+ * has to prefix-match a term of a document; documents are ranked by the sum over the query words of
+ * the matched term's weight times its inverse document frequency, so rare words count more.
+ */
+public class InvertedIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, Map<String, Integer>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // replaces the terms of a document indexed before
+    public void put(String docId, Map<String, Integer> termWeights) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(docId);
+            documents.put(docId, new HashMap<>(termWeights));
+            termWeights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(docId, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // best ranked first, ties in document id order
+    public List<String> search(String query, int limit) {
+        List<String> words = tokenize(query).stream()
+                .distinct()
+                .collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String word : words) {
+                Map<String, Double> wordScores = scoreWord(word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((docId, score) -> score + wordScores.get(docId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a word matching several terms of a document scores by its best one
+    private Map<String, Double> scoreWord(String word) {
+        Map<String, Double> wordScores = new HashMap<>();
+        for (Map<String, Integer> posting : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            double idf = Math.log(1 + (double) documents.size() / posting.size());
+            posting.forEach((docId, weight) -> wordScores.merge(docId, weight * idf, Math::max));
+        }
+        return wordScores;
+    }
+
+    private void removeDocument(String docId) {
+        Map<String, Integer> termWeights = documents.remove(docId);
+        if (termWeights == null) {
+            return;
+        }
+
+        for (String term : termWeights.keySet()) {
+            Map<String, Integer> posting = postings.get(term);
+            posting.remove(docId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+}
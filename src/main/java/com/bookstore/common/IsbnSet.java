@@ -0,0 +1,67 @@
+package com.bookstore.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Set of ISBNs read by many threads and written by one refresh: a plain hash set guarded by a
+ * read-write lock, so a whole page of ISBNs is checked under a single read lock. It is not a
+ * bitmap, ISBNs have no dense numeric key to index one by.
+ */
+public class IsbnSet {
+
+    private final Set<String> isbns = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void set(String isbn, boolean value) {
+        lock.writeLock().lock();
+        try {
+            if (value) {
+                isbns.add(isbn);
+            } else {
+                isbns.remove(isbn);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return isbns.contains(isbn);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the given ISBNs that are set, in the given order, checked under one lock
+    public List<String> retain(Collection<String> isbns) {
+        List<String> contained = new ArrayList<>(isbns.size());
+        lock.readLock().lock();
+        try {
+            for (String isbn : isbns) {
+                if (this.isbns.contains(isbn)) {
+                    contained.add(isbn);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return contained;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return isbns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
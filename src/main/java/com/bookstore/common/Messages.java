@@ -21,6 +21,15 @@ public interface Messages {
     String ADD_CLIENT_TO_ORDER = "Add client, please.";
     String BOOK_MANDATORY = "Book is mandatory.";
     String MIN_QUANTITY = "Quantity can't be less 1.";
+    String MIN_SHARDS = "Shards can't be less 1.";
+    String MIN_LIMIT = "Limit can't be less 1.";
+    String AVAILABILITY_ISBNS_SIZE = "Ask for 1-100 ISBNs at once.";
+    String ADD_ORDER_STATUS = "Add new order status, please.";
+    String ADD_ORDERS_SELECTION = "Add order ids or search filter, please.";
+    String BULK_ORDER_IDS_SIZE = "Update up to 1000 order ids at once, use a search filter for more.";
+    String ADD_PRICE_OPERATION = "Add price operation and its value, please.";
+    String ADD_STOCK_ITEMS_SELECTION = "Add ISBNs, publisher, genre or price range, please.";
+    String PRICE_OPERATION_NOT_VALID = "SET needs a price of at least 1UAH, MULTIPLY a positive factor.";
     String AUTHOR_ID_NOT_FOUND = "Author by id: %s, not found.";
     String PUBLISHER_ID_NOT_FOUND = "Publisher by id: %s, not found.";
     String CLIENT_ID_NOT_FOUND = "Client by id: %s, not found.";
@@ -32,7 +41,16 @@ public interface Messages {
     String ORDER_ID_NOT_FOUND = "Order by id: %s not found.";
     String ORDER_UPDATE_EXCEPTION = "Can't update because order is %s";
     String STATUS = "status";
+    String RELOAD = "reload";
     String CANT_CHANGE_ORDER_STATUS = "Can't change order status";
+    String ORDER_INTAKE_NOT_FOUND = "Order intake by tracking id: %s not found.";
+    String ORDER_INTAKE_QUEUE_FULL = "Order intake queue is full, try again later.";
+    String ESTIMATE_COUNT_WITH_FILTER = "ESTIMATE counts only searches without filters, use CACHED or EXACT.";
+    String PAGE_CURSOR_NOT_VALID = "Cursor %s is not valid, start over without a cursor.";
+    String IN_STOCK_PAGE_WITHOUT_CURSOR = "In-stock books are paged by cursor, page %d can't be read without one.";
+    String STOCK_SHARDING_NOT_ENABLED = "Can't split isbn %s, stock sharding isn't enabled.";
+    String HOT_STOCK_NOT_SPLITTABLE = "Can't split isbn %s, its stock is counted by the hot stock counters.";
+    String ID_SEQUENCE_INCREMENT_MISMATCH = "Sequence %s advances by %s, but its ids are allocated in pools of %d, align database/id-sequences.sql with bookstore.id.allocation_size.";
     String PHONE_NUMBER_REGEXP = "^\\+\\d{2}\\(\\d{3}\\)-\\d{2}-\\d{2}-\\d{3}";
 
     //Controllers URI
@@ -44,6 +62,7 @@ public interface Messages {
     String CREATED_CLIENT_URI = CLIENT_CONTROLLER_URI + "/id=%s";
     String ORDER_CONTROLLER_URI = "/api/v1/orders";
     String CREATED_ORDER_URI = ORDER_CONTROLLER_URI + "/id=%s";
+    String ORDER_INTAKE_CONTROLLER_URI = ORDER_CONTROLLER_URI + "/intake";
     String PUBLISHER_CONTROLLER_URI = "/api/v1/publishers";
     String CREATED_PUBLISHER_URI = PUBLISHER_CONTROLLER_URI + "/id=%s";
     String WAREHOUSE_CONTROLLER_URI = "/api/v1/warehouse";
@@ -54,6 +73,22 @@ public interface Messages {
     String PRICE_PATH = "price";
     String QUANTITY_PATH = "quantity";
     String ISBN_MAPPING = "/{isbn}";
+    String SHARDS_PATH = "shards";
+    String SHARDS_MAPPING = ISBN_MAPPING + "/shards";
+    String PRICE_CACHE_MAPPING = "/price-cache";
+    String CONFLICTS_MAPPING = "/conflicts";
+    String AVAILABILITY_MAPPING = "/availability";
+    String PRICES_MAPPING = "/prices";
+    String TITLE_INDEX_MAPPING = "/title-index";
+    String ISBNS_PATH = "isbns";
+    String LIMIT_PATH = "limit";
+    String IMPORT_MAPPING = "/import";
+    String EXPORT_MAPPING = "/export";
+    String FORMAT_PATH = "format";
+    String TEXT_CSV = "text/csv";
+    String APPLICATION_NDJSON = "application/x-ndjson";
+    String TRACKING_ID_PATH = "trackingId";
+    String TRACKING_ID_MAPPING = "/{trackingId}";
 
     //Exceptions messages
     String ENTITY_NOT_FOUND = "Entity not found";
@@ -62,6 +97,11 @@ public interface Messages {
     String FIELD_VALIDATION_FAILED = "Field validation failed";
     String NOT_ENOUGH_IN_STOCK = "Not enough in stock";
     String CANT_CHANGE_STATUS = "Can't change order status";
+    String ORDER_INTAKE_REJECTED = "Order intake rejected";
+    String CONCURRENT_UPDATE = "Changed concurrently, try again";
+    String INVALID_PAGE_CURSOR = "Invalid page cursor";
+    String STOCK_SHARDING_DISABLED = "Stock sharding disabled";
+    String HOT_STOCK_SPLIT = "Hot stock can't be split";
     String FAILED_TO_CONVERT_VALUE = "Failed to convert value";
     String NULL_POINTER_EXCEPTION = "NullPointerException";
     String OTHER_EXCEPTION = "Something was wrong. Try later";
@@ -0,0 +1,69 @@
+package com.bookstore.common;
+
+import com.bookstore.exception.InvalidPageCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Position in a keyset-paged search: the sort key of the last row of a page. Clients get it Base64
+ * encoded and hand it back as is, so the key can change without breaking them.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final List<String> keys;
+
+    private PageCursor(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public static String encode(Object... keys) {
+        String joined = Arrays.stream(keys)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            return new PageCursor(Arrays.asList(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageCursorException(String.format(Messages.PAGE_CURSOR_NOT_VALID, cursor));
+        }
+    }
+
+    public String getString(int index) {
+        if (index >= keys.size()) {
+            throw notValid();
+        }
+        return keys.get(index);
+    }
+
+    public Long getLong(int index) {
+        try {
+            return Long.valueOf(getString(index));
+        } catch (NumberFormatException e) {
+            throw notValid();
+        }
+    }
+
+    public Instant getInstant(int index) {
+        try {
+            return Instant.parse(getString(index));
+        } catch (DateTimeParseException e) {
+            throw notValid();
+        }
+    }
+
+    private InvalidPageCursorException notValid() {
+        return new InvalidPageCursorException(String.format(Messages.PAGE_CURSOR_NOT_VALID, encode(keys.toArray())));
+    }
+}
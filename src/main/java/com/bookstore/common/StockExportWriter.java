@@ -0,0 +1,54 @@
+package com.bookstore.common;
+
+import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes stock items one line at a time as CSV (the format {@link StockImportReader} reads back)
+ * or NDJSON. Only the buffer of the underlying writer is held in memory.
+ */
+public class StockExportWriter implements Flushable {
+
+    private static final String CSV_HEADER = "bookIsbn,price,quantity";
+
+    private final BufferedWriter writer;
+    private final StockFileFormat format;
+    private final ObjectMapper objectMapper;
+
+    public StockExportWriter(OutputStream body, StockFileFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+
+        if (format == StockFileFormat.CSV) {
+            writeLine(CSV_HEADER);
+        }
+    }
+
+    public void write(StockItemDTO stockItemDTO) throws IOException {
+        writeLine(format == StockFileFormat.NDJSON
+                ? objectMapper.writeValueAsString(stockItemDTO)
+                : String.join(",", stockItemDTO.getBookIsbn(),
+                String.valueOf(stockItemDTO.getPrice()),
+                String.valueOf(stockItemDTO.getQuantity())));
+    }
+
+    // the response stream belongs to the servlet container, it is flushed but never closed here
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+}
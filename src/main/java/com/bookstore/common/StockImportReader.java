@@ -0,0 +1,134 @@
+package com.bookstore.common;
+
+import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads stock items line by line from a CSV ({@code bookIsbn,price,quantity}, optional header) or
+ * NDJSON body, so an upload of any size is never held in memory. Lines that can't be parsed or
+ * don't pass validation are skipped and counted as rejected.
+ */
+public class StockImportReader implements Closeable {
+
+    private static final int MIN_ISBN_LENGTH = 10;
+    private static final int MAX_ISBN_LENGTH = 50;
+    private static final double MIN_PRICE = 1.0;
+    private static final String CSV_SEPARATOR = ",";
+    private static final String CSV_HEADER_MARKER = "isbn";
+    private static final String ISBN_FIELD = "bookIsbn";
+    private static final String PRICE_FIELD = "price";
+    private static final String QUANTITY_FIELD = "quantity";
+
+    private final BufferedReader reader;
+    private final StockFileFormat format;
+    private final ObjectMapper objectMapper;
+
+    private long rejected;
+    private boolean firstLine = true;
+
+    public StockImportReader(InputStream body, StockFileFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    // null at the end of the body
+    public StockItemDTO next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            boolean headerAllowed = firstLine;
+            firstLine = false;
+            if (line.isEmpty() || (headerAllowed && isCsvHeader(line))) {
+                continue;
+            }
+
+            StockItemDTO stockItemDTO = parse(line);
+            if (stockItemDTO != null && isValid(stockItemDTO)) {
+                return stockItemDTO;
+            }
+            rejected++;
+        }
+
+        return null;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean isCsvHeader(String line) {
+        return format == StockFileFormat.CSV && line.toLowerCase().contains(CSV_HEADER_MARKER);
+    }
+
+    private StockItemDTO parse(String line) {
+        try {
+            return format == StockFileFormat.NDJSON
+                    ? parseNdjson(line)
+                    : parseCsv(line);
+        } catch (JsonProcessingException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // read as a tree: binding to the DTO would clamp a negative quantity to 0 instead of rejecting the line like CSV
+    private StockItemDTO parseNdjson(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        JsonNode bookIsbn = node.path(ISBN_FIELD);
+        JsonNode price = node.path(PRICE_FIELD);
+        JsonNode quantity = node.path(QUANTITY_FIELD);
+        if (!bookIsbn.isTextual() || !price.isNumber() || !quantity.isIntegralNumber() || !quantity.canConvertToInt()) {
+            return null;
+        }
+
+        return StockItemDTO.builder()
+                .bookIsbn(bookIsbn.asText())
+                .price(price.asDouble())
+                .quantity(quantity.asInt()).build();
+    }
+
+    private StockItemDTO parseCsv(String line) {
+        String[] fields = line.split(CSV_SEPARATOR, -1);
+        if (fields.length != 3) {
+            return null;
+        }
+
+        return StockItemDTO.builder()
+                .bookIsbn(unquote(fields[0]))
+                .price(Double.parseDouble(unquote(fields[1])))
+                .quantity(Integer.parseInt(unquote(fields[2]))).build();
+    }
+
+    private String unquote(String field) {
+        String value = field.trim();
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1).trim()
+                : value;
+    }
+
+    // the imported quantity replaces the balance, so unlike a single POST zero is allowed
+    private boolean isValid(StockItemDTO stockItemDTO) {
+        String bookIsbn = stockItemDTO.getBookIsbn();
+
+        return bookIsbn != null
+                && bookIsbn.length() >= MIN_ISBN_LENGTH
+                && bookIsbn.length() <= MAX_ISBN_LENGTH
+                && stockItemDTO.getPrice() >= MIN_PRICE
+                && stockItemDTO.getQuantity() >= 0;
+    }
+}
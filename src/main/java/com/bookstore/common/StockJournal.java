@@ -0,0 +1,159 @@
+package com.bookstore.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only journal of stock withdrawals that are acknowledged in memory but not yet written
+ * to the database. Every record is {@code seq<TAB>isbn<TAB>quantity}; the flusher stores the last
+ * written seq together with the quantities, so after a crash {@link #recover(long)} returns exactly
+ * the withdrawals the database hasn't seen yet.
+ * <p>
+ * A torn record (crash in the middle of a write) is skipped on recovery; it was never acknowledged.
+ * After a failed write the journal refuses further appends, because a record appended after a torn
+ * one could be lost. With {@code fsync} off the journal survives process crashes, but not an OS crash.
+ */
+public class StockJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "stock-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final Map<String, Integer> pendingQuantities = new HashMap<>();
+    private final List<Path> retainedSegments = new ArrayList<>();
+    private Path segmentPath;
+    private FileChannel segment;
+    private long lastSeq;
+    private boolean failed;
+
+    public StockJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.fsync = fsync;
+    }
+
+    public synchronized Batch recover(long checkpointSeq) throws IOException {
+        List<Path> segments = listSegments();
+        Map<String, Integer> quantities = new HashMap<>();
+        lastSeq = checkpointSeq;
+
+        for (Path path : segments) {
+            for (String record : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] fields = record.split("\t");
+                if (fields.length != 3) {
+                    continue;
+                }
+                try {
+                    long seq = Long.parseLong(fields[0]);
+                    int quantity = Integer.parseInt(fields[2]);
+                    if (seq > checkpointSeq) {
+                        quantities.merge(fields[1], quantity, Integer::sum);
+                    }
+                    lastSeq = Math.max(lastSeq, seq);
+                } catch (NumberFormatException e) {
+                    // torn record
+                }
+            }
+        }
+
+        openSegment();
+        return new Batch(quantities, lastSeq, segments);
+    }
+
+    public synchronized void append(Map<String, Integer> quantitiesByIsbn) {
+        if (failed) {
+            throw new IllegalStateException("Stock journal " + segmentPath + " failed, restart to recover it");
+        }
+
+        StringBuilder records = new StringBuilder();
+        quantitiesByIsbn.forEach((bookIsbn, quantity) ->
+                records.append(++lastSeq).append('\t').append(bookIsbn).append('\t').append(quantity).append('\n'));
+        try {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(records.toString());
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            if (fsync) {
+                segment.force(false);
+            }
+        } catch (IOException e) {
+            failed = true;
+            throw new UncheckedIOException(e);
+        }
+
+        quantitiesByIsbn.forEach((bookIsbn, quantity) -> pendingQuantities.merge(bookIsbn, quantity, Integer::sum));
+    }
+
+    // hands the pending quantities to the flusher and starts a new segment, null when there is nothing to flush
+    public synchronized Batch drain() throws IOException {
+        if (pendingQuantities.isEmpty()) {
+            return null;
+        }
+
+        segment.close();
+        retainedSegments.add(segmentPath);
+        Batch batch = new Batch(new HashMap<>(pendingQuantities), lastSeq, new ArrayList<>(retainedSegments));
+        pendingQuantities.clear();
+        retainedSegments.clear();
+        openSegment();
+
+        return batch;
+    }
+
+    // the batch couldn't be flushed, it goes out again with the next one
+    public synchronized void restore(Batch batch) {
+        batch.getQuantities().forEach((bookIsbn, quantity) -> pendingQuantities.merge(bookIsbn, quantity, Integer::sum));
+        retainedSegments.addAll(0, batch.getSegments());
+    }
+
+    public void release(Batch batch) throws IOException {
+        for (Path path : batch.getSegments()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("%s%020d-%d%s", SEGMENT_PREFIX, lastSeq + 1, System.nanoTime(), SEGMENT_SUFFIX));
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Batch {
+        private final Map<String, Integer> quantities;
+        private final long lastSeq;
+        private final List<Path> segments;
+    }
+}
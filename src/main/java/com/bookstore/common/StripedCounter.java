@@ -0,0 +1,81 @@
+package com.bookstore.common;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Non-negative counter split into stripes, so concurrent withdrawals mostly CAS different slots.
+ * A withdrawal that no single stripe can cover drains several stripes under a lock and gives the
+ * books back if their sum is still not enough; the counter never goes below zero.
+ */
+public class StripedCounter {
+
+    private final AtomicIntegerArray stripes;
+
+    public StripedCounter(int value, int stripeCount) {
+        stripes = new AtomicIntegerArray(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.set(i, value / stripeCount + (i < value % stripeCount ? 1 : 0));
+        }
+    }
+
+    // a negative quantity returns books and always succeeds
+    public boolean tryWithdraw(int quantity) {
+        int home = (int) (Thread.currentThread().getId() % stripes.length());
+        if (quantity <= 0) {
+            stripes.addAndGet(home, -quantity);
+            return true;
+        }
+
+        for (int i = 0; i < stripes.length(); i++) {
+            if (tryWithdrawFromStripe((home + i) % stripes.length(), quantity)) {
+                return true;
+            }
+        }
+        return withdrawFromAllStripes(quantity);
+    }
+
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            sum += stripes.get(i);
+        }
+        return sum;
+    }
+
+    private boolean tryWithdrawFromStripe(int stripe, int quantity) {
+        int current = stripes.get(stripe);
+        while (current >= quantity) {
+            if (stripes.compareAndSet(stripe, current, current - quantity)) {
+                return true;
+            }
+            current = stripes.get(stripe);
+        }
+        return false;
+    }
+
+    private synchronized boolean withdrawFromAllStripes(int quantity) {
+        int[] taken = new int[stripes.length()];
+        int remaining = quantity;
+
+        for (int i = 0; i < stripes.length() && remaining > 0; i++) {
+            int current = stripes.get(i);
+            while (current > 0) {
+                int withdrawn = Math.min(current, remaining);
+                if (stripes.compareAndSet(i, current, current - withdrawn)) {
+                    taken[i] = withdrawn;
+                    remaining -= withdrawn;
+                    break;
+                }
+                current = stripes.get(i);
+            }
+        }
+
+        if (remaining > 0) {
+            for (int i = 0; i < taken.length; i++) {
+                stripes.addAndGet(i, taken[i]);
+            }
+            return false;
+        }
+        return true;
+    }
+}
@@ -6,7 +6,7 @@ import com.bookstore.controller.request.AuthorSearchRequest;
 import com.bookstore.service.AuthorService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -25,8 +25,8 @@ public class AuthorController {
 
     @ApiOperation(value = "This method is used to search Authors")
     @GetMapping
-    public ResponseEntity<Page<AuthorDTO>> searchAuthor(@Valid @RequestBody AuthorSearchRequest searchRequest) {
-        Page<AuthorDTO> authors = authorService.searchAuthor(searchRequest);
+    public ResponseEntity<Slice<AuthorDTO>> searchAuthor(@Valid @RequestBody AuthorSearchRequest searchRequest) {
+        Slice<AuthorDTO> authors = authorService.searchAuthor(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(authors);
     }
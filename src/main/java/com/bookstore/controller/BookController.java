@@ -2,11 +2,12 @@ package com.bookstore.controller;
 
 import com.bookstore.common.Messages;
 import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.controller.dto.SearchIndexStatsDTO;
 import com.bookstore.controller.request.BookSearchRequest;
 import com.bookstore.service.BookService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -24,8 +25,8 @@ public class BookController {
 
     @ApiOperation(value = "This method is used to search Books")
     @GetMapping
-    public ResponseEntity<Page<BookDTO>> searchBook(@Valid @RequestBody BookSearchRequest searchRequest) {
-        Page<BookDTO> books = bookService.searchBook(searchRequest);
+    public ResponseEntity<Slice<BookDTO>> searchBook(@Valid @RequestBody BookSearchRequest searchRequest) {
+        Slice<BookDTO> books = bookService.searchBook(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(books);
     }
@@ -50,6 +51,14 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.OK).body(updatedBook);
     }
 
+    @ApiOperation(value = "This method is used to rebuild the title search index from the database")
+    @PostMapping(value = Messages.TITLE_INDEX_MAPPING)
+    public ResponseEntity<SearchIndexStatsDTO> rebuildTitleIndex() {
+        SearchIndexStatsDTO titleIndexStats = bookService.rebuildTitleIndex();
+
+        return ResponseEntity.status(HttpStatus.OK).body(titleIndexStats);
+    }
+
     @ApiOperation(value = "This method is used to delete Book by ISBN")
     @DeleteMapping(value = Messages.ISBN_MAPPING)
     public ResponseEntity<?> deleteBookByIsbn(@PathVariable(Messages.ISBN_PATH) String isbn) {
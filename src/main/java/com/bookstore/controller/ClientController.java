@@ -6,7 +6,7 @@ import com.bookstore.controller.request.ClientSearchRequest;
 import com.bookstore.service.ClientService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -25,8 +25,8 @@ public class ClientController {
 
     @ApiOperation(value = "This method is used to search Clients")
     @GetMapping
-    public ResponseEntity<Page<ClientDTO>> searchClient(@Valid @RequestBody ClientSearchRequest searchRequest) {
-        Page<ClientDTO> clients = clientService.searchClient(searchRequest);
+    public ResponseEntity<Slice<ClientDTO>> searchClient(@Valid @RequestBody ClientSearchRequest searchRequest) {
+        Slice<ClientDTO> clients = clientService.searchClient(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(clients);
     }
@@ -3,12 +3,14 @@ package com.bookstore.controller;
 
 import com.bookstore.common.Messages;
 import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderStatusUpdateResultDTO;
 import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.controller.request.OrderStatusBulkRequest;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.service.OrderService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.List;
 
 @Validated
 @RestController
@@ -27,8 +30,8 @@ public class OrderController {
 
     @ApiOperation(value = "This method is used to search Orders")
     @GetMapping
-    public ResponseEntity<Page<OrderDTO>> searchOrders(@Valid @RequestBody OrderSearchRequest searchRequest) {
-        Page<OrderDTO> ordersDTO = orderService.searchOrders(searchRequest);
+    public ResponseEntity<Slice<OrderDTO>> searchOrders(@Valid @RequestBody OrderSearchRequest searchRequest) {
+        Slice<OrderDTO> ordersDTO = orderService.searchOrders(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(ordersDTO);
     }
@@ -55,10 +58,19 @@ public class OrderController {
     @ApiOperation(value = "This method is used to change Order status")
     @PatchMapping(value = Messages.ID_MAPPING)
     public ResponseEntity<OrderDTO> mergeOrder(@RequestParam(Messages.STATUS) OrderStatus orderStatus,
+                                               @RequestParam(name = Messages.RELOAD, required = false) boolean reload,
                                                @PathVariable(Messages.ID_PATH) Long orderId) {
 
-        OrderDTO updatedOrderDTO = orderService.updateStatus(orderId, orderStatus);
+        OrderDTO updatedOrderDTO = orderService.updateStatus(orderId, orderStatus, reload);
 
         return ResponseEntity.status(HttpStatus.OK).body(updatedOrderDTO);
     }
+
+    @ApiOperation(value = "This method is used to change status of many Orders by IDs or search filter")
+    @PatchMapping
+    public ResponseEntity<List<OrderStatusUpdateResultDTO>> mergeOrders(@Valid @RequestBody OrderStatusBulkRequest request) {
+        List<OrderStatusUpdateResultDTO> results = orderService.updateStatuses(request);
+
+        return ResponseEntity.status(HttpStatus.OK).body(results);
+    }
 }
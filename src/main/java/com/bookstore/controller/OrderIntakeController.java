@@ -0,0 +1,42 @@
+package com.bookstore.controller;
+
+
+import com.bookstore.common.Messages;
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderIntakeStatusDTO;
+import com.bookstore.service.OrderIntakeService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@Validated
+@RestController
+@RequestMapping(value = Messages.ORDER_INTAKE_CONTROLLER_URI)
+@ConditionalOnProperty(name = "bookstore.orders.intake.enabled", havingValue = "true")
+public class OrderIntakeController {
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @ApiOperation(value = "This method is used to queue new Order for asynchronous saving")
+    @PostMapping
+    public ResponseEntity<OrderIntakeStatusDTO> submitOrder(@Valid @RequestBody OrderDTO orderDTO) {
+        OrderIntakeStatusDTO intakeStatus = orderIntakeService.submitOrder(orderDTO);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(intakeStatus);
+    }
+
+    @ApiOperation(value = "This method is used to get status of queued Order by tracking ID")
+    @GetMapping(value = Messages.TRACKING_ID_MAPPING)
+    public ResponseEntity<OrderIntakeStatusDTO> getIntakeStatus(@PathVariable(Messages.TRACKING_ID_PATH) String trackingId) {
+        OrderIntakeStatusDTO intakeStatus = orderIntakeService.getIntakeStatus(trackingId);
+
+        return ResponseEntity.status(HttpStatus.OK).body(intakeStatus);
+    }
+}
@@ -6,7 +6,7 @@ import com.bookstore.controller.request.PublisherSearchRequest;
 import com.bookstore.service.PublisherService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -26,8 +26,8 @@ public class PublisherController {
 
     @ApiOperation(value = "This method is used to search Publishers")
     @GetMapping
-    public ResponseEntity<Page<PublisherDTO>> searchPublisher(@Valid @RequestBody PublisherSearchRequest searchRequest) {
-        Page<PublisherDTO> publishers = publisherService.searchPublisher(searchRequest);
+    public ResponseEntity<Slice<PublisherDTO>> searchPublisher(@Valid @RequestBody PublisherSearchRequest searchRequest) {
+        Slice<PublisherDTO> publishers = publisherService.searchPublisher(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(publishers);
     }
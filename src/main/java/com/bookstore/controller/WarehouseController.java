@@ -2,19 +2,34 @@ package com.bookstore.controller;
 
 
 import com.bookstore.common.Messages;
+import com.bookstore.controller.dto.CacheStatsDTO;
+import com.bookstore.controller.dto.StockAvailabilityDTO;
+import com.bookstore.controller.dto.StockConflictStatsDTO;
+import com.bookstore.controller.dto.StockImportResultDTO;
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.controller.dto.StockRepriceResultDTO;
+import com.bookstore.controller.request.StockRepriceRequest;
 import com.bookstore.controller.request.WarehouseSearchRequest;
+import com.bookstore.entity.enums.StockFileFormat;
 import com.bookstore.service.WarehouseService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 @Validated
 @RestController
@@ -27,8 +42,8 @@ public class WarehouseController {
 
     @ApiOperation(value = "This method is used to search items in Warehouse")
     @GetMapping
-    public ResponseEntity<Page<StockItemDTO>> searchStockBalances(@Valid @RequestBody WarehouseSearchRequest searchRequest) {
-        Page<StockItemDTO> stockBalances = warehouseService.searchStockBalances(searchRequest);
+    public ResponseEntity<Slice<StockItemDTO>> searchStockBalances(@Valid @RequestBody WarehouseSearchRequest searchRequest) {
+        Slice<StockItemDTO> stockBalances = warehouseService.searchStockBalances(searchRequest);
 
         return ResponseEntity.status(HttpStatus.OK).body(stockBalances);
     }
@@ -42,6 +57,28 @@ public class WarehouseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(location);
     }
 
+    @ApiOperation(value = "This method is used to import a streamed CSV (bookIsbn,price,quantity) or NDJSON stock file into Warehouse")
+    @PostMapping(value = Messages.IMPORT_MAPPING, consumes = {Messages.TEXT_CSV, Messages.APPLICATION_NDJSON})
+    public ResponseEntity<StockImportResultDTO> importStockItems(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                 InputStream body) {
+        StockFileFormat format = MediaType.valueOf(Messages.TEXT_CSV).includes(contentType)
+                ? StockFileFormat.CSV
+                : StockFileFormat.NDJSON;
+        StockImportResultDTO importResult = warehouseService.importStockItems(body, format);
+
+        return ResponseEntity.status(HttpStatus.OK).body(importResult);
+    }
+
+    @ApiOperation(value = "This method is used to stream balances of all items in Warehouse as NDJSON or CSV")
+    @GetMapping(value = Messages.EXPORT_MAPPING, produces = {Messages.APPLICATION_NDJSON, Messages.TEXT_CSV})
+    public ResponseEntity<StreamingResponseBody> exportStockItems(@RequestParam(name = Messages.FORMAT_PATH, defaultValue = "NDJSON") StockFileFormat format) {
+        StreamingResponseBody body = outputStream -> warehouseService.exportStockItems(outputStream, format);
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.valueOf(format == StockFileFormat.CSV ? Messages.TEXT_CSV : Messages.APPLICATION_NDJSON))
+                .body(body);
+    }
+
     @ApiOperation(value = "This method is used to update item in Warehouse by ISBN")
     @PutMapping(value = Messages.ISBN_MAPPING)
     public ResponseEntity<StockItemDTO> updateStockItem(@RequestParam(name = Messages.QUANTITY_PATH, required = false) Integer quantity,
@@ -53,4 +90,46 @@ public class WarehouseController {
         return ResponseEntity.status(HttpStatus.OK).body(updatedStockItemDTO);
     }
 
+    @ApiOperation(value = "This method is used to set, multiply or add to prices of all items in Warehouse matching ISBNs, publisher, genre or price range")
+    @PatchMapping(value = Messages.PRICES_MAPPING)
+    public ResponseEntity<StockRepriceResultDTO> repriceStockItems(@Valid @RequestBody StockRepriceRequest request) {
+        StockRepriceResultDTO repriceResult = warehouseService.repriceStockItems(request);
+
+        return ResponseEntity.status(HttpStatus.OK).body(repriceResult);
+    }
+
+    @ApiOperation(value = "This method is used to split stock of a hot book into several counters (1 merges them back)")
+    @PutMapping(value = Messages.SHARDS_MAPPING)
+    public ResponseEntity<StockItemDTO> splitStockItem(@Min(value = 1, message = Messages.MIN_SHARDS) @RequestParam(name = Messages.SHARDS_PATH) int shards,
+                                                       @PathVariable(Messages.ISBN_PATH) String bookIsbn) {
+
+        StockItemDTO splitStockItemDTO = warehouseService.splitStockItem(bookIsbn, shards);
+
+        return ResponseEntity.status(HttpStatus.OK).body(splitStockItemDTO);
+    }
+
+    @ApiOperation(value = "This method is used to get price and quantity of several items in Warehouse (e.g. a cart) by ISBNs")
+    @GetMapping(value = Messages.AVAILABILITY_MAPPING)
+    public ResponseEntity<Map<String, StockAvailabilityDTO>> getStockAvailability(@Size(min = 1, max = 100, message = Messages.AVAILABILITY_ISBNS_SIZE) @RequestParam(name = Messages.ISBNS_PATH) List<String> bookIsbns) {
+        Map<String, StockAvailabilityDTO> availability = warehouseService.getStockAvailability(bookIsbns);
+
+        return ResponseEntity.status(HttpStatus.OK).body(availability);
+    }
+
+    @ApiOperation(value = "This method is used to get hit/miss/eviction statistics of the book price cache")
+    @GetMapping(value = Messages.PRICE_CACHE_MAPPING)
+    public ResponseEntity<CacheStatsDTO> getPriceCacheStats() {
+        CacheStatsDTO priceCacheStats = warehouseService.getPriceCacheStats();
+
+        return ResponseEntity.status(HttpStatus.OK).body(priceCacheStats);
+    }
+
+    @ApiOperation(value = "This method is used to get optimistic locking conflicts and retries per ISBN, most conflicted first")
+    @GetMapping(value = Messages.CONFLICTS_MAPPING)
+    public ResponseEntity<List<StockConflictStatsDTO>> getConflictStats(@Min(value = 1, message = Messages.MIN_LIMIT) @RequestParam(name = Messages.LIMIT_PATH, defaultValue = "20") int limit) {
+        List<StockConflictStatsDTO> conflictStats = warehouseService.getConflictStats(limit);
+
+        return ResponseEntity.status(HttpStatus.OK).body(conflictStats);
+    }
+
 }
@@ -0,0 +1,19 @@
+package com.bookstore.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDTO {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private int size;
+}
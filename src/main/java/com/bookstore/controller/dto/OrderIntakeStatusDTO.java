@@ -0,0 +1,19 @@
+package com.bookstore.controller.dto;
+
+import com.bookstore.entity.enums.OrderIntakeState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIntakeStatusDTO {
+
+    private String trackingId;
+    private OrderIntakeState state;
+    private Long orderId;
+    private String message;
+}
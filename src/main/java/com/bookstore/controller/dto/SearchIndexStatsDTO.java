@@ -0,0 +1,16 @@
+package com.bookstore.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchIndexStatsDTO {
+
+    private int documents;
+    private int terms;
+}
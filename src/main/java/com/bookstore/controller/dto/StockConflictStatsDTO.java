@@ -0,0 +1,19 @@
+package com.bookstore.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockConflictStatsDTO {
+
+    private String bookIsbn;
+    private long updates;
+    private long conflicts;
+    private long retries;
+    private long failures;
+}
@@ -0,0 +1,17 @@
+package com.bookstore.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockImportResultDTO {
+
+    private long inserted;
+    private long updated;
+    private long rejected;
+}
@@ -17,4 +17,5 @@ public class BookSearchRequest extends SearchRequest {
     private Long authorId;
     private Long publisherId;
     private BookGenre genre;
+    private Boolean inStockOnly;
 }
@@ -0,0 +1,36 @@
+package com.bookstore.controller.request;
+
+import com.bookstore.common.Messages;
+import com.bookstore.entity.enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusBulkRequest {
+
+    @Size(max = 1000, message = Messages.BULK_ORDER_IDS_SIZE)
+    private List<Long> ids;
+
+    @Valid
+    private OrderSearchRequest filter;
+
+    @NotNull(message = Messages.ADD_ORDER_STATUS)
+    private OrderStatus status;
+
+    @JsonIgnore
+    @AssertTrue(message = Messages.ADD_ORDERS_SELECTION)
+    public boolean isOrdersSelected() {
+        // an empty filter {} would select every order in the table
+        return (ids != null && !ids.isEmpty()) || (filter != null && filter.hasFilter());
+    }
+}
@@ -1,11 +1,41 @@
 package com.bookstore.controller.request;
 
+import com.bookstore.common.Messages;
+import com.bookstore.entity.enums.CountMode;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import org.springframework.beans.BeanUtils;
+
+import javax.validation.constraints.AssertTrue;
 
 @Data
 public abstract class SearchRequest {
 
+    private static final String[] PAGING = {"page", "limit", "cursor", "count"};
+
     public Long id;
     public Integer page;
     public Integer limit;
+    // nextCursor of the previous page; takes precedence over page
+    public String cursor;
+    // how the total is counted, EXACT if not set; NONE returns a slice without a total
+    public CountMode count;
+
+    // a copy with the filters only, equal for every page of the same search
+    public SearchRequest withoutPaging() {
+        SearchRequest filter = BeanUtils.instantiateClass(getClass());
+        BeanUtils.copyProperties(this, filter, PAGING);
+        return filter;
+    }
+
+    public boolean hasFilter() {
+        return !withoutPaging().equals(BeanUtils.instantiateClass(getClass()));
+    }
+
+    // the planner's estimate is of the whole table, a filtered search has to be counted
+    @JsonIgnore
+    @AssertTrue(message = Messages.ESTIMATE_COUNT_WITH_FILTER)
+    public boolean isCountModeValid() {
+        return count != CountMode.ESTIMATE || !hasFilter();
+    }
 }
@@ -0,0 +1,47 @@
+package com.bookstore.controller.request;
+
+import com.bookstore.common.Messages;
+import com.bookstore.entity.enums.BookGenre;
+import com.bookstore.entity.enums.PriceOperation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockRepriceRequest {
+
+    private List<String> bookIsbns;
+    private Long publisherId;
+    private BookGenre genre;
+    private Double priceFrom;
+    private Double priceTo;
+
+    @NotNull(message = Messages.ADD_PRICE_OPERATION)
+    private PriceOperation operation;
+
+    @NotNull(message = Messages.ADD_PRICE_OPERATION)
+    private Double value;
+
+    @JsonIgnore
+    @AssertTrue(message = Messages.ADD_STOCK_ITEMS_SELECTION)
+    public boolean isStockItemsSelected() {
+        return (bookIsbns != null && !bookIsbns.isEmpty()) || publisherId != null || genre != null
+                || priceFrom != null || priceTo != null;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = Messages.PRICE_OPERATION_NOT_VALID)
+    public boolean isOperationValid() {
+        return operation == null || value == null
+                || (operation == PriceOperation.SET && value >= 1)
+                || (operation == PriceOperation.MULTIPLY && value > 0)
+                || operation == PriceOperation.ADD;
+    }
+}
@@ -1,8 +1,12 @@
 package com.bookstore.entity;
 
 import com.bookstore.controller.dto.AuthorDTO;
+import com.bookstore.entity.id.PooledSequenceGenerator;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -18,7 +22,9 @@ import java.util.Objects;
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_id_generator")
+    @GenericGenerator(name = "author_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "author_id_seq"))
     private Long id;
 
     private String name;
@@ -2,7 +2,11 @@ package com.bookstore.entity;
 
 import com.bookstore.controller.dto.OrderDTO;
 import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.entity.id.PooledSequenceGenerator;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.time.Instant;
@@ -17,7 +21,9 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_generator")
+    @GenericGenerator(name = "orders_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_id_seq"))
     private Long id;
 
     @OneToMany(mappedBy = "order", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
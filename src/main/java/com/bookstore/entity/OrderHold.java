@@ -0,0 +1,25 @@
+package com.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "order_hold")
+public class OrderHold {
+
+    @Id
+    private Long orderId;
+
+    private Instant expiresAt;
+}
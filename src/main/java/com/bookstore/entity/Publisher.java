@@ -1,10 +1,14 @@
 package com.bookstore.entity;
 
 import com.bookstore.controller.dto.PublisherDTO;
+import com.bookstore.entity.id.PooledSequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -17,7 +21,9 @@ import javax.persistence.*;
 public class Publisher {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "publisher_id_generator")
+    @GenericGenerator(name = "publisher_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "publisher_id_seq"))
     private Long id;
 
     private String title;
@@ -1,11 +1,15 @@
 package com.bookstore.entity;
 
 import com.bookstore.controller.dto.SoldItemDTO;
+import com.bookstore.entity.id.PooledSequenceGenerator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -18,7 +22,9 @@ import javax.persistence.*;
 public class SoldItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sold_book_id_generator")
+    @GenericGenerator(name = "sold_book_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "sold_book_id_seq"))
     private Long id;
 
     private String bookIsbn;
@@ -1,10 +1,14 @@
 package com.bookstore.entity;
 
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.entity.id.PooledSequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 
@@ -17,7 +21,9 @@ import javax.persistence.*;
 public class StockItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_id_generator")
+    @GenericGenerator(name = "warehouse_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "warehouse_id_seq"))
     private Long id;
 
     private String bookIsbn;
@@ -25,6 +31,13 @@ public class StockItem {
     private double price;
     private int quantity;
 
+    @Version
+    private Long version;
+
+    public StockItem(Long id, String bookIsbn, double price, int quantity) {
+        this(id, bookIsbn, price, quantity, null);
+    }
+
     public StockItemDTO toDTO() {
         return StockItemDTO.builder()
                 .id(id)
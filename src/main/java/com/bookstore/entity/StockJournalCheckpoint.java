@@ -0,0 +1,24 @@
+package com.bookstore.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "stock_journal_checkpoint")
+public class StockJournalCheckpoint {
+
+    @Id
+    private String journal;
+
+    private long lastSeq;
+}
@@ -0,0 +1,42 @@
+package com.bookstore.entity;
+
+import com.bookstore.entity.enums.StockMovementType;
+import com.bookstore.entity.id.PooledSequenceGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "stock_movement")
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_id_generator")
+    @GenericGenerator(name = "stock_movement_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "stock_movement_id_seq"))
+    private Long id;
+
+    private String bookIsbn;
+
+    // change of the stock: negative for withdrawals
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    private StockMovementType type;
+
+    // already included in the warehouse balance
+    private boolean applied;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,31 @@
+package com.bookstore.entity;
+
+import com.bookstore.entity.id.PooledSequenceGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.*;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "warehouse_shard")
+public class StockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_shard_id_generator")
+    @GenericGenerator(name = "warehouse_shard_id_generator", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "warehouse_shard_id_seq"))
+    private Long id;
+
+    private String bookIsbn;
+
+    private int quantity;
+}
@@ -0,0 +1,8 @@
+package com.bookstore.entity.enums;
+
+public enum CountMode {
+    EXACT,
+    ESTIMATE,
+    NONE,
+    CACHED
+}
@@ -1,8 +1,32 @@
 package com.bookstore.entity.enums;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     NEW,
     APPROVED,
     COMPLETED,
-    CANCELLED
+    CANCELLED;
+
+    // new status -> statuses an order may have before moving to it
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(NEW, Collections.unmodifiableSet(EnumSet.of(NEW)));
+        TRANSITIONS.put(APPROVED, Collections.unmodifiableSet(EnumSet.of(NEW, APPROVED)));
+        TRANSITIONS.put(COMPLETED, Collections.unmodifiableSet(EnumSet.of(NEW, APPROVED)));
+        TRANSITIONS.put(CANCELLED, Collections.unmodifiableSet(EnumSet.of(NEW, APPROVED)));
+    }
+
+    public Set<OrderStatus> getAllowedPreviousStatuses() {
+        return TRANSITIONS.get(this);
+    }
+
+    public boolean canBeChangedTo(OrderStatus newStatus) {
+        return newStatus.getAllowedPreviousStatuses().contains(this);
+    }
 }
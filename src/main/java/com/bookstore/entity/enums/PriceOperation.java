@@ -0,0 +1,7 @@
+package com.bookstore.entity.enums;
+
+public enum PriceOperation {
+    SET,
+    MULTIPLY,
+    ADD
+}
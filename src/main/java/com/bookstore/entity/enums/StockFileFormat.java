@@ -0,0 +1,6 @@
+package com.bookstore.entity.enums;
+
+public enum StockFileFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,7 @@
+package com.bookstore.entity.enums;
+
+public enum StockMovementType {
+    ORDER_WITHDRAWAL,
+    ORDER_RETURN,
+    MANUAL_ADJUSTMENT
+}
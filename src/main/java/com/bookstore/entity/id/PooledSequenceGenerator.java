@@ -0,0 +1,32 @@
+package com.bookstore.entity.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator whose allocation size comes from the {@value #ALLOCATION_SIZE_SETTING} setting
+ * instead of being hard-coded per entity. The database sequences must be created with
+ * {@code INCREMENT BY} equal to the allocation size (see database/id-sequences.sql), which
+ * {@link PooledSequenceVerifier} checks on startup.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "com.bookstore.entity.id.PooledSequenceGenerator";
+    public static final String ALLOCATION_SIZE_SETTING = "bookstore.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Integer allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
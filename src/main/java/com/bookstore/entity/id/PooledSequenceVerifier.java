@@ -0,0 +1,74 @@
+package com.bookstore.entity.id;
+
+import com.bookstore.common.Messages;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fails the startup when a sequence behind a {@link PooledSequenceGenerator} doesn't advance by the
+ * generator's allocation size. The sequences are altered by database/id-sequences.sql, which can't
+ * read {@value PooledSequenceGenerator#ALLOCATION_SIZE_SETTING}; with a smaller increment two
+ * instances would hand out the same ids.
+ */
+@Component
+public class PooledSequenceVerifier {
+
+    private static final String SEQUENCE_INCREMENTS_SQL =
+            "SELECT sequencename, increment_by FROM pg_sequences WHERE sequencename = ANY(?)";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void verifySequenceIncrements() {
+        Map<String, Integer> allocationSizes = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersisters().values().stream()
+                .map(EntityPersister::getIdentifierGenerator)
+                .filter(PooledSequenceGenerator.class::isInstance)
+                .map(generator -> ((SequenceStyleGenerator) generator).getDatabaseStructure())
+                .collect(Collectors.toMap(PooledSequenceVerifier::getSequenceName, DatabaseStructure::getIncrementSize, (size, sameSize) -> size));
+        if (allocationSizes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> increments = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SEQUENCE_INCREMENTS_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", allocationSizes.keySet().toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> increments.put(rs.getString(1), rs.getLong(2)));
+
+        List<String> mismatches = allocationSizes.entrySet().stream()
+                .filter(allocation -> increments.getOrDefault(allocation.getKey(), 0L) != allocation.getValue().longValue())
+                .map(allocation -> String.format(Messages.ID_SEQUENCE_INCREMENT_MISMATCH, allocation.getKey(),
+                        increments.get(allocation.getKey()), allocation.getValue()))
+                .sorted()
+                .collect(Collectors.toList());
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException(String.join(" ", mismatches));
+        }
+    }
+
+    // pg_sequences lists unqualified names
+    private static String getSequenceName(DatabaseStructure databaseStructure) {
+        String name = databaseStructure.getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,27 @@
+package com.bookstore.entity.metamodels;
+
+import com.bookstore.entity.StockMovement;
+import com.bookstore.entity.enums.StockMovementType;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+import java.time.Instant;
+
+@StaticMetamodel(StockMovement.class)
+public abstract class StockMovement_ {
+
+    public static volatile SingularAttribute<StockMovement, Long> id;
+    public static volatile SingularAttribute<StockMovement, String> bookIsbn;
+    public static volatile SingularAttribute<StockMovement, Integer> quantity;
+    public static volatile SingularAttribute<StockMovement, StockMovementType> type;
+    public static volatile SingularAttribute<StockMovement, Boolean> applied;
+    public static volatile SingularAttribute<StockMovement, Instant> createdAt;
+
+    public static final String ID = "id";
+    public static final String BOOK_ISBN = "bookIsbn";
+    public static final String QUANTITY = "quantity";
+    public static final String TYPE = "type";
+    public static final String APPLIED = "applied";
+    public static final String CREATED_AT = "createdAt";
+
+}
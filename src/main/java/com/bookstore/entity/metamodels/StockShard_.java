@@ -0,0 +1,19 @@
+package com.bookstore.entity.metamodels;
+
+import com.bookstore.entity.StockShard;
+
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+
+@StaticMetamodel(StockShard.class)
+public abstract class StockShard_ {
+
+    public static volatile SingularAttribute<StockShard, Long> id;
+    public static volatile SingularAttribute<StockShard, String> bookIsbn;
+    public static volatile SingularAttribute<StockShard, Integer> quantity;
+
+    public static final String ID = "id";
+    public static final String BOOK_ISBN = "bookIsbn";
+    public static final String QUANTITY = "quantity";
+
+}
@@ -2,6 +2,7 @@ package com.bookstore.exception;
 
 
 import com.bookstore.common.Messages;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -69,6 +70,41 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
                 .body(error);
     }
 
+    @ExceptionHandler(OrderIntakeRejectedException.class)
+    public final ResponseEntity<Object> handleOrderIntakeRejectedException(OrderIntakeRejectedException ex, WebRequest request) {
+        ErrorAPI error = new ErrorAPI(Messages.ORDER_INTAKE_REJECTED, ex.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(error);
+    }
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public final ResponseEntity<Object> handleConcurrencyFailureException(ConcurrencyFailureException ex, WebRequest request) {
+        ErrorAPI error = new ErrorAPI(Messages.CONCURRENT_UPDATE, ex.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(error);
+    }
+
+    @ExceptionHandler(InvalidPageCursorException.class)
+    public final ResponseEntity<Object> handleInvalidPageCursorException(InvalidPageCursorException ex, WebRequest request) {
+        ErrorAPI error = new ErrorAPI(Messages.INVALID_PAGE_CURSOR, ex.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(error);
+    }
+
+    @ExceptionHandler(StockShardingDisabledException.class)
+    public final ResponseEntity<Object> handleStockShardingDisabledException(StockShardingDisabledException ex, WebRequest request) {
+        ErrorAPI error = new ErrorAPI(Messages.STOCK_SHARDING_DISABLED, ex.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(error);
+    }
+
+    @ExceptionHandler(HotStockSplitException.class)
+    public final ResponseEntity<Object> handleHotStockSplitException(HotStockSplitException ex, WebRequest request) {
+        ErrorAPI error = new ErrorAPI(Messages.HOT_STOCK_SPLIT, ex.getLocalizedMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public final ResponseEntity<Object> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex, WebRequest request) {
         ErrorAPI error = new ErrorAPI(Messages.FAILED_TO_CONVERT_VALUE, ex.getLocalizedMessage());
@@ -0,0 +1,13 @@
+package com.bookstore.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class HotStockSplitException extends RuntimeException {
+
+    public HotStockSplitException(String message) {
+        super(message);
+    }
+}
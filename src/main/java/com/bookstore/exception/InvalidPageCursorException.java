@@ -0,0 +1,13 @@
+package com.bookstore.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidPageCursorException extends RuntimeException {
+
+    public InvalidPageCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIntakeRejectedException extends RuntimeException {
+
+    public OrderIntakeRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class StockShardingDisabledException extends RuntimeException {
+
+    public StockShardingDisabledException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,7 @@ package com.bookstore.repository;
 
 import com.bookstore.entity.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface AuthorRepository extends JpaRepository<Author, Long>, JpaSpecificationExecutor<Author> {
+public interface AuthorRepository extends JpaRepository<Author, Long>, KeysetRepository<Author> {
 
 }
@@ -3,13 +3,12 @@ package com.bookstore.repository;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, String>, JpaSpecificationExecutor<Book> {
+public interface BookRepository extends JpaRepository<Book, String>, KeysetRepository<Book>, BookRepositoryCustom {
 
     List<Book> findByAuthorId(Long authorId);
 
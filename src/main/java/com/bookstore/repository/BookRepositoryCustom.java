@@ -0,0 +1,18 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.Book;
+import com.bookstore.repository.projection.BookSearchView;
+import com.bookstore.repository.projection.BookTitleView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookRepositoryCustom {
+
+    List<BookTitleView> findTitleViewsAfterIsbn(String afterIsbn, int limit);
+
+    List<String> findIsbns(Specification<Book> specification);
+
+    List<BookSearchView> findSearchViews(Specification<Book> specification, Sort sort, long offset, int limit);
+}
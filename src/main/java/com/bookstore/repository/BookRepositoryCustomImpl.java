@@ -0,0 +1,115 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Publisher;
+import com.bookstore.entity.metamodels.Book_;
+import com.bookstore.entity.metamodels.Publisher_;
+import com.bookstore.repository.projection.BookSearchView;
+import com.bookstore.repository.projection.BookTitleView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String AUTHOR_NAMES_JPQL = "select b.isbn as isbn, a.name as name, a.surname as surname " +
+            "from Book b join b.author a where b.isbn in :isbns";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Next {@code limit} books in ISBN order after {@code afterIsbn} ({@code null} for the first ones) as
+     * {@link BookTitleView}s: the title of each book, then the author names of all of them in a second query.
+     * It seeks on the primary key instead of skipping rows, and nothing is left in the persistence context.
+     */
+    @Override
+    public List<BookTitleView> findTitleViewsAfterIsbn(String afterIsbn, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookTitleView> query = cb.createQuery(BookTitleView.class);
+        Root<Book> root = query.from(Book.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterIsbn != null) {
+            predicates.add(cb.greaterThan(root.get(Book_.ISBN), afterIsbn));
+        }
+        query.select(cb.construct(BookTitleView.class, root.get(Book_.ISBN), root.get(Book_.TITLE)))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get(Book_.ISBN)));
+
+        List<BookTitleView> books = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        if (books.isEmpty()) {
+            return books;
+        }
+
+        Map<String, BookTitleView> booksByIsbn = books.stream()
+                .collect(Collectors.toMap(BookTitleView::getIsbn, Function.identity()));
+        entityManager.createQuery(AUTHOR_NAMES_JPQL, Tuple.class)
+                .setParameter("isbns", booksByIsbn.keySet())
+                .getResultList()
+                .forEach(author -> {
+                    List<String> authorNames = booksByIsbn.get(author.get("isbn", String.class)).getAuthorNames();
+                    authorNames.add(author.get("name", String.class));
+                    authorNames.add(author.get("surname", String.class));
+                });
+
+        return books;
+    }
+
+    @Override
+    public List<String> findIsbns(Specification<Book> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
+        Root<Book> root = query.from(Book.class);
+
+        query.select(root.get(Book_.ISBN))
+                .distinct(true)
+                .where(specification.toPredicate(root, query, cb));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Matching books as {@link BookSearchView}s: the book and publisher columns of one join, without the
+     * entity's eager publisher and author selects.
+     */
+    @Override
+    public List<BookSearchView> findSearchViews(Specification<Book> specification, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookSearchView> query = cb.createQuery(BookSearchView.class);
+        Root<Book> root = query.from(Book.class);
+        Join<Book, Publisher> publisher = root.join(Book_.PUBLISHER, JoinType.LEFT);
+
+        query.select(cb.construct(BookSearchView.class,
+                        root.get(Book_.ISBN),
+                        root.get(Book_.TITLE),
+                        root.get(Book_.GENRE),
+                        publisher.get(Publisher_.ID),
+                        publisher.get(Publisher_.TITLE),
+                        publisher.get(Publisher_.COUNTRY)))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookstore.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.List;
+
+// base class of every repository, implements KeysetRepository for the ones extending it
+public class KeysetJpaRepository<T, ID extends Serializable> extends SimpleJpaRepository<T, ID> implements KeysetRepository<T> {
+
+    private static final String ESTIMATE_COUNT_SQL = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass(?1)";
+
+    private final EntityManager entityManager;
+
+    public KeysetJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<T> findAll(Specification<T> specification, Sort sort, int limit) {
+        return findAll(specification, sort, 0, limit);
+    }
+
+    @Override
+    public List<T> findAll(Specification<T> specification, Sort sort, long offset, int limit) {
+        return getQuery(specification, sort)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long estimateCount() {
+        List<?> estimates = entityManager.createNativeQuery(ESTIMATE_COUNT_SQL)
+                .setParameter(1, getDomainClass().getAnnotation(Table.class).name())
+                .getResultList();
+
+        return estimates.isEmpty() ? 0 : ((Number) estimates.get(0)).longValue();
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookstore.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+
+@NoRepositoryBean
+public interface KeysetRepository<T> extends JpaSpecificationExecutor<T> {
+
+    /**
+     * First {@code limit} rows matching {@code specification} in {@code sort} order. Unlike a paged
+     * {@code findAll} it runs no count query, so with a specification seeking past the last row read
+     * the cost of a page doesn't depend on how deep it is.
+     */
+    List<T> findAll(Specification<T> specification, Sort sort, int limit);
+
+    // same as above after skipping offset rows
+    List<T> findAll(Specification<T> specification, Sort sort, long offset, int limit);
+
+    /**
+     * Rows of the whole table as of the planner's statistics (kept by ANALYZE and autovacuum), read
+     * from {@code pg_class} without touching the table; 0 or less if they haven't been collected yet.
+     */
+    long estimateCount();
+}
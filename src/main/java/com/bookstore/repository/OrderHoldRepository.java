@@ -0,0 +1,22 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.OrderHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderHoldRepository extends JpaRepository<OrderHold, Long>, OrderHoldRepositoryCustom {
+
+    @Query("select h.orderId from OrderHold h where h.orderId in :orderIds and h.expiresAt <= :now")
+    List<Long> findExpiredOrderIds(Collection<Long> orderIds, Instant now);
+
+    @Modifying
+    @Query("delete from OrderHold h where h.orderId in :orderIds")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
+}
@@ -0,0 +1,9 @@
+package com.bookstore.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderHoldRepositoryCustom {
+
+    List<Long> claimHolds(Collection<Long> orderIds);
+}
@@ -0,0 +1,38 @@
+package com.bookstore.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+public class OrderHoldRepositoryCustomImpl implements OrderHoldRepositoryCustom {
+
+    private static final String CLAIM_HOLDS_SQL = "DELETE FROM order_hold WHERE order_id = ANY(?) RETURNING order_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Deletes the holds of the given orders in one statement.
+     *
+     * @return ids of the orders whose hold was deleted by this call; a hold can be claimed only once,
+     * so only the caller that got an order id back may return its books to the warehouse
+     */
+    @Override
+    public List<Long> claimHolds(Collection<Long> orderIds) {
+        entityManager.flush();
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CLAIM_HOLDS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", orderIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+}
@@ -2,17 +2,42 @@ package com.bookstore.repository;
 
 import com.bookstore.entity.Order;
 import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.repository.projection.BookQuantityView;
+import com.bookstore.repository.projection.OrderStatusView;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, KeysetRepository<Order>, OrderRepositoryCustom {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :orderId")
+    Optional<Order> findForUpdateById(Long orderId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :newOrderStatus where o.id = :orderId and o.status in :allowedStatuses")
+    int updateOrderStatus(OrderStatus newOrderStatus, Long orderId, Collection<OrderStatus> allowedStatuses);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :newOrderStatus where o.id in :orderIds and o.status in :allowedStatuses")
+    int updateOrdersStatus(OrderStatus newOrderStatus, Collection<Long> orderIds, Collection<OrderStatus> allowedStatuses);
+
+    @Query("select o.id as id, o.status as status from Order o where o.id in :orderIds")
+    List<OrderStatusView> findStatusesByIdIn(Collection<Long> orderIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from SoldItem s where s.order.id = :orderId")
+    int deleteSoldItemsByOrderId(Long orderId);
 
-    @Modifying
-    @Query("update Order o set o.status = :newOrderStatus where o.id = :orderId")
-    void updateOrderStatus(OrderStatus newOrderStatus, Long orderId);
+    @Query("select s.bookIsbn as bookIsbn, sum(s.quantity) as quantity from SoldItem s where s.order.id in :orderIds group by s.bookIsbn")
+    List<BookQuantityView> sumQuantitiesByOrderIdIn(Collection<Long> orderIds);
 }
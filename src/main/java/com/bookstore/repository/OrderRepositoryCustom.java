@@ -0,0 +1,15 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.Order;
+import com.bookstore.repository.projection.OrderSearchView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    List<Long> findIdsAfter(Specification<Order> specification, Long afterId, int limit);
+
+    List<OrderSearchView> findSearchViews(Specification<Order> specification, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,105 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.Client;
+import com.bookstore.entity.Order;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.metamodels.Client_;
+import com.bookstore.entity.metamodels.Order_;
+import com.bookstore.repository.projection.OrderSearchView;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String SOLD_ITEMS_JPQL = "select s.order.id as orderId, s.id as id, s.bookIsbn as bookIsbn, " +
+            "s.price as price, s.quantity as quantity from SoldItem s where s.order.id in :orderIds order by s.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Ids of the next {@code limit} matching orders after {@code afterId} ({@code null} for the first ones),
+     * in id order, so a bulk update over a filter holds one chunk of ids at a time.
+     */
+    @Override
+    public List<Long> findIdsAfter(Specification<Order> specification, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> root = query.from(Order.class);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (afterId != null) {
+            predicate = cb.and(predicate, cb.greaterThan(root.get(Order_.ID), afterId));
+        }
+        query.select(root.<Long>get(Order_.ID))
+                .where(predicate)
+                .orderBy(cb.asc(root.get(Order_.ID)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Matching orders as {@link OrderSearchView}s: the order and client columns of one join, then the sold
+     * items of all of them in a second query, instead of the entity's eager client and sold item selects
+     * per order. The sold items are read without their order, which the response doesn't show.
+     */
+    @Override
+    public List<OrderSearchView> findSearchViews(Specification<Order> specification, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSearchView> query = cb.createQuery(OrderSearchView.class);
+        Root<Order> root = query.from(Order.class);
+        Join<Order, Client> client = root.join(Order_.CLIENT, JoinType.LEFT);
+
+        query.select(cb.construct(OrderSearchView.class,
+                        root.get(Order_.ID),
+                        root.get(Order_.STATUS),
+                        root.get(Order_.DATETIME),
+                        client.get(Client_.ID),
+                        client.get(Client_.NAME),
+                        client.get(Client_.SURNAME),
+                        client.get(Client_.PHONE_NUMBER),
+                        client.get(Client_.EMAIL),
+                        client.get(Client_.ADDRESS)))
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        List<OrderSearchView> orders = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        Map<Long, OrderSearchView> ordersById = orders.stream()
+                .collect(Collectors.toMap(OrderSearchView::getId, Function.identity()));
+        entityManager.createQuery(SOLD_ITEMS_JPQL, Tuple.class)
+                .setParameter("orderIds", ordersById.keySet())
+                .getResultList()
+                .forEach(soldItem -> ordersById.get(soldItem.get("orderId", Long.class)).getBooks().add(new SoldItem(
+                        soldItem.get("id", Long.class),
+                        soldItem.get("bookIsbn", String.class),
+                        null,
+                        soldItem.get("price", Double.class),
+                        soldItem.get("quantity", Integer.class))));
+
+        return orders;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookstore.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The JDBC statements of the custom repositories bypass the persistence context. Clearing it after
+ * each of them would also detach (and force a flush of) everything else the surrounding transaction
+ * holds, e.g. a whole group of orders saved by the order intake. Only the entities of the rows a
+ * statement changed are detached instead, so they are read again from the database.
+ * Callers must flush their own pending changes of those entities first, detaching discards them.
+ * Rows those statements insert take their ids from the entity's generator, like Hibernate's own inserts.
+ */
+class PersistenceContexts {
+
+    static <T> void detach(EntityManager entityManager, Class<T> entityClass, Predicate<T> changed) {
+        List<T> staleEntities = Arrays.stream(entityManager.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries())
+                .map(Map.Entry::getKey)
+                .filter(entityClass::isInstance)
+                .map(entityClass::cast)
+                .filter(changed)
+                .collect(Collectors.toList());
+        staleEntities.forEach(entityManager::detach);
+    }
+
+    // the next id of the entity's generator, for rows the JDBC statements insert themselves
+    static Long generateId(EntityManager entityManager, Class<?> entityClass) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Long) session.getFactory().getMetamodel().entityPersister(entityClass)
+                .getIdentifierGenerator().generate(session, null);
+    }
+}
@@ -2,10 +2,9 @@ package com.bookstore.repository;
 
 import com.bookstore.entity.Publisher;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PublisherRepository extends JpaRepository<Publisher, Long>, JpaSpecificationExecutor<Publisher> {
+public interface PublisherRepository extends JpaRepository<Publisher, Long>, KeysetRepository<Publisher> {
 
 }
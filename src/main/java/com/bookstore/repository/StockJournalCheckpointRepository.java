@@ -0,0 +1,9 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.StockJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockJournalCheckpointRepository extends JpaRepository<StockJournalCheckpoint, String> {
+}
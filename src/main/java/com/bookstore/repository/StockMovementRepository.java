@@ -0,0 +1,18 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.StockMovement;
+import com.bookstore.repository.projection.BookQuantityView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockMovementRepositoryCustom {
+
+    @Query("select m.bookIsbn as bookIsbn, sum(m.quantity) as quantity from StockMovement m "
+            + "where m.applied = false and m.bookIsbn in :bookIsbns group by m.bookIsbn")
+    List<BookQuantityView> sumPendingQuantitiesByBookIsbnIn(Collection<String> bookIsbns);
+}
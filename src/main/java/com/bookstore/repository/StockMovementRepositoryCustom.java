@@ -0,0 +1,20 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.enums.StockMovementType;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
+public interface StockMovementRepositoryCustom {
+
+    int compactMovements(int limit);
+
+    int compactMovements(Collection<String> bookIsbns, int limit);
+
+    void lockBooks(Collection<String> bookIsbns);
+
+    Map<String, Integer> findBalances(Collection<String> bookIsbns);
+
+    void appendPendingMovements(Map<String, Integer> quantitiesByIsbn, StockMovementType type, Instant createdAt);
+}
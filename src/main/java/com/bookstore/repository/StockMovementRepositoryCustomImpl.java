@@ -0,0 +1,135 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockMovement;
+import com.bookstore.entity.enums.StockMovementType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+public class StockMovementRepositoryCustomImpl implements StockMovementRepositoryCustom {
+
+    // only the movements folded into a warehouse row are marked applied, the others stay pending
+    private static final String COMPACT_MOVEMENTS_SQL =
+            "WITH pending AS ("
+                    + "SELECT m.id, m.book_isbn, m.quantity FROM stock_movement m WHERE NOT m.applied %s "
+                    + "AND EXISTS (SELECT 1 FROM warehouse w WHERE w.book_isbn = m.book_isbn) "
+                    + "ORDER BY m.id LIMIT ? FOR UPDATE OF m SKIP LOCKED), "
+                    + "totals AS (SELECT book_isbn, sum(quantity) AS quantity FROM pending GROUP BY book_isbn), "
+                    + "locked AS (SELECT w.id FROM warehouse w JOIN totals t ON t.book_isbn = w.book_isbn "
+                    + "ORDER BY w.book_isbn FOR UPDATE OF w), "
+                    + "updated AS (UPDATE warehouse w SET quantity = w.quantity + t.quantity, version = w.version + 1 FROM totals t "
+                    + "WHERE w.book_isbn = t.book_isbn AND w.id IN (SELECT id FROM locked) RETURNING w.book_isbn), "
+                    + "moved AS (UPDATE stock_movement SET applied = TRUE WHERE id IN ("
+                    + "SELECT p.id FROM pending p JOIN updated u ON u.book_isbn = p.book_isbn) RETURNING id) "
+                    + "SELECT count(*) FROM moved";
+    // transaction-level advisory locks, one per ISBN in their own key space; no warehouse row is locked
+    private static final int BOOK_LOCK_SPACE = 0x4c454447;
+    private static final String LOCK_BOOK_SQL = "SELECT pg_advisory_xact_lock(?, hashtext(?))";
+    private static final String FIND_BALANCES_SQL =
+            "SELECT w.book_isbn, w.quantity "
+                    + "+ coalesce((SELECT sum(m.quantity) FROM stock_movement m WHERE m.book_isbn = w.book_isbn AND NOT m.applied), 0) "
+                    + "FROM warehouse w WHERE w.book_isbn = ANY(?)";
+    private static final String APPEND_PENDING_MOVEMENT_SQL =
+            "INSERT INTO stock_movement (id, book_isbn, quantity, type, applied, created_at) VALUES (?, ?, ?, ?, FALSE, ?)";
+    private static final String ALL_BOOKS = "";
+    private static final String SELECTED_BOOKS = "AND m.book_isbn = ANY(?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Folds up to {@code limit} pending movements into the warehouse balances with one statement,
+     * so readers see either the movements or the updated balance, never both or neither.
+     * Movements locked by a concurrent compaction are skipped, as are those of an ISBN without a
+     * warehouse row, which stay pending until it is added.
+     *
+     * @return number of compacted movements
+     */
+    @Override
+    public int compactMovements(int limit) {
+        entityManager.flush();
+        Long compacted = jdbcTemplate.queryForObject(String.format(COMPACT_MOVEMENTS_SQL, ALL_BOOKS), Long.class, limit);
+        PersistenceContexts.detach(entityManager, StockItem.class, stockItem -> true);
+        PersistenceContexts.detach(entityManager, StockMovement.class, stockMovement -> true);
+
+        return Optional.ofNullable(compacted).orElse(0L).intValue();
+    }
+
+    @Override
+    public int compactMovements(Collection<String> bookIsbns, int limit) {
+        // only reached when a withdrawal fell short: books returned earlier in the transaction must be folded in too
+        entityManager.flush();
+        Long compacted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(String.format(COMPACT_MOVEMENTS_SQL, SELECTED_BOOKS));
+            ps.setArray(1, connection.createArrayOf("varchar", bookIsbns.toArray()));
+            ps.setInt(2, limit);
+            return ps;
+        }, rs -> rs.next() ? rs.getLong(1) : 0L);
+        PersistenceContexts.detach(entityManager, StockItem.class, stockItem -> bookIsbns.contains(stockItem.getBookIsbn()));
+        PersistenceContexts.detach(entityManager, StockMovement.class, stockMovement -> bookIsbns.contains(stockMovement.getBookIsbn()));
+
+        return Optional.ofNullable(compacted).orElse(0L).intValue();
+    }
+
+    /**
+     * Serializes the ledger writers of the given ISBNs until the transaction ends. Locks are taken in
+     * ISBN order, so two transactions sharing books can't deadlock on them.
+     */
+    @Override
+    public void lockBooks(Collection<String> bookIsbns) {
+        new TreeSet<>(bookIsbns).forEach(bookIsbn -> jdbcTemplate.queryForList(LOCK_BOOK_SQL, BOOK_LOCK_SPACE, bookIsbn));
+    }
+
+    // warehouse quantity plus pending movements, read with one statement so a compaction is seen either whole or not at all
+    @Override
+    public Map<String, Integer> findBalances(Collection<String> bookIsbns) {
+        Map<String, Integer> balances = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_BALANCES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", bookIsbns.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> balances.put(rs.getString(1), rs.getInt(2)));
+
+        return balances;
+    }
+
+    /**
+     * Inserts the movements right away as one JDBC batch, so the next balance read of the same
+     * transaction already counts them without flushing everything else the transaction holds.
+     */
+    @Override
+    public void appendPendingMovements(Map<String, Integer> quantitiesByIsbn, StockMovementType type, Instant createdAt) {
+        List<Map.Entry<String, Integer>> movements = quantitiesByIsbn.entrySet().stream()
+                .filter(movement -> movement.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey())
+                .collect(Collectors.toList());
+        if (movements.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(APPEND_PENDING_MOVEMENT_SQL, movements, movements.size(), (ps, movement) -> {
+            ps.setLong(1, PersistenceContexts.generateId(entityManager, StockMovement.class));
+            ps.setString(2, movement.getKey());
+            ps.setInt(3, movement.getValue());
+            ps.setString(4, type.name());
+            ps.setTimestamp(5, Timestamp.from(createdAt));
+        });
+    }
+}
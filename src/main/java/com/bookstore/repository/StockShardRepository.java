@@ -0,0 +1,23 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.StockShard;
+import com.bookstore.repository.projection.BookQuantityView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockShardRepository extends JpaRepository<StockShard, Long>, StockShardRepositoryCustom {
+
+    @Query("select s.bookIsbn as bookIsbn, sum(s.quantity) as quantity from StockShard s where s.bookIsbn in :bookIsbns group by s.bookIsbn")
+    List<BookQuantityView> sumQuantitiesByBookIsbnIn(Collection<String> bookIsbns);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockShard s where s.bookIsbn = :bookIsbn order by s.id")
+    List<StockShard> findForUpdateByBookIsbn(String bookIsbn);
+}
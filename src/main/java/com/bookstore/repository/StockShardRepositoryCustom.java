@@ -0,0 +1,9 @@
+package com.bookstore.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StockShardRepositoryCustom {
+
+    List<String> withdrawQuantities(Map<String, Integer> quantitiesByIsbn);
+}
@@ -0,0 +1,83 @@
+package com.bookstore.repository;
+
+import com.bookstore.entity.StockShard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class StockShardRepositoryCustomImpl implements StockShardRepositoryCustom {
+
+    private static final String WITHDRAW_FROM_RANDOM_SHARD_SQL =
+            "UPDATE warehouse_shard SET quantity = quantity - ? WHERE id = ("
+                    + "SELECT id FROM warehouse_shard WHERE book_isbn = ? AND quantity >= ? "
+                    + "ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED)";
+    private static final String LOCK_SHARDS_SQL =
+            "SELECT id, quantity FROM warehouse_shard WHERE book_isbn = ? ORDER BY id FOR UPDATE";
+    private static final String WITHDRAW_FROM_SHARD_SQL =
+            "UPDATE warehouse_shard SET quantity = quantity - ? WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Withdraws every quantity from one random unlocked shard that can cover it, so concurrent
+     * orders of a hot ISBN mostly lock different rows. If there is no such shard (all busy, or
+     * the stock is spread over several shards) all shards of the ISBN are locked and drained in
+     * id order. A negative quantity returns books to a shard, zero quantities are skipped.
+     *
+     * @return ISBNs whose shards didn't have enough stock in total
+     */
+    @Override
+    public List<String> withdrawQuantities(Map<String, Integer> quantitiesByIsbn) {
+        List<String> shortages = new ArrayList<>();
+        new TreeMap<>(quantitiesByIsbn).forEach((bookIsbn, quantity) -> {
+            if (quantity != 0 && !withdrawFromRandomShard(bookIsbn, quantity) && !withdrawFromAllShards(bookIsbn, quantity)) {
+                shortages.add(bookIsbn);
+            }
+        });
+        PersistenceContexts.detach(entityManager, StockShard.class, stockShard -> quantitiesByIsbn.containsKey(stockShard.getBookIsbn()));
+
+        return shortages;
+    }
+
+    private boolean withdrawFromRandomShard(String bookIsbn, int quantity) {
+        return jdbcTemplate.update(WITHDRAW_FROM_RANDOM_SHARD_SQL, quantity, bookIsbn, quantity) == 1;
+    }
+
+    private boolean withdrawFromAllShards(String bookIsbn, int quantity) {
+        List<StockShard> shards = jdbcTemplate.query(LOCK_SHARDS_SQL,
+                (rs, rowNum) -> new StockShard(rs.getLong("id"), bookIsbn, rs.getInt("quantity")), bookIsbn);
+        int totalQuantity = shards.stream().mapToInt(StockShard::getQuantity).sum();
+
+        if (shards.isEmpty() || totalQuantity < quantity) {
+            return false;
+        }
+        if (quantity < 0) {
+            jdbcTemplate.update(WITHDRAW_FROM_SHARD_SQL, quantity, shards.get(0).getId());
+            return true;
+        }
+
+        int remaining = quantity;
+        for (StockShard shard : shards) {
+            int withdrawn = Math.min(remaining, shard.getQuantity());
+            if (withdrawn > 0) {
+                jdbcTemplate.update(WITHDRAW_FROM_SHARD_SQL, withdrawn, shard.getId());
+                remaining -= withdrawn;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+
+        return true;
+    }
+}
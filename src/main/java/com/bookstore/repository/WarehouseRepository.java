@@ -1,14 +1,37 @@
 package com.bookstore.repository;
 
 import com.bookstore.entity.StockItem;
+import com.bookstore.repository.projection.BookPriceView;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WarehouseRepository extends JpaRepository<StockItem, Long>, JpaSpecificationExecutor<StockItem> {
+public interface WarehouseRepository extends JpaRepository<StockItem, Long>, KeysetRepository<StockItem>, WarehouseRepositoryCustom {
 
     Optional<StockItem> findByBookIsbn(String isbn);
+
+    List<StockItem> findByBookIsbnIn(Collection<String> isbns);
+
+    @Query("select s.bookIsbn as bookIsbn, s.price as price from StockItem s where s.bookIsbn in :bookIsbns")
+    List<BookPriceView> findPricesByBookIsbnIn(Collection<String> bookIsbns);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockItem s where s.bookIsbn = :bookIsbn")
+    Optional<StockItem> findForUpdateByBookIsbn(String bookIsbn);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockItem s set s.quantity = s.quantity - :quantity, s.version = s.version + 1 where s.bookIsbn = :bookIsbn and s.quantity >= :quantity")
+    int withdrawQuantity(String bookIsbn, int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockItem s set s.price = :price, s.version = s.version + 1 where s.bookIsbn = :bookIsbn and s.version = :version")
+    int updatePrice(String bookIsbn, double price, Long version);
 }
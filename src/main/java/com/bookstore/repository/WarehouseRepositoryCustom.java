@@ -0,0 +1,24 @@
+package com.bookstore.repository;
+
+import com.bookstore.controller.request.StockRepriceRequest;
+import com.bookstore.entity.StockItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface WarehouseRepositoryCustom {
+
+    List<String> withdrawQuantities(Map<String, Integer> quantitiesByIsbn);
+
+    void subtractQuantities(Map<String, Integer> quantitiesByIsbn);
+
+    int upsertStockItems(List<StockItem> stockItems);
+
+    void streamStockBalances(int fetchSize, Consumer<StockItem> consumer);
+
+    List<StockItem> findStockBalances(Collection<String> bookIsbns);
+
+    List<String> repriceStockItems(StockRepriceRequest request, String afterIsbn, int limit);
+}
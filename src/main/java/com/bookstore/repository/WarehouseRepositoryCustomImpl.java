@@ -0,0 +1,254 @@
+package com.bookstore.repository;
+
+import com.bookstore.controller.request.StockRepriceRequest;
+import com.bookstore.entity.StockItem;
+import com.bookstore.entity.enums.PriceOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class WarehouseRepositoryCustomImpl implements WarehouseRepositoryCustom {
+
+    private static final String WITHDRAW_QUANTITY_SQL =
+            "UPDATE warehouse SET quantity = quantity - ?, version = version + 1 WHERE book_isbn = ? AND quantity >= ?";
+    private static final String SUBTRACT_QUANTITY_SQL =
+            "UPDATE warehouse SET quantity = quantity - ?, version = version + 1 WHERE book_isbn = ?";
+    private static final String FIND_STOCK_ITEM_IDS_SQL =
+            "SELECT book_isbn, id FROM warehouse WHERE book_isbn = ANY(?)";
+    private static final String UPSERT_STOCK_ITEMS_SQL =
+            "WITH upserted AS (INSERT INTO warehouse (id, book_isbn, price, quantity, version) "
+                    + "SELECT i.id, i.book_isbn, i.price, i.quantity, 0 "
+                    + "FROM unnest(?::int8[], ?::varchar[], ?::float8[], ?::int[]) AS i(id, book_isbn, price, quantity) "
+                    + "ORDER BY i.book_isbn "
+                    + "ON CONFLICT (book_isbn) DO UPDATE SET price = excluded.price, quantity = excluded.quantity, "
+                    + "version = warehouse.version + 1 "
+                    + "RETURNING xmax = 0 AS inserted) "
+                    + "SELECT count(*) FILTER (WHERE inserted) FROM upserted";
+    private static final String STOCK_BALANCES_SQL =
+            "SELECT w.id, w.book_isbn, w.price, w.quantity + coalesce(s.quantity, 0) + coalesce(m.quantity, 0) AS quantity "
+                    + "FROM warehouse w "
+                    + "LEFT JOIN (SELECT book_isbn, sum(quantity) AS quantity FROM warehouse_shard GROUP BY book_isbn) s "
+                    + "ON s.book_isbn = w.book_isbn "
+                    + "LEFT JOIN (SELECT book_isbn, sum(quantity) AS quantity FROM stock_movement WHERE NOT applied GROUP BY book_isbn) m "
+                    + "ON m.book_isbn = w.book_isbn "
+                    + "ORDER BY w.id";
+    private static final String FIND_STOCK_BALANCES_SQL =
+            "SELECT w.id, w.book_isbn, w.price, w.quantity "
+                    + "+ coalesce((SELECT sum(s.quantity) FROM warehouse_shard s WHERE s.book_isbn = w.book_isbn), 0) "
+                    + "+ coalesce((SELECT sum(m.quantity) FROM stock_movement m WHERE m.book_isbn = w.book_isbn AND NOT m.applied), 0) AS quantity "
+                    + "FROM warehouse w WHERE w.book_isbn = ANY(?)";
+    private static final String REPRICE_STOCK_ITEMS_SQL =
+            "WITH chunk AS (SELECT w.id FROM warehouse w WHERE w.book_isbn > ?%s "
+                    + "ORDER BY w.book_isbn LIMIT ? FOR UPDATE OF w), "
+                    + "repriced AS (UPDATE warehouse w SET price = greatest(round((%s)::numeric, 2), 1), version = w.version + 1 "
+                    + "FROM chunk c WHERE w.id = c.id RETURNING w.book_isbn) "
+                    + "SELECT book_isbn FROM repriced ORDER BY book_isbn";
+    private static final Map<PriceOperation, String> PRICE_EXPRESSIONS = new EnumMap<>(Map.of(
+            PriceOperation.SET, "?",
+            PriceOperation.MULTIPLY, "w.price * ?",
+            PriceOperation.ADD, "w.price + ?"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs one conditional decrement per ISBN as a single JDBC batch. A negative quantity returns
+     * books to the warehouse (the condition is always true then), zero quantities are skipped.
+     * Rows are updated in ISBN order, so two orders sharing books lock them in the same order.
+     * Nothing is flushed, the orders of a group are written together when its transaction flushes.
+     *
+     * @return ISBNs whose row didn't match, i.e. there wasn't enough stock at update time
+     */
+    @Override
+    public List<String> withdrawQuantities(Map<String, Integer> quantitiesByIsbn) {
+        List<Map.Entry<String, Integer>> withdrawals = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> withdrawal.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey())
+                .collect(Collectors.toList());
+        if (withdrawals.isEmpty()) {
+            return List.of();
+        }
+
+        int[] updatedRows = jdbcTemplate.batchUpdate(WITHDRAW_QUANTITY_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<String, Integer> withdrawal = withdrawals.get(i);
+                ps.setInt(1, withdrawal.getValue());
+                ps.setString(2, withdrawal.getKey());
+                ps.setInt(3, withdrawal.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return withdrawals.size();
+            }
+        });
+        PersistenceContexts.detach(entityManager, StockItem.class, stockItem -> quantitiesByIsbn.containsKey(stockItem.getBookIsbn()));
+
+        return IntStream.range(0, withdrawals.size())
+                .filter(i -> updatedRows[i] == 0)
+                .mapToObj(i -> withdrawals.get(i).getKey())
+                .collect(Collectors.toList());
+    }
+
+    // unconditional: the caller has already checked the stock (e.g. in the hot stock counters)
+    @Override
+    public void subtractQuantities(Map<String, Integer> quantitiesByIsbn) {
+        List<Map.Entry<String, Integer>> subtractions = quantitiesByIsbn.entrySet().stream()
+                .filter(subtraction -> subtraction.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey())
+                .collect(Collectors.toList());
+        if (subtractions.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(SUBTRACT_QUANTITY_SQL, subtractions, subtractions.size(), (ps, subtraction) -> {
+            ps.setInt(1, subtraction.getValue());
+            ps.setString(2, subtraction.getKey());
+        });
+    }
+
+    /**
+     * Merges the stock items into the warehouse with one INSERT ... ON CONFLICT (book_isbn) statement:
+     * rows of known ISBNs get the new price and quantity, the rest are inserted. ISBNs must be unique
+     * within the call. Rows are written in ISBN order, like every other multi-row warehouse write.
+     * Known ISBNs keep their id, new ones take ids from StockItem's pooled generator, so two imports
+     * inserting the same ISBN end up with one row and a single wasted id.
+     *
+     * @return number of inserted rows, all others were updated
+     */
+    @Override
+    public int upsertStockItems(List<StockItem> stockItems) {
+        if (stockItems.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_STOCK_ITEM_IDS_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", stockItems.stream().map(StockItem::getBookIsbn).toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> ids.put(rs.getString(1), rs.getLong(2)));
+        stockItems.forEach(stockItem -> ids.computeIfAbsent(stockItem.getBookIsbn(), bookIsbn -> PersistenceContexts.generateId(entityManager, StockItem.class)));
+
+        Long inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_STOCK_ITEMS_SQL);
+            ps.setArray(1, connection.createArrayOf("int8", stockItems.stream().map(stockItem -> ids.get(stockItem.getBookIsbn())).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", stockItems.stream().map(StockItem::getBookIsbn).toArray()));
+            ps.setArray(3, connection.createArrayOf("float8", stockItems.stream().map(StockItem::getPrice).toArray()));
+            ps.setArray(4, connection.createArrayOf("int4", stockItems.stream().map(StockItem::getQuantity).toArray()));
+            return ps;
+        }, rs -> rs.next() ? rs.getLong(1) : 0L);
+        PersistenceContexts.detach(entityManager, StockItem.class, stockItem -> ids.containsKey(stockItem.getBookIsbn()));
+
+        return Optional.ofNullable(inserted).orElse(0L).intValue();
+    }
+
+    /**
+     * Reads every warehouse row with its balance (row, shards and pending ledger movements) through a
+     * server-side cursor: PostgreSQL only fetches {@code fetchSize} rows at a time inside a transaction.
+     * The items passed to the consumer are detached and only valid for the call.
+     */
+    @Override
+    public void streamStockBalances(int fetchSize, Consumer<StockItem> consumer) {
+        entityManager.flush();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STOCK_BALANCES_SQL);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new StockItem(rs.getLong(1), rs.getString(2), rs.getDouble(3), rs.getInt(4))));
+    }
+
+    /**
+     * Balances of a few ISBNs (e.g. a cart) with one statement: the ISBNs are bound as a single array
+     * and shards and pending movements are summed per row through their ISBN indexes.
+     * Unknown ISBNs are left out. The returned items are detached.
+     */
+    @Override
+    public List<StockItem> findStockBalances(Collection<String> bookIsbns) {
+        if (bookIsbns.isEmpty()) {
+            return List.of();
+        }
+
+        entityManager.flush();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_STOCK_BALANCES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", bookIsbns.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new StockItem(rs.getLong(1), rs.getString(2), rs.getDouble(3), rs.getInt(4)));
+    }
+
+    /**
+     * Reprices the next {@code limit} matching rows after {@code afterIsbn} with one statement. Rows are
+     * locked in ISBN order like every other multi-row warehouse write, and the caller pages on the
+     * last returned ISBN, so each chunk is an index range scan. New prices are rounded to cents and
+     * never drop below 1.
+     *
+     * @return repriced ISBNs in ascending order
+     */
+    @Override
+    public List<String> repriceStockItems(StockRepriceRequest request, String afterIsbn, int limit) {
+        StringBuilder filters = new StringBuilder();
+        List<Object> filterValues = new ArrayList<>();
+        if (request.getBookIsbns() != null && !request.getBookIsbns().isEmpty()) {
+            filters.append(" AND w.book_isbn = ANY(?)");
+            filterValues.add(request.getBookIsbns());
+        }
+        if (request.getPublisherId() != null) {
+            filters.append(" AND EXISTS (SELECT 1 FROM book b WHERE b.isbn = w.book_isbn AND b.publisher_id = ?)");
+            filterValues.add(request.getPublisherId());
+        }
+        if (request.getGenre() != null) {
+            filters.append(" AND EXISTS (SELECT 1 FROM book b WHERE b.isbn = w.book_isbn AND b.genre = ?)");
+            filterValues.add(request.getGenre().name());
+        }
+        if (request.getPriceFrom() != null) {
+            filters.append(" AND w.price >= ?");
+            filterValues.add(request.getPriceFrom());
+        }
+        if (request.getPriceTo() != null) {
+            filters.append(" AND w.price <= ?");
+            filterValues.add(request.getPriceTo());
+        }
+        String sql = String.format(REPRICE_STOCK_ITEMS_SQL, filters, PRICE_EXPRESSIONS.get(request.getOperation()));
+
+        List<String> repriced = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            int index = 1;
+            ps.setString(index++, afterIsbn);
+            for (Object value : filterValues) {
+                ps.setObject(index++, value instanceof Collection
+                        ? connection.createArrayOf("varchar", ((Collection<?>) value).toArray())
+                        : value);
+            }
+            ps.setInt(index++, limit);
+            ps.setDouble(index, request.getValue());
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        Set<String> repricedIsbns = new HashSet<>(repriced);
+        PersistenceContexts.detach(entityManager, StockItem.class, stockItem -> repricedIsbns.contains(stockItem.getBookIsbn()));
+
+        return repriced;
+    }
+}
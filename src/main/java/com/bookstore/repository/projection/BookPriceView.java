@@ -0,0 +1,8 @@
+package com.bookstore.repository.projection;
+
+public interface BookPriceView {
+
+    String getBookIsbn();
+
+    Double getPrice();
+}
@@ -0,0 +1,8 @@
+package com.bookstore.repository.projection;
+
+public interface BookQuantityView {
+
+    String getBookIsbn();
+
+    Long getQuantity();
+}
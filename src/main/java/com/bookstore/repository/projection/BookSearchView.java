@@ -0,0 +1,35 @@
+package com.bookstore.repository.projection;
+
+import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.entity.Publisher;
+import com.bookstore.entity.enums.BookGenre;
+import lombok.Data;
+
+/**
+ * Columns of a book the search response shows, selected with its publisher's in one row. The authors
+ * aren't read: {@code BookDTO.author} is a back reference that is never serialized.
+ */
+@Data
+public class BookSearchView {
+
+    private final String isbn;
+    private final String title;
+    private final BookGenre genre;
+    private final Publisher publisher;
+
+    public BookSearchView(String isbn, String title, BookGenre genre, Long publisherId, String publisherTitle,
+                          String publisherCountry) {
+        this.isbn = isbn;
+        this.title = title;
+        this.genre = genre;
+        this.publisher = publisherId != null ? new Publisher(publisherId, publisherTitle, publisherCountry) : null;
+    }
+
+    public BookDTO toDTO() {
+        return BookDTO.builder()
+                .isbn(isbn)
+                .title(title)
+                .publisher(publisher)
+                .genre(genre).build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.bookstore.repository.projection;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words of a book the title index is built from: its title and the names and surnames of its
+ * authors, without the entity's eager publisher and author selects.
+ */
+@Data
+public class BookTitleView {
+
+    private final String isbn;
+    private final String title;
+    private final List<String> authorNames = new ArrayList<>();
+}
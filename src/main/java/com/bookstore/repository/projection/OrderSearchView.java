@@ -0,0 +1,39 @@
+package com.bookstore.repository.projection;
+
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.entity.Client;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.enums.OrderStatus;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columns of an order the search response shows, selected with its client's in one row; the sold
+ * items of a page of orders are added by one more query instead of one per order.
+ */
+@Data
+public class OrderSearchView {
+
+    private final Long id;
+    private final OrderStatus status;
+    private final Instant datetime;
+    private final Client client;
+    private final List<SoldItem> books = new ArrayList<>();
+
+    public OrderSearchView(Long id, OrderStatus status, Instant datetime, Long clientId, String clientName,
+                           String clientSurname, String clientPhoneNumber, String clientEmail, String clientAddress) {
+        this.id = id;
+        this.status = status;
+        this.datetime = datetime;
+        this.client = clientId != null
+                ? new Client(clientId, clientName, clientSurname, clientPhoneNumber, clientEmail, clientAddress)
+                : null;
+    }
+
+    public OrderDTO toDTO() {
+        return OrderDTO.builder().id(id).books(books).client(client).datetime(datetime).status(status).build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.bookstore.repository.projection;
+
+import com.bookstore.entity.enums.OrderStatus;
+
+public interface OrderStatusView {
+
+    Long getId();
+
+    OrderStatus getStatus();
+}
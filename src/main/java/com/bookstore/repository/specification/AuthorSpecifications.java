@@ -1,12 +1,19 @@
 package com.bookstore.repository.specification;
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.Author;
 import com.bookstore.entity.metamodels.Author_;
 import com.bookstore.controller.request.AuthorSearchRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 public class AuthorSpecifications {
 
+    public static final Keyset<Author> KEYSET = new Keyset<>(Sort.by(Author_.ID), cursor -> {
+        Long id = cursor.getLong(0);
+        return (root, query, cb) -> cb.greaterThan(root.get(Author_.ID), id);
+    }, author -> PageCursor.encode(author.getId()));
+
     private static Specification<Author> filterById(Long id) {
         return (root, query, cb) -> cb.equal(root.get(Author_.ID), id);
     }
@@ -1,13 +1,27 @@
 package com.bookstore.repository.specification;
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.enums.BookGenre;
 import com.bookstore.entity.metamodels.Book_;
 import com.bookstore.controller.request.BookSearchRequest;
+import com.bookstore.repository.projection.BookSearchView;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Collection;
+import java.util.function.Function;
+
 public class BookSpecifications {
 
+    public static final Keyset<Book> KEYSET = new Keyset<>(Sort.by(Book_.ISBN), cursor -> {
+        String isbn = cursor.getString(0);
+        return (root, query, cb) -> cb.greaterThan(root.get(Book_.ISBN), isbn);
+    }, book -> PageCursor.encode(book.getIsbn()));
+
+    // the KEYSET cursor of a search view
+    public static final Function<BookSearchView, String> VIEW_CURSOR = view -> PageCursor.encode(view.getIsbn());
+
     private static Specification<Book> filterByIsbn(String isbn) {
         return (root, query, cb) -> cb.equal(root.get(Book_.ISBN), isbn);
     }
@@ -16,6 +30,10 @@ public class BookSpecifications {
         return (root, query, cb) -> cb.like(root.get(Book_.TITLE), "%" + title + "%");
     }
 
+    private static Specification<Book> filterByIsbnIn(Collection<String> isbns) {
+        return (root, query, cb) -> root.get(Book_.ISBN).in(isbns);
+    }
+
     private static Specification<Book> filterByAuthor(Long authorId) {
         return (root, query, cb) -> cb.equal(root.join(Book_.AUTHOR), authorId);
     }
@@ -29,13 +47,22 @@ public class BookSpecifications {
     }
 
     public static Specification<Book> generateQuery(BookSearchRequest request) {
+        return generateQuery(request, request.getTitle() != null ? filterByTitle(request.getTitle()) : null);
+    }
+
+    // the title already resolved (e.g. by the title index) to the given ISBNs
+    public static Specification<Book> generateQuery(BookSearchRequest request, Collection<String> titleIsbns) {
+        return generateQuery(request, filterByIsbnIn(titleIsbns));
+    }
+
+    private static Specification<Book> generateQuery(BookSearchRequest request, Specification<Book> titleFilter) {
         Specification<Book> query = GenericSpecifications.alwaysTrue();
 
         if (request.getIsbn() != null) {
             query = query.and(filterByIsbn(request.getIsbn()));
         }
-        if (request.getTitle() != null) {
-            query = query.and(filterByTitle(request.getTitle()));
+        if (titleFilter != null) {
+            query = query.and(titleFilter);
         }
         if (request.getGenre() != null) {
             query = query.and(filterByGenre(request.getGenre()));
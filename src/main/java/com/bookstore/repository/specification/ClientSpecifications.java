@@ -1,26 +1,41 @@
 package com.bookstore.repository.specification;
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.Client;
 import com.bookstore.entity.metamodels.Client_;
 import com.bookstore.controller.request.ClientSearchRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 public class ClientSpecifications {
 
+    private static final char LIKE_ESCAPE = '\\';
+
+    public static final Keyset<Client> KEYSET = new Keyset<>(Sort.by(Client_.ID), cursor -> {
+        Long id = cursor.getLong(0);
+        return (root, query, cb) -> cb.greaterThan(root.get(Client_.ID), id);
+    }, client -> PageCursor.encode(client.getId()));
+
     private static Specification<Client> filterById(Long id) {
         return (root, query, cb) -> cb.equal(root.get(Client_.ID), id);
     }
 
+    // substring filters are served by the trigram indexes (database/client-trigram.sql)
     private static Specification<Client> filterBySurname(String surname) {
-        return (root, query, cb) -> cb.like(root.get(Client_.SURNAME), "%" + surname + "%");
+        return (root, query, cb) -> cb.like(root.get(Client_.SURNAME), containing(surname), LIKE_ESCAPE);
     }
 
     private static Specification<Client> filterByPhoneNumber(String phoneNumber) {
-        return (root, query, cb) -> cb.like(root.get(Client_.PHONE_NUMBER), "%" + phoneNumber + "%");
+        return (root, query, cb) -> cb.like(root.get(Client_.PHONE_NUMBER), containing(phoneNumber), LIKE_ESCAPE);
     }
 
     private static Specification<Client> filterByEmail(String email) {
-        return (root, query, cb) -> cb.like(root.get(Client_.EMAIL), "%" + email + "%");
+        return (root, query, cb) -> cb.like(root.get(Client_.EMAIL), containing(email), LIKE_ESCAPE);
+    }
+
+    // '_' is common in emails: searched literally, it doesn't match any character or split the trigrams
+    private static String containing(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
     }
 
     public static Specification<Client> generateQuery(ClientSearchRequest request) {
@@ -0,0 +1,107 @@
+package com.bookstore.repository.specification;
+
+import com.bookstore.common.CursorPage;
+import com.bookstore.common.CursorSlice;
+import com.bookstore.common.PageCursor;
+import com.bookstore.common.Pagination;
+import com.bookstore.controller.request.SearchRequest;
+import com.bookstore.entity.enums.CountMode;
+import com.bookstore.repository.KeysetRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Unique sort key of a searchable entity. A search with a {@code cursor} seeks past the row the cursor
+ * was taken from ({@code WHERE key > :last ORDER BY key LIMIT n}), so deep pages cost as much as the
+ * first one; without a cursor the {@code page} is read with an offset in the same order, so both
+ * modes can be mixed, e.g. offsets for the first pages and the cursor of the last one after that.
+ * <p>
+ * The total follows the request's count mode: EXACT runs the count query as a paged {@code findAll}
+ * does, NONE runs none and returns a slice, the others take the count from {@code countQuery}.
+ */
+public class Keyset<T> {
+
+    private final Sort sort;
+    private final Function<PageCursor, Specification<T>> after;
+    private final Function<T, String> cursorOf;
+
+    public Keyset(Sort sort, Function<PageCursor, Specification<T>> after, Function<T, String> cursorOf) {
+        this.sort = sort;
+        this.after = after;
+        this.cursorOf = cursorOf;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public Specification<T> after(String cursor) {
+        return after.apply(PageCursor.decode(cursor));
+    }
+
+    public Slice<T> findPage(KeysetRepository<T> repository, Specification<T> query, SearchRequest searchRequest,
+                             LongSupplier countQuery) {
+        CountMode countMode = Optional.ofNullable(searchRequest.getCount()).orElse(CountMode.EXACT);
+        if (searchRequest.getCursor() == null && countMode == CountMode.EXACT) {
+            Page<T> rows = repository.findAll(query, getPageRequest(searchRequest));
+            String nextCursor = rows.hasNext() ? cursorOf.apply(rows.getContent().get(rows.getNumberOfElements() - 1)) : null;
+            return new CursorPage<>(rows.getContent(), rows.getPageable(), rows.getTotalElements(), nextCursor);
+        }
+
+        return findPage(repository::findAll, cursorOf, query, searchRequest, countQuery);
+    }
+
+    /**
+     * Same page read through {@code rows}, e.g. a projection selecting only the columns the response
+     * needs; {@code cursorOf} takes the cursor from a row the way this keyset takes it from an entity.
+     */
+    public <R> Slice<R> findPage(Rows<T, R> rows, Function<R, String> cursorOf, Specification<T> query,
+                                 SearchRequest searchRequest, LongSupplier countQuery) {
+        PageRequest page = getPageRequest(searchRequest);
+        // one row more than the page tells whether there is a next one
+        List<R> found = searchRequest.getCursor() != null
+                ? rows.find(query.and(after(searchRequest.getCursor())), sort, 0, page.getPageSize() + 1)
+                : rows.find(query, sort, page.getOffset(), page.getPageSize() + 1);
+        CursorSlice<R> slice = toSlice(found, page, cursorOf);
+        if (searchRequest.getCount() == CountMode.NONE) {
+            return slice;
+        }
+
+        // a first page that isn't full holds the whole result
+        boolean wholeResult = searchRequest.getCursor() == null && page.getOffset() == 0 && !slice.hasNext();
+        long total = wholeResult ? slice.getNumberOfElements() : countQuery.getAsLong();
+        return new CursorPage<>(slice.getContent(), page, total, slice.getNextCursor());
+    }
+
+    // rows read with one more than the page size, the extra one is dropped
+    public <R> CursorSlice<R> toSlice(List<R> rows, Pageable page, Function<R, String> cursorOf) {
+        boolean hasNext = rows.size() > page.getPageSize();
+        List<R> content = hasNext ? rows.subList(0, page.getPageSize()) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+
+        return new CursorSlice<>(content, page, hasNext, nextCursor);
+    }
+
+    // a cursor replaces the offset, the page is the first one after it
+    public PageRequest getPageRequest(SearchRequest searchRequest) {
+        int page = searchRequest.getCursor() != null ? Pagination.DEFAULT_PAGE
+                : Optional.ofNullable(searchRequest.getPage()).orElse(Pagination.DEFAULT_PAGE);
+        return PageRequest.of(page, Optional.ofNullable(searchRequest.getLimit()).orElse(Pagination.DEFAULT_LIMIT), sort);
+    }
+
+    // first limit rows of the entities matching the specification after skipping offset ones, in sort order
+    @FunctionalInterface
+    public interface Rows<T, R> {
+
+        List<R> find(Specification<T> specification, Sort sort, long offset, int limit);
+    }
+}
@@ -1,16 +1,33 @@
 package com.bookstore.repository.specification;
 
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.Order;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.entity.metamodels.Order_;
 import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.repository.projection.OrderSearchView;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.Instant;
+import java.util.function.Function;
 
 public class OrderSpecifications {
 
+    // datetime >= :last narrows the range scan of orders_datetime_id_idx, the rest breaks ties by id
+    public static final Keyset<Order> KEYSET = new Keyset<>(Sort.by(Order_.DATETIME, Order_.ID), cursor -> {
+        Instant datetime = cursor.getInstant(0);
+        Long id = cursor.getLong(1);
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get(Order_.DATETIME), datetime),
+                cb.or(cb.greaterThan(root.get(Order_.DATETIME), datetime), cb.greaterThan(root.get(Order_.ID), id)));
+    }, order -> PageCursor.encode(order.getDatetime(), order.getId()));
+
+    // the KEYSET cursor of a search view
+    public static final Function<OrderSearchView, String> VIEW_CURSOR =
+            view -> PageCursor.encode(view.getDatetime(), view.getId());
+
     private static Specification<Order> filterByStatus(OrderStatus status) {
         return (root, query, cb) -> cb.equal(root.get(Order_.STATUS), status);
     }
@@ -38,9 +55,6 @@ public class OrderSpecifications {
         if (request.getDatetimeFrom() != null) {
             query = query.and(filterByDatetimeFrom(request.getDatetimeFrom()));
         }
-        if (request.getDatetimeFrom() != null) {
-            query = query.and(filterById(request.getId()));
-        }
         if (request.getDatetimeTo() != null) {
             query = query.and(filterByDatetimeTo(request.getDatetimeTo()));
         }
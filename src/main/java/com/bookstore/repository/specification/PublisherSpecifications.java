@@ -1,12 +1,19 @@
 package com.bookstore.repository.specification;
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.Publisher;
 import com.bookstore.entity.metamodels.Publisher_;
 import com.bookstore.controller.request.PublisherSearchRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 public class PublisherSpecifications {
 
+    public static final Keyset<Publisher> KEYSET = new Keyset<>(Sort.by(Publisher_.ID), cursor -> {
+        Long id = cursor.getLong(0);
+        return (root, query, cb) -> cb.greaterThan(root.get(Publisher_.ID), id);
+    }, publisher -> PageCursor.encode(publisher.getId()));
+
     private static Specification<Publisher> filterById(Long id) {
         return (root, query, cb) -> cb.equal(root.get(Publisher_.ID), id);
     }
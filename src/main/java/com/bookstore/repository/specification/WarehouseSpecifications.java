@@ -1,12 +1,28 @@
 package com.bookstore.repository.specification;
 
 
+import com.bookstore.common.PageCursor;
 import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockMovement;
+import com.bookstore.entity.StockShard;
 import com.bookstore.entity.metamodels.StockItem_;
+import com.bookstore.entity.metamodels.StockMovement_;
+import com.bookstore.entity.metamodels.StockShard_;
 import com.bookstore.controller.request.WarehouseSearchRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
 public class WarehouseSpecifications {
+
+    public static final Keyset<StockItem> KEYSET = new Keyset<>(Sort.by(StockItem_.ID), cursor -> {
+        Long id = cursor.getLong(0);
+        return (root, query, cb) -> cb.greaterThan(root.get(StockItem_.ID), id);
+    }, stockItem -> PageCursor.encode(stockItem.getId()));
+
     private static Specification<StockItem> filterByBookIsbn(String bookIsbn) {
         return (root, query, cb) -> cb.equal(root.get(StockItem_.BOOK_ISBN), bookIsbn);
     }
@@ -19,11 +35,33 @@ public class WarehouseSpecifications {
         return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(StockItem_.PRICE), priceTo);
     }
 
-    private static Specification<StockItem> filterByQuantity(int quantity) {
-        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(StockItem_.QUANTITY), quantity);
+    // shards and pending movements are only summed when sharding and the ledger are enabled, otherwise there are none
+    private static Specification<StockItem> filterByQuantity(int quantity, boolean withShards, boolean withPendingMovements) {
+        return (root, query, cb) -> {
+            Expression<Integer> balance = root.get(StockItem_.QUANTITY);
+            if (withShards) {
+                Subquery<Integer> shardQuantity = query.subquery(Integer.class);
+                Root<StockShard> shard = shardQuantity.from(StockShard.class);
+                shardQuantity.select(cb.sum(shard.<Integer>get(StockShard_.QUANTITY)))
+                        .where(cb.equal(shard.get(StockShard_.BOOK_ISBN), root.get(StockItem_.BOOK_ISBN)));
+                balance = cb.sum(balance, cb.coalesce(shardQuantity, 0));
+            }
+
+            if (withPendingMovements) {
+                Subquery<Integer> pendingQuantity = query.subquery(Integer.class);
+                Root<StockMovement> movement = pendingQuantity.from(StockMovement.class);
+                pendingQuantity.select(cb.sum(movement.<Integer>get(StockMovement_.QUANTITY)))
+                        .where(cb.equal(movement.get(StockMovement_.BOOK_ISBN), root.get(StockItem_.BOOK_ISBN)),
+                                cb.isFalse(movement.get(StockMovement_.APPLIED)));
+                balance = cb.sum(balance, cb.coalesce(pendingQuantity, 0));
+            }
+
+            return cb.greaterThanOrEqualTo(balance, quantity);
+        };
     }
 
-    public static Specification<StockItem> generateQuery(WarehouseSearchRequest request) {
+    public static Specification<StockItem> generateQuery(WarehouseSearchRequest request, boolean withShards,
+                                                         boolean withPendingMovements) {
 
         Specification<StockItem> query = GenericSpecifications.alwaysTrue();
 
@@ -37,7 +75,7 @@ public class WarehouseSpecifications {
             query = query.and(filterByPriceTo(request.getPriceTo()));
         }
         if (request.getQuantity() != null) {
-            query = query.and(filterByQuantity(request.getQuantity()));
+            query = query.and(filterByQuantity(request.getQuantity(), withShards, withPendingMovements));
         }
 
         return query;
@@ -2,10 +2,10 @@ package com.bookstore.service;
 
 import com.bookstore.controller.dto.AuthorDTO;
 import com.bookstore.controller.request.AuthorSearchRequest;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface AuthorService {
-    Page<AuthorDTO> searchAuthor(AuthorSearchRequest searchRequest);
+    Slice<AuthorDTO> searchAuthor(AuthorSearchRequest searchRequest);
 
     AuthorDTO updateAuthor(AuthorDTO author, Long id);
 
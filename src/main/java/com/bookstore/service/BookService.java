@@ -1,15 +1,18 @@
 package com.bookstore.service;
 
 import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.controller.dto.SearchIndexStatsDTO;
 import com.bookstore.controller.request.BookSearchRequest;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface BookService {
-    Page<BookDTO> searchBook(BookSearchRequest searchRequest);
+    Slice<BookDTO> searchBook(BookSearchRequest searchRequest);
 
     BookDTO saveBook(BookDTO bookDTO);
 
     BookDTO updateBook(BookDTO bookDTO, String isbn);
 
     void deleteBookByIsbn(String isbn);
+
+    SearchIndexStatsDTO rebuildTitleIndex();
 }
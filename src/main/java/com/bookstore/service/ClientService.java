@@ -2,10 +2,10 @@ package com.bookstore.service;
 
 import com.bookstore.controller.dto.ClientDTO;
 import com.bookstore.controller.request.ClientSearchRequest;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface ClientService {
-    Page<ClientDTO> searchClient(ClientSearchRequest searchRequest);
+    Slice<ClientDTO> searchClient(ClientSearchRequest searchRequest);
 
     ClientDTO updateClient(ClientDTO clientDTO, Long id);
 
@@ -0,0 +1,16 @@
+package com.bookstore.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+public interface HotStockService {
+    boolean isHot(String bookIsbn);
+
+    // empty for an ISBN that isn't hot
+    OptionalInt getQuantity(String bookIsbn);
+
+    List<String> withdraw(Map<String, Integer> quantitiesByIsbn);
+
+    void flush();
+}
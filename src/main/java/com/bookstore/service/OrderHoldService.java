@@ -0,0 +1,13 @@
+package com.bookstore.service;
+
+import java.util.Collection;
+
+public interface OrderHoldService {
+    void placeHold(Long orderId);
+
+    void confirmHolds(Collection<Long> orderIds);
+
+    void releaseHolds(Collection<Long> orderIds);
+
+    void releaseExpiredHolds();
+}
@@ -0,0 +1,10 @@
+package com.bookstore.service;
+
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderIntakeStatusDTO;
+
+public interface OrderIntakeService {
+    OrderIntakeStatusDTO submitOrder(OrderDTO orderDTO);
+
+    OrderIntakeStatusDTO getIntakeStatus(String trackingId);
+}
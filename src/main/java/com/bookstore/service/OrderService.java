@@ -1,16 +1,22 @@
 package com.bookstore.service;
 
 import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderStatusUpdateResultDTO;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.controller.request.OrderSearchRequest;
-import org.springframework.data.domain.Page;
+import com.bookstore.controller.request.OrderStatusBulkRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
 
 public interface OrderService {
-    Page<OrderDTO> searchOrders(OrderSearchRequest searchRequest);
+    Slice<OrderDTO> searchOrders(OrderSearchRequest searchRequest);
 
     OrderDTO saveOrder(OrderDTO orderDTO);
 
     OrderDTO updateOrder(Long orderId, OrderDTO orderStatus);
 
-    OrderDTO updateStatus(Long orderId, OrderStatus orderStatus);
+    OrderDTO updateStatus(Long orderId, OrderStatus orderStatus, boolean reload);
+
+    List<OrderStatusUpdateResultDTO> updateStatuses(OrderStatusBulkRequest request);
 }
\ No newline at end of file
@@ -2,10 +2,10 @@ package com.bookstore.service;
 
 import com.bookstore.controller.dto.PublisherDTO;
 import com.bookstore.controller.request.PublisherSearchRequest;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface PublisherService {
-    Page<PublisherDTO> searchPublisher(PublisherSearchRequest searchRequest);
+    Slice<PublisherDTO> searchPublisher(PublisherSearchRequest searchRequest);
 
     PublisherDTO updatePublisher(PublisherDTO publisherDTO, Long id);
 
@@ -0,0 +1,9 @@
+package com.bookstore.service;
+
+import com.bookstore.controller.request.SearchRequest;
+import com.bookstore.repository.KeysetRepository;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface SearchCountService {
+    <T> long count(KeysetRepository<T> repository, Specification<T> query, SearchRequest searchRequest);
+}
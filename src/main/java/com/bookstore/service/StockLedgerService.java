@@ -0,0 +1,19 @@
+package com.bookstore.service;
+
+import com.bookstore.entity.enums.StockMovementType;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface StockLedgerService {
+    void recordMovements(Map<String, Integer> quantitiesByIsbn, StockMovementType type, boolean applied);
+
+    List<String> withdraw(Map<String, Integer> quantitiesByIsbn, StockMovementType type);
+
+    Map<String, Integer> getPendingQuantities(Collection<String> bookIsbns);
+
+    void compact(Collection<String> bookIsbns);
+
+    void compactPendingMovements();
+}
@@ -1,18 +1,51 @@
 package com.bookstore.service;
 
+import com.bookstore.controller.dto.CacheStatsDTO;
+import com.bookstore.controller.dto.StockAvailabilityDTO;
+import com.bookstore.controller.dto.StockConflictStatsDTO;
+import com.bookstore.controller.dto.StockImportResultDTO;
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.controller.dto.StockRepriceResultDTO;
+import com.bookstore.controller.request.StockRepriceRequest;
 import com.bookstore.controller.request.WarehouseSearchRequest;
-import org.springframework.data.domain.Page;
+import com.bookstore.entity.enums.StockFileFormat;
+import org.springframework.data.domain.Slice;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface WarehouseService {
     StockItemDTO saveStockItem(StockItemDTO stockItemDTO);
 
-    Page<StockItemDTO> searchStockBalances(WarehouseSearchRequest searchRequest);
+    StockImportResultDTO importStockItems(InputStream body, StockFileFormat format);
+
+    void exportStockItems(OutputStream body, StockFileFormat format);
+
+    Slice<StockItemDTO> searchStockBalances(WarehouseSearchRequest searchRequest);
 
     StockItemDTO updateStockItem(String bookIsbn, Integer quantity, Double price);
 
+    StockRepriceResultDTO repriceStockItems(StockRepriceRequest request);
+
+    StockItemDTO splitStockItem(String bookIsbn, int shards);
+
     StockItemDTO withdrawBookFromStock(String bookIsbn, int quantity);
 
+    List<StockItemDTO> withdrawBooksFromStock(Map<String, Integer> quantitiesByIsbn);
+
     double getBookPrice(String bookIsbn);
 
+    Map<String, Double> getBookPrices(Collection<String> bookIsbns);
+
+    Map<String, StockAvailabilityDTO> getStockAvailability(Collection<String> bookIsbns);
+
+    CacheStatsDTO getPriceCacheStats();
+
+    List<StockConflictStatsDTO> getConflictStats(int limit);
+
+    List<String> findInStockIsbns(Collection<String> bookIsbns);
+
 }
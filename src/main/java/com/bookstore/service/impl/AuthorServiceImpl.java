@@ -9,17 +9,13 @@ import com.bookstore.repository.AuthorRepository;
 import com.bookstore.repository.specification.AuthorSpecifications;
 import com.bookstore.controller.request.AuthorSearchRequest;
 import com.bookstore.service.AuthorService;
+import com.bookstore.service.SearchCountService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-import java.util.stream.Collectors;
-
 @Service
 @Transactional
 public class AuthorServiceImpl implements AuthorService, Pagination {
@@ -27,14 +23,17 @@ public class AuthorServiceImpl implements AuthorService, Pagination {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private SearchCountService searchCountService;
+
     @Override
     @Transactional(readOnly = true)
-    public Page<AuthorDTO> searchAuthor(AuthorSearchRequest searchRequest) {
+    public Slice<AuthorDTO> searchAuthor(AuthorSearchRequest searchRequest) {
         Specification<Author> query = AuthorSpecifications.generateQuery(searchRequest);
-        PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<Author> authors = authorRepository.findAll(query, page);
+        Slice<Author> authors = AuthorSpecifications.KEYSET.findPage(authorRepository, query, searchRequest,
+                () -> searchCountService.count(authorRepository, query, searchRequest));
 
-        return getAuthorDTOList(authors);
+        return authors.map(Author::toDTO);
     }
 
     @Override
@@ -58,12 +57,6 @@ public class AuthorServiceImpl implements AuthorService, Pagination {
         authorRepository.deleteById(id);
     }
 
-    private Page<AuthorDTO> getAuthorDTOList(Page<Author> authors) {
-        return new PageImpl<>(authors.stream()
-                .map(Author::toDTO)
-                .collect(Collectors.toList()));
-    }
-
     @Transactional(readOnly = true)
     private boolean isAuthorValid(Long id) {
         return authorRepository.findById(id).isPresent();
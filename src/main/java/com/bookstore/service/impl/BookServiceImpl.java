@@ -1,45 +1,166 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.common.InvertedIndex;
 import com.bookstore.common.Messages;
+import com.bookstore.common.PageCursor;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.controller.dto.SearchIndexStatsDTO;
+import com.bookstore.entity.Author;
 import com.bookstore.entity.Book;
 import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.exception.InvalidPageCursorException;
+import com.bookstore.repository.AuthorRepository;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.projection.BookSearchView;
+import com.bookstore.repository.projection.BookTitleView;
 import com.bookstore.repository.specification.BookSpecifications;
 import com.bookstore.controller.request.BookSearchRequest;
 import com.bookstore.service.BookService;
+import com.bookstore.service.SearchCountService;
+import com.bookstore.service.WarehouseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Title searches are answered by an in-memory inverted index over titles and author names, which is
+ * built from the database on startup (or on demand) and updated as books are committed; until it is
+ * built, titles fall back to the {@code LIKE} filter.
+ */
 @Service
 @Transactional
 public class BookServiceImpl implements BookService, Pagination {
 
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private SearchCountService searchCountService;
+
+    @Value("${bookstore.books.in-stock.scan-size:500}")
+    private int inStockScanSize;
+
+    @Value("${bookstore.books.title-index.max-results:1000}")
+    private int titleIndexMaxResults;
+
+    @Value("${bookstore.books.title-index.rebuild-batch-size:1000}")
+    private int titleIndexRebuildBatchSize;
+
+    private final Object titleIndexRebuildLock = new Object();
+    private final Object titleIndexLock = new Object();
+    private volatile InvertedIndex titleIndex;
+    private Set<String> changedWhileRebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildTitleIndex() {
+        rebuildTitleIndex();
+    }
+
+    // books committed while the new index is read are indexed again from the database before it is swapped in;
+    // the batches are read as title views, so the persistence context doesn't grow with the catalog
+    @Override
+    @Transactional(readOnly = true)
+    public SearchIndexStatsDTO rebuildTitleIndex() {
+        synchronized (titleIndexRebuildLock) {
+            synchronized (titleIndexLock) {
+                changedWhileRebuilding = new HashSet<>();
+            }
+
+            InvertedIndex rebuiltIndex = new InvertedIndex();
+            List<BookTitleView> books;
+            String afterIsbn = null;
+            do {
+                books = bookRepository.findTitleViewsAfterIsbn(afterIsbn, titleIndexRebuildBatchSize);
+                books.forEach(book -> rebuiltIndex.put(book.getIsbn(), getTitleIndexTerms(book.getTitle(), book.getAuthorNames())));
+                if (!books.isEmpty()) {
+                    afterIsbn = books.get(books.size() - 1).getIsbn();
+                }
+            } while (books.size() == titleIndexRebuildBatchSize);
+
+            synchronized (titleIndexLock) {
+                Map<String, Book> changedBooks = bookRepository.findAllById(changedWhileRebuilding).stream()
+                        .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+                changedWhileRebuilding.forEach(isbn -> {
+                    if (changedBooks.containsKey(isbn)) {
+                        rebuiltIndex.put(isbn, getTitleIndexTerms(changedBooks.get(isbn)));
+                    } else {
+                        rebuiltIndex.remove(isbn);
+                    }
+                });
+                changedWhileRebuilding = null;
+                titleIndex = rebuiltIndex;
+            }
+
+            return new SearchIndexStatsDTO(rebuiltIndex.size(), rebuiltIndex.termCount());
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
-    public Page<BookDTO> searchBook(BookSearchRequest searchRequest) {
+    public Slice<BookDTO> searchBook(BookSearchRequest searchRequest) {
         Specification<Book> query = BookSpecifications.generateQuery(searchRequest);
         PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<Book> books = bookRepository.findAll(query, page);
+        InvertedIndex currentTitleIndex = titleIndex;
+        if (searchRequest.getTitle() != null && currentTitleIndex != null) {
+            return searchByTitleIndex(currentTitleIndex, searchRequest, page);
+        }
+        // the in-stock filter is applied in memory, so there is no query to count with and never a total;
+        // an offset would have to scan every earlier page, so the pages after the first one start at a cursor
+        if (Boolean.TRUE.equals(searchRequest.getInStockOnly())) {
+            if (searchRequest.getCursor() == null && page.getPageNumber() > DEFAULT_PAGE) {
+                throw new InvalidPageCursorException(String.format(Messages.IN_STOCK_PAGE_WITHOUT_CURSOR, page.getPageNumber()));
+            }
+            PageRequest inStockPage = BookSpecifications.KEYSET.getPageRequest(searchRequest);
+            Specification<Book> inStockQuery = searchRequest.getCursor() != null
+                    ? query.and(BookSpecifications.KEYSET.after(searchRequest.getCursor()))
+                    : query;
+            return BookSpecifications.KEYSET.toSlice(findInStockBooks(inStockQuery, inStockPage.getPageSize()), inStockPage,
+                    BookSpecifications.VIEW_CURSOR).map(BookSearchView::toDTO);
+        }
+        Slice<BookSearchView> books = BookSpecifications.KEYSET.findPage(bookRepository::findSearchViews,
+                BookSpecifications.VIEW_CURSOR, query, searchRequest,
+                () -> searchCountService.count(bookRepository, query, searchRequest));
 
-        return getBookDTOList(books);
+        return books.map(BookSearchView::toDTO);
     }
 
     @Override
     public BookDTO saveBook(BookDTO book) {
         Book savedAuthor = bookRepository.saveAndFlush(book.toEntity());
+        updateTitleIndex(savedAuthor.getIsbn(), getTitleIndexTerms(savedAuthor));
 
         return savedAuthor.toDTO();
     }
@@ -57,12 +178,134 @@ public class BookServiceImpl implements BookService, Pagination {
     @Override
     public void deleteBookByIsbn(String isbn) {
         bookRepository.deleteById(isbn);
+        updateTitleIndex(isbn, null);
     }
 
-    private Page<BookDTO> getBookDTOList(Page<Book> books) {
-        return new PageImpl<>(books.stream()
-                .map(Book::toDTO)
-                .collect(Collectors.toList()));
+    // the index ranks the title words; the database only applies the other filters to the ranked ISBNs
+    // and reads the books of the requested page. Ranked results are capped, so they are paged by offset,
+    // a cursor doesn't apply and the total comes with the ranking whatever the count mode
+    private Page<BookDTO> searchByTitleIndex(InvertedIndex index, BookSearchRequest searchRequest, PageRequest page) {
+        List<String> isbns = index.search(searchRequest.getTitle(), titleIndexMaxResults);
+        if (Boolean.TRUE.equals(searchRequest.getInStockOnly())) {
+            isbns = warehouseService.findInStockIsbns(isbns);
+        }
+        if (!isbns.isEmpty() && hasFiltersBesidesTitle(searchRequest)) {
+            Set<String> matchingIsbns = new HashSet<>(bookRepository.findIsbns(BookSpecifications.generateQuery(searchRequest, isbns)));
+            isbns = isbns.stream()
+                    .filter(matchingIsbns::contains)
+                    .collect(Collectors.toList());
+        }
+
+        List<String> pageIsbns = isbns.stream()
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .collect(Collectors.toList());
+        if (pageIsbns.isEmpty()) {
+            return new PageImpl<>(List.of(), page, isbns.size());
+        }
+        Map<String, BookSearchView> books = bookRepository.findSearchViews(BookSpecifications.generateQuery(searchRequest, pageIsbns),
+                        Sort.unsorted(), 0, pageIsbns.size()).stream()
+                .collect(Collectors.toMap(BookSearchView::getIsbn, Function.identity()));
+
+        return new PageImpl<>(pageIsbns.stream()
+                .filter(books::containsKey)
+                .map(isbn -> books.get(isbn).toDTO())
+                .collect(Collectors.toList()), page, isbns.size());
+    }
+
+    private boolean hasFiltersBesidesTitle(BookSearchRequest searchRequest) {
+        return searchRequest.getIsbn() != null || searchRequest.getAuthorId() != null
+                || searchRequest.getPublisherId() != null || searchRequest.getGenre() != null;
+    }
+
+    // the authors of a saved book are only references by id from the request, so their names are read
+    // from the database; otherwise the book can't be found by author until the index is rebuilt
+    private Map<String, Integer> getTitleIndexTerms(Book book) {
+        Set<Long> authorIds = Optional.ofNullable(book.getAuthor()).orElse(List.of()).stream()
+                .map(Author::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<String> authorNames = new ArrayList<>();
+        for (Author author : authorIds.isEmpty() ? List.<Author>of() : authorRepository.findAllById(authorIds)) {
+            authorNames.add(author.getName());
+            authorNames.add(author.getSurname());
+        }
+        return getTitleIndexTerms(book.getTitle(), authorNames);
+    }
+
+    private Map<String, Integer> getTitleIndexTerms(String title, List<String> authorNames) {
+        Map<String, Integer> termWeights = new HashMap<>();
+        InvertedIndex.tokenize(title).forEach(term -> termWeights.merge(term, TITLE_WEIGHT, Integer::sum));
+        authorNames.forEach(authorName -> InvertedIndex.tokenize(authorName)
+                .forEach(term -> termWeights.merge(term, AUTHOR_WEIGHT, Integer::sum)));
+        return termWeights;
+    }
+
+    // null terms remove the book; applied after commit, so a rolled back change never reaches the index
+    private void updateTitleIndex(String isbn, Map<String, Integer> termWeights) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyTitleIndexUpdate(isbn, termWeights);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyTitleIndexUpdate(isbn, termWeights);
+            }
+        });
+    }
+
+    private void applyTitleIndexUpdate(String isbn, Map<String, Integer> termWeights) {
+        synchronized (titleIndexLock) {
+            if (changedWhileRebuilding != null) {
+                changedWhileRebuilding.add(isbn);
+            }
+            if (titleIndex == null) {
+                return;
+            }
+            if (termWeights == null) {
+                titleIndex.remove(isbn);
+            } else {
+                titleIndex.put(isbn, termWeights);
+            }
+        }
+    }
+
+    // matching books are read in ISBN order and checked against the warehouse's in-stock set,
+    // so the search never joins the warehouse. One book more than the page is collected to tell
+    // whether there is a next page
+    private List<BookSearchView> findInStockBooks(Specification<Book> query, int pageSize) {
+        int wanted = pageSize + 1;
+        int scanSize = Math.max(pageSize, inStockScanSize);
+        List<BookSearchView> inStockBooks = new ArrayList<>(wanted);
+        String afterIsbn = null;
+
+        List<BookSearchView> books;
+        do {
+            Specification<Book> scanQuery = afterIsbn != null
+                    ? query.and(BookSpecifications.KEYSET.after(PageCursor.encode(afterIsbn)))
+                    : query;
+            books = bookRepository.findSearchViews(scanQuery, BookSpecifications.KEYSET.getSort(), 0, scanSize);
+            Set<String> inStockIsbns = new HashSet<>(warehouseService.findInStockIsbns(books.stream()
+                    .map(BookSearchView::getIsbn)
+                    .collect(Collectors.toList())));
+
+            for (BookSearchView book : books) {
+                if (!inStockIsbns.contains(book.getIsbn())) {
+                    continue;
+                }
+                inStockBooks.add(book);
+                if (inStockBooks.size() == wanted) {
+                    return inStockBooks;
+                }
+            }
+            if (!books.isEmpty()) {
+                afterIsbn = books.get(books.size() - 1).getIsbn();
+            }
+        } while (books.size() == scanSize);
+
+        return inStockBooks;
     }
 
     @Transactional(readOnly = true)
@@ -10,16 +10,14 @@ import com.bookstore.repository.ClientRepository;
 import com.bookstore.repository.specification.ClientSpecifications;
 import com.bookstore.controller.request.ClientSearchRequest;
 import com.bookstore.service.ClientService;
+import com.bookstore.service.SearchCountService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -28,14 +26,17 @@ public class ClientServiceImpl implements ClientService, Pagination {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private SearchCountService searchCountService;
+
     @Override
     @Transactional(readOnly = true)
-    public Page<ClientDTO> searchClient(ClientSearchRequest searchRequest) {
+    public Slice<ClientDTO> searchClient(ClientSearchRequest searchRequest) {
         Specification<Client> query = ClientSpecifications.generateQuery(searchRequest);
-        PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<Client> clients = clientRepository.findAll(query, page);
+        Slice<Client> clients = ClientSpecifications.KEYSET.findPage(clientRepository, query, searchRequest,
+                () -> searchCountService.count(clientRepository, query, searchRequest));
 
-        return getClientDTOList(clients);
+        return clients.map(Client::toDTO);
     }
 
     @Override
@@ -63,12 +64,6 @@ public class ClientServiceImpl implements ClientService, Pagination {
         clientRepository.deleteById(id);
     }
 
-    private Page<ClientDTO> getClientDTOList(Page<Client> clients) {
-        return new PageImpl<>(clients.stream()
-                .map(Client::toDTO)
-                .collect(Collectors.toList()));
-    }
-
     @Transactional(readOnly = true)
     private boolean isClientIdValid(Long id) {
         return clientRepository.findById(id).isPresent();
@@ -0,0 +1,176 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.common.StockJournal;
+import com.bookstore.common.StripedCounter;
+import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockJournalCheckpoint;
+import com.bookstore.repository.StockJournalCheckpointRepository;
+import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.service.HotStockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the stock of designated hot ISBNs in {@link StripedCounter}s, so a withdrawal is decided
+ * in memory. Every accepted withdrawal is appended to a local {@link StockJournal} before it is
+ * acknowledged, and a scheduled flusher writes the net quantities to the warehouse table in one
+ * batch, together with the last journal seq it covers.
+ * <p>
+ * On startup the records after the stored seq are replayed into the table first, then the counters
+ * are loaded from it, so an acknowledged withdrawal is never forgotten and stock can't be sold twice.
+ * The counters own the stock of hot ISBNs: this mode is meant for a single application instance.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "bookstore.warehouse.hot-stock.enabled", havingValue = "true")
+public class HotStockServiceImpl implements HotStockService {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookstore.warehouse.hot-stock.isbns:}")
+    private Set<String> hotIsbns;
+
+    @Value("${bookstore.warehouse.hot-stock.stripes:16}")
+    private int stripes;
+
+    @Value("${bookstore.warehouse.hot-stock.journal-directory:./data/stock-journal}")
+    private String journalDirectory;
+
+    @Value("${bookstore.warehouse.hot-stock.journal-name:default}")
+    private String journalName;
+
+    @Value("${bookstore.warehouse.hot-stock.fsync:true}")
+    private boolean fsync;
+
+    private final Map<String, StripedCounter> counters = new ConcurrentHashMap<>();
+    private StockJournal journal;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        journal = new StockJournal(Paths.get(journalDirectory), fsync);
+
+        long checkpointSeq = checkpointRepository.findById(journalName)
+                .map(StockJournalCheckpoint::getLastSeq)
+                .orElse(0L);
+        writeToWarehouse(journal.recover(checkpointSeq));
+
+        for (StockItem stockItem : warehouseRepository.findByBookIsbnIn(hotIsbns)) {
+            counters.put(stockItem.getBookIsbn(), new StripedCounter(stockItem.getQuantity(), stripes));
+        }
+        log.info("Loaded hot stock counters for {} ISBNs", counters.size());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    @Override
+    public boolean isHot(String bookIsbn) {
+        return counters.containsKey(bookIsbn);
+    }
+
+    @Override
+    public OptionalInt getQuantity(String bookIsbn) {
+        StripedCounter counter = counters.get(bookIsbn);
+        return counter != null ? OptionalInt.of(counter.sum()) : OptionalInt.empty();
+    }
+
+    // all or nothing: either every quantity is withdrawn and journaled, or none
+    @Override
+    public List<String> withdraw(Map<String, Integer> quantitiesByIsbn) {
+        Map<String, Integer> withdrawn = new HashMap<>();
+        List<String> shortages = new ArrayList<>();
+
+        quantitiesByIsbn.forEach((bookIsbn, quantity) -> {
+            if (quantity == 0) {
+                return;
+            }
+            if (counters.get(bookIsbn).tryWithdraw(quantity)) {
+                withdrawn.put(bookIsbn, quantity);
+            } else {
+                shortages.add(bookIsbn);
+            }
+        });
+        if (!shortages.isEmpty() || withdrawn.isEmpty()) {
+            giveBack(withdrawn);
+            return shortages;
+        }
+
+        try {
+            journal.append(withdrawn);
+        } catch (RuntimeException e) {
+            giveBack(withdrawn);
+            throw e;
+        }
+        return List.of();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.warehouse.hot-stock.flush-interval:PT0.1S}")
+    public synchronized void flush() {
+        StockJournal.Batch batch;
+        try {
+            batch = journal.drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (batch == null) {
+            return;
+        }
+
+        try {
+            writeToWarehouse(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush hot stock of {} ISBNs, retrying on the next flush", batch.getQuantities().size(), e);
+            journal.restore(batch);
+        }
+    }
+
+    private void writeToWarehouse(StockJournal.Batch batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            warehouseRepository.subtractQuantities(batch.getQuantities());
+            checkpointRepository.save(new StockJournalCheckpoint(journalName, batch.getLastSeq()));
+        });
+
+        try {
+            journal.release(batch);
+        } catch (IOException e) {
+            // the checkpoint already covers these segments, recovery skips their records
+            log.warn("Failed to delete flushed stock journal segments", e);
+        }
+    }
+
+    private void giveBack(Map<String, Integer> withdrawn) {
+        withdrawn.forEach((bookIsbn, quantity) -> counters.get(bookIsbn).tryWithdraw(-quantity));
+    }
+}
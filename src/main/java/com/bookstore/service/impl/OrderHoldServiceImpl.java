@@ -0,0 +1,146 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.common.HashedTimingWheel;
+import com.bookstore.entity.OrderHold;
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.repository.OrderHoldRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.projection.BookQuantityView;
+import com.bookstore.repository.projection.OrderStatusView;
+import com.bookstore.service.OrderHoldService;
+import com.bookstore.service.WarehouseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Books of a NEW order are withdrawn from the warehouse when the order is placed and stay held until
+ * the order is approved or cancelled, or until the hold expires. Expiry deadlines are kept in a
+ * {@link HashedTimingWheel} (rebuilt from the order_hold table on startup), so the sweeper only
+ * touches the holds that are due and releases them in batches.
+ * <p>
+ * Books go back to the warehouse only for the holds a caller managed to delete, so a cancellation
+ * racing with the expiry sweeper can never return the same order twice.
+ */
+@Slf4j
+@Service
+@Transactional
+public class OrderHoldServiceImpl implements OrderHoldService {
+
+    private static final int RELEASE_CHUNK_SIZE = 500;
+
+    @Autowired
+    private OrderHoldRepository orderHoldRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookstore.orders.hold.ttl:PT30M}")
+    private Duration ttl;
+
+    @Value("${bookstore.orders.hold.tick:PT1S}")
+    private Duration tick;
+
+    @Value("${bookstore.orders.hold.wheel-size:512}")
+    private int wheelSize;
+
+    private Clock clock = Clock.systemUTC();
+    private HashedTimingWheel<Long> expiryWheel;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        expiryWheel = new HashedTimingWheel<>(tick, wheelSize, clock.instant());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restoreHolds() {
+        orderHoldRepository.findAll()
+                .forEach(hold -> expiryWheel.schedule(hold.getOrderId(), hold.getExpiresAt()));
+    }
+
+    @Override
+    public void placeHold(Long orderId) {
+        OrderHold hold = orderHoldRepository.save(new OrderHold(orderId, clock.instant().plus(ttl)));
+        expiryWheel.schedule(hold.getOrderId(), hold.getExpiresAt());
+    }
+
+    // wheel entries are left to expire on their own: the sweeper skips orders that no longer have a hold
+    @Override
+    public void confirmHolds(Collection<Long> orderIds) {
+        orderHoldRepository.deleteByOrderIdIn(orderIds);
+    }
+
+    @Override
+    public void releaseHolds(Collection<Long> orderIds) {
+        List<Long> releasedOrderIds = orderHoldRepository.claimHolds(orderIds);
+        if (releasedOrderIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> returnedQuantities = orderRepository.sumQuantitiesByOrderIdIn(releasedOrderIds).stream()
+                .collect(Collectors.toMap(BookQuantityView::getBookIsbn, books -> -books.getQuantity().intValue()));
+        warehouseService.withdrawBooksFromStock(returnedQuantities);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.orders.hold.tick:PT1S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void releaseExpiredHolds() {
+        Instant now = clock.instant();
+        List<Long> orderIds = expiryWheel.advance(now);
+
+        for (int from = 0; from < orderIds.size(); from += RELEASE_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + RELEASE_CHUNK_SIZE, orderIds.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> releaseExpiredChunk(chunk, now));
+            } catch (RuntimeException e) {
+                log.error("Failed to release {} expired order holds, retrying on the next tick", chunk.size(), e);
+                chunk.forEach(orderId -> expiryWheel.schedule(orderId, now));
+            }
+        }
+    }
+
+    private void releaseExpiredChunk(List<Long> orderIds, Instant now) {
+        List<Long> expiredOrderIds = orderHoldRepository.findExpiredOrderIds(orderIds, now);
+        if (expiredOrderIds.isEmpty()) {
+            return;
+        }
+
+        orderRepository.updateOrdersStatus(OrderStatus.CANCELLED, expiredOrderIds, Set.of(OrderStatus.NEW));
+        List<Long> cancelledOrderIds = orderRepository.findStatusesByIdIn(expiredOrderIds).stream()
+                .filter(order -> order.getStatus() == OrderStatus.CANCELLED)
+                .map(OrderStatusView::getId)
+                .collect(Collectors.toList());
+
+        if (!cancelledOrderIds.isEmpty()) {
+            releaseHolds(cancelledOrderIds);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.common.Messages;
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderIntakeStatusDTO;
+import com.bookstore.entity.enums.OrderIntakeState;
+import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.exception.OrderIntakeRejectedException;
+import com.bookstore.service.OrderIntakeService;
+import com.bookstore.service.OrderService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts orders into a bounded in-memory queue and persists them from a single writer thread,
+ * committing up to {@code batch-size} orders per transaction. If a group fails (e.g. one order
+ * is out of stock), the group is rolled back and every order of it is retried in its own
+ * transaction so that each order gets its own outcome.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "bookstore.orders.intake.enabled", havingValue = "true")
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookstore.orders.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${bookstore.orders.intake.batch-size:100}")
+    private int batchSize;
+
+    @Value("${bookstore.orders.intake.status-retention:100000}")
+    private int statusRetention;
+
+    private BlockingQueue<PendingOrder> queue;
+    private Map<String, OrderIntakeStatusDTO> statuses;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        statuses = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderIntakeStatusDTO> eldest) {
+                return size() > statusRetention;
+            }
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        running = true;
+        writer = new Thread(this::drainQueue, "order-intake-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public OrderIntakeStatusDTO submitOrder(OrderDTO orderDTO) {
+        String trackingId = UUID.randomUUID().toString();
+        OrderIntakeStatusDTO status = OrderIntakeStatusDTO.builder()
+                .trackingId(trackingId)
+                .state(OrderIntakeState.QUEUED).build();
+
+        statuses.put(trackingId, status);
+        if (!running || !queue.offer(new PendingOrder(trackingId, orderDTO))) {
+            statuses.remove(trackingId);
+            throw new OrderIntakeRejectedException(Messages.ORDER_INTAKE_QUEUE_FULL);
+        }
+
+        return status;
+    }
+
+    @Override
+    public OrderIntakeStatusDTO getIntakeStatus(String trackingId) {
+        return Optional.ofNullable(statuses.get(trackingId))
+                .orElseThrow(() -> new EntityNotFoundException(String.format(Messages.ORDER_INTAKE_NOT_FOUND, trackingId)));
+    }
+
+    private void drainQueue() {
+        List<PendingOrder> group = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, batchSize - 1);
+
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer failed to process a group of {} orders", group.size(), e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void writeGroup(List<PendingOrder> group) {
+        try {
+            List<OrderDTO> savedOrders = transactionTemplate.execute(status -> group.stream()
+                    .map(pendingOrder -> orderService.saveOrder(pendingOrder.copyOrder()))
+                    .collect(Collectors.toList()));
+
+            for (int i = 0; i < group.size(); i++) {
+                complete(group.get(i), savedOrders.get(i));
+            }
+        } catch (RuntimeException groupFailure) {
+            group.forEach(this::writeSingle);
+        }
+    }
+
+    // outside of a transaction saveOrder runs its own and retries it after a deadlock
+    private void writeSingle(PendingOrder pendingOrder) {
+        try {
+            OrderDTO savedOrder = orderService.saveOrder(pendingOrder.copyOrder());
+            complete(pendingOrder, savedOrder);
+        } catch (RuntimeException e) {
+            statuses.put(pendingOrder.getTrackingId(), OrderIntakeStatusDTO.builder()
+                    .trackingId(pendingOrder.getTrackingId())
+                    .state(OrderIntakeState.FAILED)
+                    .message(e.getLocalizedMessage()).build());
+        }
+    }
+
+    private void complete(PendingOrder pendingOrder, OrderDTO savedOrder) {
+        statuses.put(pendingOrder.getTrackingId(), OrderIntakeStatusDTO.builder()
+                .trackingId(pendingOrder.getTrackingId())
+                .state(OrderIntakeState.COMPLETED)
+                .orderId(savedOrder.getId()).build());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingOrder {
+        private final String trackingId;
+        private final OrderDTO order;
+
+        // saveOrder mutates the order and its sold items, so a retry after a rolled back group needs a pristine copy
+        OrderDTO copyOrder() {
+            return OrderDTO.builder()
+                    .books(order.getBooks().stream()
+                            .map(soldItem -> soldItem.toDTO().toEntity())
+                            .collect(Collectors.toList()))
+                    .client(order.getClient()).build();
+        }
+    }
+}
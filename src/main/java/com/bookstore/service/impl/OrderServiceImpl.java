@@ -1,77 +1,199 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.common.ConcurrencyRetry;
 import com.bookstore.common.Messages;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderStatusUpdateResultDTO;
+import com.bookstore.controller.dto.StockItemDTO;
 import com.bookstore.entity.Order;
 import com.bookstore.entity.SoldItem;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.exception.CantChangeOrderStatusException;
 import com.bookstore.exception.EntityNotFoundException;
 import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.projection.OrderSearchView;
+import com.bookstore.repository.projection.OrderStatusView;
 import com.bookstore.repository.specification.OrderSpecifications;
 import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.controller.request.OrderStatusBulkRequest;
+import com.bookstore.service.OrderHoldService;
 import com.bookstore.service.OrderService;
+import com.bookstore.service.SearchCountService;
 import com.bookstore.service.WarehouseService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Transactional
 public class OrderServiceImpl implements OrderService, Pagination {
 
+    private static final int STATUS_UPDATE_CHUNK_SIZE = 500;
+    private static final String SAVE_ORDER = "saveOrder";
+    private static final String UPDATE_ORDER = "updateOrder";
+    private static final String UPDATE_STATUS = "updateStatus";
+    private static final String UPDATE_STATUSES = "updateStatuses";
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private SearchCountService searchCountService;
+
     @Autowired
     private WarehouseService warehouseService;
 
+    @Autowired
+    private OrderHoldService orderHoldService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookstore.orders.retry.max-attempts:5}")
+    private int retryMaxAttempts;
+
+    @Value("${bookstore.orders.retry.backoff:PT0.01S}")
+    private Duration retryBackoff;
+
+    @Value("${bookstore.orders.retry.max-backoff:PT0.2S}")
+    private Duration retryMaxBackoff;
+
+    private ConcurrencyRetry orderRetry;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        orderRetry = new ConcurrencyRetry(retryMaxAttempts, retryBackoff, retryMaxBackoff);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     @Override
     @Transactional(readOnly = true)
-    public Page<OrderDTO> searchOrders(OrderSearchRequest searchRequest) {
+    public Slice<OrderDTO> searchOrders(OrderSearchRequest searchRequest) {
         Specification<Order> query = OrderSpecifications.generateQuery(searchRequest);
-        PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<Order> orders = orderRepository.findAll(query, page);
+        Slice<OrderSearchView> orders = OrderSpecifications.KEYSET.findPage(orderRepository::findSearchViews,
+                OrderSpecifications.VIEW_CURSOR, query, searchRequest,
+                () -> searchCountService.count(orderRepository, query, searchRequest));
 
-        return getOrderDTOList(orders);
+        return orders.map(OrderSearchView::toDTO);
     }
 
     @Override
-    public OrderDTO updateStatus(Long orderId, OrderStatus newOrderStatus) {
-        OrderDTO orderDTO = getOrderById(orderId);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public OrderDTO updateStatus(Long orderId, OrderStatus newOrderStatus, boolean reload) {
+        return inTransaction(UPDATE_STATUS, () -> doUpdateStatus(orderId, newOrderStatus, reload));
+    }
 
-        if (!isOrderStatusValid(orderDTO.getStatus(), newOrderStatus)) {
+    private OrderDTO doUpdateStatus(Long orderId, OrderStatus newOrderStatus, boolean reload) {
+        int updatedRows = orderRepository.updateOrderStatus(newOrderStatus, orderId, newOrderStatus.getAllowedPreviousStatuses());
+
+        if (updatedRows == 0) {
+            if (!orderRepository.existsById(orderId)) {
+                throw new EntityNotFoundException(String.format(Messages.ORDER_ID_NOT_FOUND, orderId));
+            }
             throw new CantChangeOrderStatusException(Messages.CANT_CHANGE_ORDER_STATUS);
         }
+        applyOrderHolds(List.of(orderId), newOrderStatus);
+
+        return reload ? getOrderById(orderId) : OrderDTO.builder().id(orderId).status(newOrderStatus).build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<OrderStatusUpdateResultDTO> updateStatuses(OrderStatusBulkRequest request) {
+        return inTransaction(UPDATE_STATUSES, () -> doUpdateStatuses(request));
+    }
+
+    private List<OrderStatusUpdateResultDTO> doUpdateStatuses(OrderStatusBulkRequest request) {
+        if (request.getFilter() != null) {
+            return updateFilteredStatuses(OrderSpecifications.generateQuery(request.getFilter()), request.getStatus());
+        }
+
+        List<Long> orderIds = request.getIds().stream().distinct().collect(Collectors.toList());
+        List<OrderStatusUpdateResultDTO> results = new ArrayList<>(orderIds.size());
+        for (int from = 0; from < orderIds.size(); from += STATUS_UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + STATUS_UPDATE_CHUNK_SIZE, orderIds.size()));
+            results.addAll(updateStatusesChunk(chunk, request.getStatus()));
+        }
 
-        orderRepository.updateOrderStatus(newOrderStatus, orderId);
+        return results;
+    }
+
+    // the matching ids are read a chunk at a time after the last one updated, never all at once
+    private List<OrderStatusUpdateResultDTO> updateFilteredStatuses(Specification<Order> query, OrderStatus newOrderStatus) {
+        List<OrderStatusUpdateResultDTO> results = new ArrayList<>();
+        List<Long> chunk;
+        Long afterId = null;
+        do {
+            chunk = orderRepository.findIdsAfter(query, afterId, STATUS_UPDATE_CHUNK_SIZE);
+            if (!chunk.isEmpty()) {
+                results.addAll(updateStatusesChunk(chunk, newOrderStatus));
+                afterId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == STATUS_UPDATE_CHUNK_SIZE);
 
-        return getOrderById(orderId);
+        return results;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public OrderDTO saveOrder(OrderDTO orderDTO) {
+        Runnable resetSoldItems = snapshotSoldItems(orderDTO.getBooks());
+
+        return inTransaction(SAVE_ORDER, () -> {
+            resetSoldItems.run();
+            return doSaveOrder(orderDTO);
+        });
+    }
+
+    private OrderDTO doSaveOrder(OrderDTO orderDTO) {
         fillInOrderFields(orderDTO);
 
-        withdrawBooksFromWarehouse(orderDTO.getBooks());
+        reserveBooksInWarehouse(orderDTO.getBooks(), getQuantitiesByIsbn(orderDTO.getBooks()));
         Order savedOrder = orderRepository.save(orderDTO.toEntity());
+        orderHoldService.placeHold(savedOrder.getId());
 
         return savedOrder.toDTO();
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public OrderDTO updateOrder(Long orderId, OrderDTO orderDTO) {
-        OrderDTO currentOrderDTO = getOrderById(orderId);
+        Runnable resetSoldItems = snapshotSoldItems(orderDTO.getBooks());
+
+        return inTransaction(UPDATE_ORDER, () -> {
+            resetSoldItems.run();
+            return doUpdateOrder(orderId, orderDTO);
+        });
+    }
+
+    // the row stays locked until the new lines are saved: the hold sweeper can't cancel the order and
+    // return its books in between, only before the lock (then the status check fails) or after the commit
+    private OrderDTO doUpdateOrder(Long orderId, OrderDTO orderDTO) {
+        OrderDTO currentOrderDTO = orderRepository.findForUpdateById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format(Messages.ORDER_ID_NOT_FOUND, orderId)))
+                .toDTO();
         OrderStatus currentOrderStatus = currentOrderDTO.getStatus();
 
         if (!isOrderStatusValid(currentOrderStatus)) {
@@ -79,16 +201,98 @@ public class OrderServiceImpl implements OrderService, Pagination {
         }
 
         orderDTO.setId(orderId);
-        returnAllBookFromOrder(currentOrderDTO);
+        fillInOrderFields(orderDTO);
+
+        // only the net difference per ISBN between the old and the new lines touches the warehouse
+        Map<String, Integer> quantitiesByIsbn = getQuantitiesByIsbn(orderDTO.getBooks());
+        getQuantitiesByIsbn(currentOrderDTO.getBooks())
+                .forEach((bookIsbn, quantity) -> quantitiesByIsbn.merge(bookIsbn, -quantity, Integer::sum));
+
+        reserveBooksInWarehouse(orderDTO.getBooks(), quantitiesByIsbn);
+        // the new lines replace the old ones, so a hold released later returns only what the order holds now
+        orderRepository.deleteSoldItemsByOrderId(orderId);
+        orderDTO.getBooks().forEach(soldItem -> soldItem.setId(null));
+        Order savedOrder = orderRepository.save(orderDTO.toEntity());
+
+        return savedOrder.toDTO();
+    }
+
+    // a deadlock or serialization failure can only roll the transaction back, so the caller that owns
+    // the transaction retries it; inside a caller's transaction (e.g. an intake group) the caller decides
+    private <T> T inTransaction(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        return orderRetry.execute(operation, () -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    // a rolled back attempt may leave generated ids and the order link on the sold items
+    private Runnable snapshotSoldItems(List<SoldItem> soldItems) {
+        List<SoldItem> snapshot = soldItems.stream()
+                .map(soldItem -> soldItem.toDTO().toEntity())
+                .collect(Collectors.toList());
+
+        return () -> IntStream.range(0, soldItems.size()).forEach(i -> {
+            soldItems.get(i).setId(snapshot.get(i).getId());
+            soldItems.get(i).setOrder(snapshot.get(i).getOrder());
+        });
+    }
+
+    private List<OrderStatusUpdateResultDTO> updateStatusesChunk(List<Long> orderIds, OrderStatus newOrderStatus) {
+        Map<Long, OrderStatus> currentStatuses = orderRepository.findStatusesByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(OrderStatusView::getId, OrderStatusView::getStatus));
 
-        return saveOrder(orderDTO);
+        List<Long> validOrderIds = orderIds.stream()
+                .filter(orderId -> currentStatuses.containsKey(orderId) && currentStatuses.get(orderId).canBeChangedTo(newOrderStatus))
+                .collect(Collectors.toList());
+        Set<Long> updatedOrderIds = updateOrdersStatus(validOrderIds, newOrderStatus);
+        if (!updatedOrderIds.isEmpty()) {
+            applyOrderHolds(updatedOrderIds, newOrderStatus);
+        }
+
+        return orderIds.stream()
+                .map(orderId -> getStatusUpdateResult(orderId, currentStatuses.containsKey(orderId), updatedOrderIds.contains(orderId)))
+                .collect(Collectors.toList());
+    }
+
+    private Set<Long> updateOrdersStatus(List<Long> orderIds, OrderStatus newOrderStatus) {
+        if (orderIds.isEmpty()) {
+            return Set.of();
+        }
+
+        int updatedRows = orderRepository.updateOrdersStatus(newOrderStatus, orderIds, newOrderStatus.getAllowedPreviousStatuses());
+        if (updatedRows == orderIds.size()) {
+            return new HashSet<>(orderIds);
+        }
+
+        // some orders changed their status between the read and the update
+        return orderRepository.findStatusesByIdIn(orderIds).stream()
+                .filter(order -> order.getStatus() == newOrderStatus)
+                .map(OrderStatusView::getId)
+                .collect(Collectors.toSet());
     }
 
-    private boolean isOrderStatusValid(OrderStatus currentStatus, OrderStatus newStatus) {
-        if (currentStatus.equals(OrderStatus.CANCELLED) || currentStatus.equals(OrderStatus.COMPLETED)) {
-            return false;
+    private void applyOrderHolds(Collection<Long> orderIds, OrderStatus newOrderStatus) {
+        if (newOrderStatus == OrderStatus.CANCELLED) {
+            orderHoldService.releaseHolds(orderIds);
+        } else if (newOrderStatus != OrderStatus.NEW) {
+            orderHoldService.confirmHolds(orderIds);
         }
-        return !currentStatus.equals(OrderStatus.APPROVED) || !newStatus.equals(OrderStatus.NEW);
+    }
+
+    private OrderStatusUpdateResultDTO getStatusUpdateResult(Long orderId, boolean exists, boolean updated) {
+        String message = null;
+        if (!exists) {
+            message = String.format(Messages.ORDER_ID_NOT_FOUND, orderId);
+        } else if (!updated) {
+            message = Messages.CANT_CHANGE_ORDER_STATUS;
+        }
+
+        return OrderStatusUpdateResultDTO.builder()
+                .id(orderId)
+                .updated(updated)
+                .message(message).build();
     }
 
     private boolean isOrderStatusValid(OrderStatus status) {
@@ -96,31 +300,20 @@ public class OrderServiceImpl implements OrderService, Pagination {
     }
 
     private void fillInOrderFields(OrderDTO orderDTO) {
-        setPriceInSoldBooks(orderDTO.getBooks());
         orderDTO.setDatetime(Instant.now());
         orderDTO.setStatus(OrderStatus.NEW);
     }
 
-    private void withdrawBooksFromWarehouse(List<SoldItem> soldBooks) {
-        soldBooks.forEach(soldBook ->
-                warehouseService.withdrawBookFromStock(soldBook.getBookIsbn(), soldBook.getQuantity()));
-    }
-
-    private void setPriceInSoldBooks(List<SoldItem> soldBooks) {
-        soldBooks.forEach(soldBook ->
-                soldBook.setPrice(warehouseService.getBookPrice(soldBook.getBookIsbn())));
-    }
-
-    private void returnAllBookFromOrder(OrderDTO orderDTO) {
-        orderDTO.getBooks().forEach(soldBook ->
-                warehouseService.updateStockItem(soldBook.getBookIsbn(), soldBook.getQuantity(), null));
+    private Map<String, Integer> getQuantitiesByIsbn(List<SoldItem> soldBooks) {
+        return soldBooks.stream()
+                .collect(Collectors.groupingBy(SoldItem::getBookIsbn, Collectors.summingInt(SoldItem::getQuantity)));
     }
 
-    private Page<OrderDTO> getOrderDTOList(Page<Order> orders) {
+    private void reserveBooksInWarehouse(List<SoldItem> soldBooks, Map<String, Integer> quantitiesByIsbn) {
+        Map<String, Double> pricesByIsbn = warehouseService.withdrawBooksFromStock(quantitiesByIsbn).stream()
+                .collect(Collectors.toMap(StockItemDTO::getBookIsbn, StockItemDTO::getPrice));
 
-        return new PageImpl<>(orders.stream()
-                .map(Order::toDTO)
-                .collect(Collectors.toList()));
+        soldBooks.forEach(soldBook -> soldBook.setPrice(pricesByIsbn.get(soldBook.getBookIsbn())));
     }
 
     @Transactional(readOnly = true)
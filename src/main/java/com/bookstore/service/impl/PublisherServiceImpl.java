@@ -9,17 +9,13 @@ import com.bookstore.repository.PublisherRepository;
 import com.bookstore.repository.specification.PublisherSpecifications;
 import com.bookstore.controller.request.PublisherSearchRequest;
 import com.bookstore.service.PublisherService;
+import com.bookstore.service.SearchCountService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-import java.util.stream.Collectors;
-
 @Service
 @Transactional
 public class PublisherServiceImpl implements PublisherService, Pagination {
@@ -27,13 +23,16 @@ public class PublisherServiceImpl implements PublisherService, Pagination {
     @Autowired
     PublisherRepository publisherRepository;
 
+    @Autowired
+    private SearchCountService searchCountService;
+
     @Override
     @Transactional(readOnly = true)
-    public Page<PublisherDTO> searchPublisher(PublisherSearchRequest searchRequest) {
+    public Slice<PublisherDTO> searchPublisher(PublisherSearchRequest searchRequest) {
         Specification<Publisher> query = PublisherSpecifications.generateQuery(searchRequest);
-        PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<Publisher> publishers = publisherRepository.findAll(query, page);
-        return getPublisherDTOList(publishers);
+        Slice<Publisher> publishers = PublisherSpecifications.KEYSET.findPage(publisherRepository, query, searchRequest,
+                () -> searchCountService.count(publisherRepository, query, searchRequest));
+        return publishers.map(Publisher::toDTO);
     }
 
     @Override
@@ -57,12 +56,6 @@ public class PublisherServiceImpl implements PublisherService, Pagination {
         publisherRepository.deleteById(id);
     }
 
-    private Page<PublisherDTO> getPublisherDTOList(Page<Publisher> publishers) {
-        return new PageImpl<>(publishers.stream()
-                .map(Publisher::toDTO)
-                .collect(Collectors.toList()));
-    }
-
     @Transactional(readOnly = true)
     private boolean isPublisherValid(Long id) {
         return publisherRepository.findById(id).isPresent();
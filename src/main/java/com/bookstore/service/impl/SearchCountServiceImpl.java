@@ -0,0 +1,67 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.common.BoundedCache;
+import com.bookstore.common.Messages;
+import com.bookstore.controller.request.SearchRequest;
+import com.bookstore.entity.enums.CountMode;
+import com.bookstore.repository.KeysetRepository;
+import com.bookstore.service.SearchCountService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Totals of search pages by the request's count mode. CACHED memoizes the count of a filter for a
+ * short TTL, so paging through one search counts once. ESTIMATE reads the planner's row estimate
+ * of the whole table, so it is only accepted for a search without filters: the request validation
+ * rejects a filtered one, the criteria query doesn't expose the SQL an EXPLAIN would need.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SearchCountServiceImpl implements SearchCountService {
+
+    @Value("${bookstore.search.count-cache.max-size:10000}")
+    private int countCacheMaxSize;
+
+    @Value("${bookstore.search.count-cache.ttl:PT10S}")
+    private Duration countCacheTtl;
+
+    private BoundedCache<SearchRequest, Long> countCache;
+
+    @PostConstruct
+    public void init() {
+        countCache = new BoundedCache<>(countCacheMaxSize, countCacheTtl);
+    }
+
+    @Override
+    public <T> long count(KeysetRepository<T> repository, Specification<T> query, SearchRequest searchRequest) {
+        switch (Optional.ofNullable(searchRequest.getCount()).orElse(CountMode.EXACT)) {
+            case ESTIMATE:
+                if (searchRequest.hasFilter()) {
+                    throw new IllegalArgumentException(Messages.ESTIMATE_COUNT_WITH_FILTER);
+                }
+                // no statistics before the first ANALYZE, such a table is small enough to count
+                long estimate = repository.estimateCount();
+                return estimate > 0 ? estimate : countCached(repository, query, searchRequest);
+            case CACHED:
+                return countCached(repository, query, searchRequest);
+            default:
+                return repository.count(query);
+        }
+    }
+
+    private <T> long countCached(KeysetRepository<T> repository, Specification<T> query, SearchRequest searchRequest) {
+        SearchRequest filter = searchRequest.withoutPaging();
+        Long count = countCache.get(filter);
+        if (count == null) {
+            count = repository.count(query);
+            countCache.put(filter, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.entity.StockMovement;
+import com.bookstore.entity.enums.StockMovementType;
+import com.bookstore.repository.StockMovementRepository;
+import com.bookstore.repository.projection.BookQuantityView;
+import com.bookstore.service.StockLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only ledger of stock movements. Every change of the stock, books coming in as well as
+ * withdrawals, is only inserted as a pending movement, so no writer waits for the warehouse row.
+ * Withdrawals of an ISBN are serialized by an advisory lock instead and checked against the
+ * warehouse quantity plus the pending movements. Pending movements are folded into the warehouse
+ * balances by a scheduled compaction in batches, which leaves that sum unchanged.
+ */
+@Service
+@Transactional
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bookstore.warehouse.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${bookstore.warehouse.ledger.compaction-batch-size:5000}")
+    private int compactionBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void recordMovements(Map<String, Integer> quantitiesByIsbn, StockMovementType type, boolean applied) {
+        Instant now = Instant.now();
+
+        stockMovementRepository.saveAll(quantitiesByIsbn.entrySet().stream()
+                .filter(movement -> movement.getValue() != 0)
+                .map(movement -> StockMovement.builder()
+                        .bookIsbn(movement.getKey())
+                        .quantity(movement.getValue())
+                        .type(type)
+                        .applied(applied)
+                        .createdAt(now).build())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Appends the withdrawals (positive quantities) whose books are all there. The ISBNs stay locked
+     * until the transaction ends, so a concurrent withdrawal reads the balance only after these
+     * movements are committed or rolled back.
+     *
+     * @return ISBNs without enough stock, nothing is appended for them
+     */
+    @Override
+    public List<String> withdraw(Map<String, Integer> quantitiesByIsbn, StockMovementType type) {
+        Map<String, Integer> withdrawals = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> withdrawal.getValue() > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        if (withdrawals.isEmpty()) {
+            return List.of();
+        }
+
+        stockMovementRepository.lockBooks(withdrawals.keySet());
+        Map<String, Integer> balances = stockMovementRepository.findBalances(withdrawals.keySet());
+        List<String> shortages = withdrawals.entrySet().stream()
+                .filter(withdrawal -> balances.getOrDefault(withdrawal.getKey(), 0) < withdrawal.getValue())
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+
+        stockMovementRepository.appendPendingMovements(withdrawals.entrySet().stream()
+                .filter(withdrawal -> !shortages.contains(withdrawal.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, withdrawal -> -withdrawal.getValue())), type, Instant.now());
+        return shortages;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getPendingQuantities(Collection<String> bookIsbns) {
+        if (bookIsbns.isEmpty()) {
+            return Map.of();
+        }
+
+        return stockMovementRepository.sumPendingQuantitiesByBookIsbnIn(bookIsbns).stream()
+                .collect(Collectors.toMap(BookQuantityView::getBookIsbn, movements -> movements.getQuantity().intValue()));
+    }
+
+    // waits for the withdrawals in flight, a caller replacing the balance (split, import) must not miss one
+    @Override
+    public void compact(Collection<String> bookIsbns) {
+        stockMovementRepository.lockBooks(bookIsbns);
+        int compacted;
+        do {
+            compacted = stockMovementRepository.compactMovements(bookIsbns, compactionBatchSize);
+        } while (compacted == compactionBatchSize);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${bookstore.warehouse.ledger.compaction-interval:PT1S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void compactPendingMovements() {
+        if (!ledgerEnabled) {
+            return;
+        }
+
+        Integer compacted;
+        do {
+            compacted = transactionTemplate.execute(status -> stockMovementRepository.compactMovements(compactionBatchSize));
+        } while (compacted != null && compacted == compactionBatchSize);
+    }
+}
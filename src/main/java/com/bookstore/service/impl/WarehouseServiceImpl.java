@@ -1,97 +1,727 @@
 package com.bookstore.service.impl;
 
+import com.bookstore.common.BoundedCache;
+import com.bookstore.common.ConcurrencyRetry;
+import com.bookstore.common.IsbnSet;
 import com.bookstore.common.Messages;
 import com.bookstore.common.Pagination;
+import com.bookstore.common.StockExportWriter;
+import com.bookstore.common.StockImportReader;
+import com.bookstore.controller.dto.CacheStatsDTO;
+import com.bookstore.controller.dto.StockAvailabilityDTO;
+import com.bookstore.controller.dto.StockConflictStatsDTO;
+import com.bookstore.controller.dto.StockImportResultDTO;
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.controller.dto.StockRepriceResultDTO;
+import com.bookstore.controller.request.StockRepriceRequest;
 import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockShard;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.bookstore.entity.enums.StockMovementType;
 import com.bookstore.exception.EntityNotFoundException;
 import com.bookstore.exception.NotEnoughInStockException;
+import com.bookstore.exception.HotStockSplitException;
+import com.bookstore.exception.StockShardingDisabledException;
+import com.bookstore.repository.StockShardRepository;
 import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.repository.projection.BookPriceView;
+import com.bookstore.repository.projection.BookQuantityView;
 import com.bookstore.repository.specification.WarehouseSpecifications;
 import com.bookstore.controller.request.WarehouseSearchRequest;
+import com.bookstore.service.HotStockService;
+import com.bookstore.service.SearchCountService;
+import com.bookstore.service.StockLedgerService;
 import com.bookstore.service.WarehouseService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Besides the balances in the database, keeps an in-memory set of the ISBNs in stock for the
+ * catalog search. It is rebuilt from the warehouse on startup; afterwards every committed change
+ * marks its ISBNs and a scheduled refresh re-reads just those balances.
+ */
 @Service
 @Transactional
 public class WarehouseServiceImpl implements WarehouseService, Pagination {
 
+    private static final int IN_STOCK_REFRESH_CHUNK_SIZE = 1000;
+
     @Autowired
     private WarehouseRepository warehouseRepository;
 
+    @Autowired
+    private StockShardRepository stockShardRepository;
+
+    @Autowired(required = false)
+    private HotStockService hotStockService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private SearchCountService searchCountService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bookstore.warehouse.sharding.enabled:false}")
+    private boolean shardingEnabled;
+
+    @Value("${bookstore.warehouse.ledger.enabled:false}")
+    private boolean ledgerEnabled;
+
+    @Value("${bookstore.warehouse.price-cache.max-size:10000}")
+    private int priceCacheMaxSize;
+
+    @Value("${bookstore.warehouse.price-cache.ttl:PT5M}")
+    private Duration priceCacheTtl;
+
+    @Value("${bookstore.warehouse.retry.max-attempts:5}")
+    private int retryMaxAttempts;
+
+    @Value("${bookstore.warehouse.retry.backoff:PT0.01S}")
+    private Duration retryBackoff;
+
+    @Value("${bookstore.warehouse.retry.max-backoff:PT0.2S}")
+    private Duration retryMaxBackoff;
+
+    @Value("${bookstore.warehouse.import.batch-size:5000}")
+    private int importBatchSize;
+
+    @Value("${bookstore.warehouse.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${bookstore.warehouse.reprice.chunk-size:5000}")
+    private int repriceChunkSize;
+
+    private BoundedCache<String, Double> priceCache;
+    private ConcurrencyRetry stockItemRetry;
+    private TransactionTemplate transactionTemplate;
+    private IsbnSet inStockSet;
+    private Set<String> changedInStockIsbns;
+    private volatile boolean inStockSetBuilt;
+
+    @PostConstruct
+    public void init() {
+        priceCache = new BoundedCache<>(priceCacheMaxSize, priceCacheTtl);
+        stockItemRetry = new ConcurrencyRetry(retryMaxAttempts, retryBackoff, retryMaxBackoff);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        inStockSet = new IsbnSet();
+        changedInStockIsbns = ConcurrentHashMap.newKeySet();
+    }
+
+    // changes committed while the cursor runs stay marked and are re-read by the first refresh
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void rebuildInStockSet() {
+        warehouseRepository.streamStockBalances(exportFetchSize,
+                stockItem -> inStockSet.set(stockItem.getBookIsbn(), getBalance(stockItem) > 0));
+        inStockSetBuilt = true;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.warehouse.in-stock.refresh-interval:PT1S}")
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void refreshInStockSet() {
+        if (!inStockSetBuilt || changedInStockIsbns.isEmpty()) {
+            return;
+        }
+
+        // unmarked before the read, so a change committing meanwhile is either read now or marked again
+        List<String> bookIsbns = new ArrayList<>(changedInStockIsbns);
+        changedInStockIsbns.removeAll(bookIsbns);
+        for (int from = 0; from < bookIsbns.size(); from += IN_STOCK_REFRESH_CHUNK_SIZE) {
+            refreshInStockChunk(bookIsbns.subList(from, Math.min(from + IN_STOCK_REFRESH_CHUNK_SIZE, bookIsbns.size())));
+        }
+    }
+
+    // one snapshot for the rows and the pending movements, a compaction committing in between would count them twice
     @Override
-    @Transactional(readOnly = true)
-    public Page<StockItemDTO> searchStockBalances(WarehouseSearchRequest searchRequest) {
-        Specification<StockItem> query = WarehouseSpecifications.generateQuery(searchRequest);
-        PageRequest page = PageRequest.of(Optional.ofNullable(searchRequest.getPage()).orElse(DEFAULT_PAGE), Optional.ofNullable(searchRequest.getLimit()).orElse(DEFAULT_LIMIT));
-        Page<StockItem> stockItems = warehouseRepository.findAll(query, page);
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Slice<StockItemDTO> searchStockBalances(WarehouseSearchRequest searchRequest) {
+        Specification<StockItem> query = WarehouseSpecifications.generateQuery(searchRequest, shardingEnabled, ledgerEnabled);
+        Slice<StockItem> stockItems = WarehouseSpecifications.KEYSET.findPage(warehouseRepository, query, searchRequest,
+                () -> searchCountService.count(warehouseRepository, query, searchRequest));
 
         return getStockItemDTOList(stockItems);
     }
 
+    // every attempt runs in its own transaction, the one that lost the optimistic lock can only roll back
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public StockItemDTO updateStockItem(String bookIsbn, Integer quantity, Double price) {
+        return stockItemRetry.execute(bookIsbn,
+                () -> transactionTemplate.execute(status -> doUpdateStockItem(bookIsbn, quantity, price)));
+    }
 
-        StockItemDTO stockItemDTO = getStockItemByBookIsbn(bookIsbn);
+    private StockItemDTO doUpdateStockItem(String bookIsbn, Integer quantity, Double price) {
+        StockItem stockItem = findStockItemByBookIsbn(bookIsbn);
+        markInStockChanged(List.of(bookIsbn));
+        StockItemDTO stockItemDTO = stockItem.toDTO();
         updateStockItemPrice(stockItemDTO, price);
-        updateStockItemQuantity(stockItemDTO, quantity);
 
-        return saveStockItem(stockItemDTO);
+        if (isHot(bookIsbn)) {
+            return updateHotStockItem(stockItem, stockItemDTO, quantity);
+        }
+
+        Integer shardQuantity = getShardQuantities(List.of(bookIsbn)).get(bookIsbn);
+        if (shardQuantity == null && ledgerEnabled) {
+            return updateLedgerStockItem(stockItem, stockItemDTO, quantity);
+        }
+        if (shardQuantity == null) {
+            // the managed entity is flushed under its version, a concurrent change of the row fails the update
+            updateStockItemQuantity(stockItemDTO, quantity);
+            stockItem.setQuantity(stockItemDTO.getQuantity());
+            stockItem.setPrice(stockItemDTO.getPrice());
+            StockItem savedStockItem = warehouseRepository.saveAndFlush(stockItem);
+            invalidatePrice(bookIsbn);
+
+            return savedStockItem.toDTO();
+        }
+
+        // a sharded ISBN keeps its stock in the shards, the warehouse row only carries the price
+        updateVersionedPrice(stockItem, stockItemDTO.getPrice());
+        int addedQuantity = quantity == null ? 0 : Math.max(quantity, -shardQuantity);
+        checkNoShortages(stockShardRepository.withdrawQuantities(Map.of(bookIsbn, -addedQuantity)));
+        stockItemDTO.setQuantity(stockItemDTO.getQuantity() + shardQuantity + addedQuantity);
+
+        return stockItemDTO;
+    }
+
+    @Override
+    public StockItemDTO splitStockItem(String bookIsbn, int shards) {
+        // with sharding off the shards are never read, the split stock would be lost for every sale
+        if (!shardingEnabled) {
+            throw new StockShardingDisabledException(String.format(Messages.STOCK_SHARDING_NOT_ENABLED, bookIsbn));
+        }
+        // the counters keep withdrawing from their own balance and flush it into the row, the shards would count it again
+        if (isHot(bookIsbn)) {
+            throw new HotStockSplitException(String.format(Messages.HOT_STOCK_NOT_SPLITTABLE, bookIsbn));
+        }
+        if (ledgerEnabled) {
+            stockLedgerService.compact(List.of(bookIsbn));
+        }
+        StockItem stockItem = warehouseRepository.findForUpdateByBookIsbn(bookIsbn)
+                .orElseThrow(() -> new EntityNotFoundException(String.format(Messages.BOOK_IN_WAREHOUSE_NOT_FOUND, bookIsbn)));
+        List<StockShard> currentShards = stockShardRepository.findForUpdateByBookIsbn(bookIsbn);
+        int totalQuantity = stockItem.getQuantity() + currentShards.stream().mapToInt(StockShard::getQuantity).sum();
+
+        stockShardRepository.deleteAll(currentShards);
+        if (shards > 1) {
+            stockItem.setQuantity(0);
+            stockShardRepository.saveAll(IntStream.range(0, shards)
+                    .mapToObj(shard -> new StockShard(null, bookIsbn, totalQuantity / shards + (shard < totalQuantity % shards ? 1 : 0)))
+                    .collect(Collectors.toList()));
+        } else {
+            stockItem.setQuantity(totalQuantity);
+        }
+
+        StockItemDTO stockItemDTO = stockItem.toDTO();
+        stockItemDTO.setQuantity(totalQuantity);
+        return stockItemDTO;
     }
 
+    // always a new row: an existing one is only changed through updateStockItem, under its version
     @Override
     public StockItemDTO saveStockItem(StockItemDTO stockItemDTO) {
-        StockItem createdStockItem = warehouseRepository.saveAndFlush(stockItemDTO.toEntity());
+        StockItem stockItem = stockItemDTO.toEntity();
+        stockItem.setId(null);
+        StockItem createdStockItem = warehouseRepository.saveAndFlush(stockItem);
+        invalidatePrice(createdStockItem.getBookIsbn());
+        markInStockChanged(List.of(createdStockItem.getBookIsbn()));
 
         return createdStockItem.toDTO();
     }
 
+    // every batch commits on its own, a broken upload keeps the batches merged before the failure
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockImportResultDTO importStockItems(InputStream body, StockFileFormat format) {
+        StockImportResultDTO result = new StockImportResultDTO();
+        Map<String, StockItem> batch = new LinkedHashMap<>();
+
+        try (StockImportReader reader = new StockImportReader(body, format, objectMapper)) {
+            StockItemDTO stockItemDTO;
+            while ((stockItemDTO = reader.next()) != null) {
+                if (batch.put(stockItemDTO.getBookIsbn(), stockItemDTO.toEntity()) != null) {
+                    // a later line of the same ISBN replaces the earlier one
+                    result.setUpdated(result.getUpdated() + 1);
+                }
+                if (batch.size() == importBatchSize) {
+                    importBatch(batch, result);
+                    batch.clear();
+                }
+            }
+            importBatch(batch, result);
+            result.setRejected(result.getRejected() + reader.getRejected());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+
+    // every chunk commits on its own, so a promotion over a whole publisher never holds all its rows locked at once
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockRepriceResultDTO repriceStockItems(StockRepriceRequest request) {
+        StockRepriceResultDTO result = new StockRepriceResultDTO();
+        String afterIsbn = "";
+
+        List<String> repriced;
+        do {
+            String chunkStart = afterIsbn;
+            repriced = transactionTemplate.execute(status -> {
+                List<String> bookIsbns = warehouseRepository.repriceStockItems(request, chunkStart, repriceChunkSize);
+                invalidatePrices(bookIsbns);
+                return bookIsbns;
+            });
+            if (!repriced.isEmpty()) {
+                afterIsbn = repriced.get(repriced.size() - 1);
+                result.setRepriced(result.getRepriced() + repriced.size());
+                result.setChunks(result.getChunks() + 1);
+            }
+        } while (repriced.size() == repriceChunkSize);
+
+        return result;
+    }
+
+    // one snapshot for the whole export, so a compaction running meanwhile can't make balances drift
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportStockItems(OutputStream body, StockFileFormat format) {
+        try {
+            StockExportWriter writer = new StockExportWriter(body, format, objectMapper);
+            warehouseRepository.streamStockBalances(exportFetchSize, stockItem -> writeStockItem(writer, stockItem));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public StockItemDTO withdrawBookFromStock(String bookIsbn, int quantity) {
-        StockItemDTO stockItemDTO = getStockItemByBookIsbn(bookIsbn);
+        if (isHot(bookIsbn) || ledgerEnabled) {
+            return withdrawBooksFromStock(Map.of(bookIsbn, quantity)).get(0);
+        }
+
+        int updatedRows = warehouseRepository.withdrawQuantity(bookIsbn, quantity);
+        markInStockChanged(List.of(bookIsbn));
 
-        if (!isBookEnoughInWarehouse(stockItemDTO, quantity)) {
+        if (updatedRows == 0 && shardingEnabled) {
+            return withdrawBooksFromStock(Map.of(bookIsbn, quantity)).get(0);
+        }
+        if (updatedRows == 0) {
+            StockItemDTO stockItemDTO = getStockItemByBookIsbn(bookIsbn);
             throw new NotEnoughInStockException(String.format(Messages.QUANTITY_BOOKS_IN_WAREHOUSE_NOT_ENOUGH, stockItemDTO.getBookIsbn()));
         }
 
-        stockItemDTO.setQuantity(stockItemDTO.getQuantity() - quantity);
+        return getStockItemByBookIsbn(bookIsbn);
+    }
+
+    // negative quantities return books to the warehouse, zero quantities are only read (e.g. for the price)
+    @Override
+    public List<StockItemDTO> withdrawBooksFromStock(Map<String, Integer> quantitiesByIsbn) {
+        List<StockItem> stockItems = warehouseRepository.findByBookIsbnIn(quantitiesByIsbn.keySet());
+        checkAllBooksInWarehouse(stockItems.stream()
+                .map(StockItem::getBookIsbn)
+                .collect(Collectors.toSet()), quantitiesByIsbn.keySet());
 
-        return saveStockItem(stockItemDTO);
+        Map<String, Integer> shardQuantities = getShardQuantities(quantitiesByIsbn.keySet());
+        Map<String, Integer> pendingQuantities = getPendingQuantities(quantitiesByIsbn.keySet());
+        List<StockItemDTO> stockItemDTOs = stockItems.stream()
+                .map(stockItem -> toStockItemDTO(stockItem, shardQuantities, pendingQuantities))
+                .collect(Collectors.toList());
+
+        List<String> shortages = stockItemDTOs.stream()
+                .filter(stockItemDTO -> !isBookEnoughInWarehouse(stockItemDTO.getQuantity(), quantitiesByIsbn.get(stockItemDTO.getBookIsbn())))
+                .map(StockItemDTO::getBookIsbn)
+                .collect(Collectors.toList());
+        checkNoShortages(shortages);
+        markInStockChanged(quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> withdrawal.getValue() != 0)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList()));
+
+        // the conditional updates are authoritative: a concurrent order may have taken the stock after the read above
+        Map<String, Integer> hotWithdrawals = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> isHot(withdrawal.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<String, Integer> shardWithdrawals = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> !hotWithdrawals.containsKey(withdrawal.getKey()) && shardQuantities.containsKey(withdrawal.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<String, Integer> rowWithdrawals = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> !hotWithdrawals.containsKey(withdrawal.getKey()) && !shardQuantities.containsKey(withdrawal.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        List<String> failedWithdrawals = ledgerEnabled
+                ? withdrawFromLedger(rowWithdrawals)
+                : warehouseRepository.withdrawQuantities(rowWithdrawals);
+        if (shardingEnabled) {
+            // an ISBN split into shards after the read above has nothing left in its warehouse row
+            failedWithdrawals.forEach(bookIsbn -> shardWithdrawals.put(bookIsbn, quantitiesByIsbn.get(bookIsbn)));
+            failedWithdrawals = shardWithdrawals.isEmpty() ? List.of() : stockShardRepository.withdrawQuantities(shardWithdrawals);
+        }
+        checkNoShortages(failedWithdrawals);
+        if (!hotWithdrawals.isEmpty()) {
+            withdrawHotBooks(hotWithdrawals);
+        }
+
+        stockItemDTOs.forEach(stockItemDTO ->
+                stockItemDTO.setQuantity(stockItemDTO.getQuantity() - quantitiesByIsbn.get(stockItemDTO.getBookIsbn())));
+
+        return stockItemDTOs;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double getBookPrice(String bookIsbn) {
-        StockItemDTO stockItemDTO = getStockItemByBookIsbn(bookIsbn);
-        return stockItemDTO.getPrice();
+        return getBookPrices(Set.of(bookIsbn)).get(bookIsbn);
+    }
+
+    // cached prices are served from memory, all misses are loaded with one query
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Double> getBookPrices(Collection<String> bookIsbns) {
+        Map<String, Double> prices = priceCache.getAll(new HashSet<>(bookIsbns));
+        Set<String> missingIsbns = bookIsbns.stream()
+                .filter(bookIsbn -> !prices.containsKey(bookIsbn))
+                .collect(Collectors.toSet());
+        if (missingIsbns.isEmpty()) {
+            return prices;
+        }
+
+        long readGeneration = priceCache.generation();
+        for (BookPriceView bookPrice : warehouseRepository.findPricesByBookIsbnIn(missingIsbns)) {
+            priceCache.put(bookPrice.getBookIsbn(), bookPrice.getPrice(), readGeneration);
+            prices.put(bookPrice.getBookIsbn(), bookPrice.getPrice());
+        }
+        checkAllBooksInWarehouse(prices.keySet(), missingIsbns);
+
+        return prices;
+    }
+
+    // one query for the whole cart; its prices warm the cache for the order placed from it
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, StockAvailabilityDTO> getStockAvailability(Collection<String> bookIsbns) {
+        Map<String, StockAvailabilityDTO> availability = new LinkedHashMap<>();
+        long readGeneration = priceCache.generation();
+        for (StockItem stockItem : warehouseRepository.findStockBalances(new HashSet<>(bookIsbns))) {
+            priceCache.put(stockItem.getBookIsbn(), stockItem.getPrice(), readGeneration);
+            availability.put(stockItem.getBookIsbn(), new StockAvailabilityDTO(stockItem.getPrice(), getBalance(stockItem)));
+        }
+
+        return availability;
+    }
+
+    @Override
+    public CacheStatsDTO getPriceCacheStats() {
+        BoundedCache.Stats stats = priceCache.getStats();
+
+        return CacheStatsDTO.builder()
+                .hits(stats.getHits())
+                .misses(stats.getMisses())
+                .evictions(stats.getEvictions())
+                .expirations(stats.getExpirations())
+                .size(stats.getSize()).build();
+    }
+
+    private void importBatch(Map<String, StockItem> batch, StockImportResultDTO result) {
+        // hot and sharded ISBNs keep their stock outside the warehouse row, the import can't replace it
+        Map<String, Integer> shardQuantities = getShardQuantities(batch.keySet());
+        List<StockItem> stockItems = batch.values().stream()
+                .filter(stockItem -> !isHot(stockItem.getBookIsbn()) && !shardQuantities.containsKey(stockItem.getBookIsbn()))
+                .collect(Collectors.toList());
+        result.setRejected(result.getRejected() + batch.size() - stockItems.size());
+        if (stockItems.isEmpty()) {
+            return;
+        }
+
+        List<String> bookIsbns = stockItems.stream()
+                .map(StockItem::getBookIsbn)
+                .collect(Collectors.toList());
+        Integer inserted = transactionTemplate.execute(status -> {
+            if (ledgerEnabled) {
+                // the imported quantity replaces the whole balance, so the pending tail is folded in first
+                stockLedgerService.compact(bookIsbns);
+            }
+            int insertedRows = warehouseRepository.upsertStockItems(stockItems);
+            invalidatePrices(bookIsbns);
+            markInStockChanged(bookIsbns);
+            return insertedRows;
+        });
+        result.setInserted(result.getInserted() + inserted);
+        result.setUpdated(result.getUpdated() + stockItems.size() - inserted);
+    }
+
+    private void writeStockItem(StockExportWriter writer, StockItem stockItem) {
+        StockItemDTO stockItemDTO = stockItem.toDTO();
+        stockItemDTO.setQuantity(getBalance(stockItem));
+
+        try {
+            writer.write(stockItemDTO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<StockConflictStatsDTO> getConflictStats(int limit) {
+        return stockItemRetry.getStats(limit).stream()
+                .map(stats -> StockConflictStatsDTO.builder()
+                        .bookIsbn(stats.getKey())
+                        .updates(stats.getAttempts())
+                        .conflicts(stats.getConflicts())
+                        .retries(stats.getRetries())
+                        .failures(stats.getFailures()).build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<String> findInStockIsbns(Collection<String> bookIsbns) {
+        if (inStockSetBuilt) {
+            return inStockSet.retain(bookIsbns);
+        }
+
+        // until the set is built the balances are read from the database, in the caller's transaction
+        Set<String> inStockIsbns = warehouseRepository.findStockBalances(bookIsbns).stream()
+                .filter(stockItem -> getBalance(stockItem) > 0)
+                .map(StockItem::getBookIsbn)
+                .collect(Collectors.toSet());
+        return bookIsbns.stream()
+                .filter(inStockIsbns::contains)
+                .collect(Collectors.toList());
+    }
+
+    private void refreshInStockChunk(List<String> bookIsbns) {
+        List<StockItem> stockItems = warehouseRepository.findByBookIsbnIn(bookIsbns);
+        Map<String, Integer> shardQuantities = getShardQuantities(bookIsbns);
+        Map<String, Integer> pendingQuantities = getPendingQuantities(bookIsbns);
+        Set<String> inStockIsbns = stockItems.stream()
+                .map(stockItem -> toStockItemDTO(stockItem, shardQuantities, pendingQuantities))
+                .filter(stockItemDTO -> stockItemDTO.getQuantity() > 0)
+                .map(StockItemDTO::getBookIsbn)
+                .collect(Collectors.toSet());
+
+        bookIsbns.forEach(bookIsbn -> inStockSet.set(bookIsbn, inStockIsbns.contains(bookIsbn)));
+    }
+
+    // the set only learns about committed balances, a rolled back change leaves nothing to refresh
+    private void markInStockChanged(Collection<String> bookIsbns) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedInStockIsbns.addAll(bookIsbns);
+            return;
+        }
+
+        List<String> changedIsbns = new ArrayList<>(bookIsbns);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedInStockIsbns.addAll(changedIsbns);
+            }
+        });
+    }
+
+    private int getBalance(StockItem stockItem) {
+        return isHot(stockItem.getBookIsbn())
+                ? hotStockService.getQuantity(stockItem.getBookIsbn()).orElse(stockItem.getQuantity())
+                : stockItem.getQuantity();
+    }
+
+    private boolean isHot(String bookIsbn) {
+        return hotStockService != null && hotStockService.isHot(bookIsbn);
+    }
+
+    private void withdrawHotBooks(Map<String, Integer> quantitiesByIsbn) {
+        checkNoShortages(hotStockService.withdraw(quantitiesByIsbn));
+
+        // the counters are not part of the transaction, give the books back if it rolls back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        hotStockService.withdraw(quantitiesByIsbn.entrySet().stream()
+                                .collect(Collectors.toMap(Map.Entry::getKey, withdrawal -> -withdrawal.getValue())));
+                    }
+                }
+            });
+        }
     }
 
-    private boolean isBookEnoughInWarehouse(StockItemDTO stockItemDTO, int quantity) {
-        return stockItemDTO.getQuantity() > quantity;
+    private void invalidatePrice(String bookIsbn) {
+        invalidatePrices(List.of(bookIsbn));
+    }
+
+    // again after commit: a reader may have loaded the old price before this transaction committed
+    private void invalidatePrices(Collection<String> bookIsbns) {
+        bookIsbns.forEach(priceCache::invalidate);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bookIsbns.forEach(priceCache::invalidate);
+                }
+            });
+        }
+    }
+
+    // the quantity lives elsewhere, but the row is still only changed under the version it was read with
+    private void updateVersionedPrice(StockItem stockItem, double price) {
+        if (warehouseRepository.updatePrice(stockItem.getBookIsbn(), price, stockItem.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(StockItem.class, stockItem.getId());
+        }
+        invalidatePrice(stockItem.getBookIsbn());
+    }
+
+    private StockItemDTO updateHotStockItem(StockItem stockItem, StockItemDTO stockItemDTO, Integer quantity) {
+        String bookIsbn = stockItemDTO.getBookIsbn();
+        updateVersionedPrice(stockItem, stockItemDTO.getPrice());
+
+        int addedQuantity = quantity == null ? 0 : Math.max(quantity, -hotStockService.getQuantity(bookIsbn).orElse(stockItemDTO.getQuantity()));
+        withdrawHotBooks(Map.of(bookIsbn, -addedQuantity));
+        stockItemDTO.setQuantity(hotStockService.getQuantity(bookIsbn).orElse(stockItemDTO.getQuantity() + addedQuantity));
+
+        return stockItemDTO;
+    }
+
+    // withdrawals and books coming back are both only appended to the ledger, the warehouse row is left to the compaction
+    private List<String> withdrawFromLedger(Map<String, Integer> quantitiesByIsbn) {
+        Map<String, Integer> returns = quantitiesByIsbn.entrySet().stream()
+                .filter(withdrawal -> withdrawal.getValue() < 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, withdrawal -> -withdrawal.getValue()));
+
+        List<String> shortages = stockLedgerService.withdraw(quantitiesByIsbn, StockMovementType.ORDER_WITHDRAWAL);
+        stockLedgerService.recordMovements(returns, StockMovementType.ORDER_RETURN, false);
+
+        return shortages;
+    }
+
+    private StockItemDTO updateLedgerStockItem(StockItem stockItem, StockItemDTO stockItemDTO, Integer quantity) {
+        String bookIsbn = stockItemDTO.getBookIsbn();
+        updateVersionedPrice(stockItem, stockItemDTO.getPrice());
+
+        int balance = stockItemDTO.getQuantity() + getPendingQuantities(List.of(bookIsbn)).getOrDefault(bookIsbn, 0);
+        int addedQuantity = quantity == null ? 0 : Math.max(quantity, -balance);
+        if (addedQuantity < 0) {
+            // removed books must not be taken by an order at the same time, so they are withdrawn like an order's
+            checkNoShortages(stockLedgerService.withdraw(Map.of(bookIsbn, -addedQuantity), StockMovementType.MANUAL_ADJUSTMENT));
+        } else {
+            stockLedgerService.recordMovements(Map.of(bookIsbn, addedQuantity), StockMovementType.MANUAL_ADJUSTMENT, false);
+        }
+        stockItemDTO.setQuantity(balance + addedQuantity);
+
+        return stockItemDTO;
+    }
+
+    private Map<String, Integer> getPendingQuantities(Collection<String> bookIsbns) {
+        if (!ledgerEnabled || bookIsbns.isEmpty()) {
+            return Map.of();
+        }
+
+        return stockLedgerService.getPendingQuantities(bookIsbns);
+    }
+
+    private Map<String, Integer> getShardQuantities(Collection<String> bookIsbns) {
+        if (!shardingEnabled || bookIsbns.isEmpty()) {
+            return Map.of();
+        }
+
+        return stockShardRepository.sumQuantitiesByBookIsbnIn(bookIsbns).stream()
+                .collect(Collectors.toMap(BookQuantityView::getBookIsbn, shards -> shards.getQuantity().intValue()));
+    }
+
+    private boolean isBookEnoughInWarehouse(int quantityInWarehouse, int quantity) {
+        return quantityInWarehouse >= quantity;
+    }
+
+    private void checkNoShortages(List<String> bookIsbns) {
+        if (!bookIsbns.isEmpty()) {
+            throw new NotEnoughInStockException(bookIsbns.stream()
+                    .map(bookIsbn -> String.format(Messages.QUANTITY_BOOKS_IN_WAREHOUSE_NOT_ENOUGH, bookIsbn))
+                    .collect(Collectors.joining(" ")));
+        }
+    }
+
+    private void checkAllBooksInWarehouse(Set<String> foundIsbns, Set<String> bookIsbns) {
+        List<String> missingBooks = bookIsbns.stream()
+                .filter(bookIsbn -> !foundIsbns.contains(bookIsbn))
+                .map(bookIsbn -> String.format(Messages.BOOK_IN_WAREHOUSE_NOT_FOUND, bookIsbn))
+                .collect(Collectors.toList());
+
+        if (!missingBooks.isEmpty()) {
+            throw new EntityNotFoundException(String.join(" ", missingBooks));
+        }
     }
 
     @Transactional(readOnly = true)
     private StockItemDTO getStockItemByBookIsbn(String bookIsbn) {
 
+        return findStockItemByBookIsbn(bookIsbn).toDTO();
+    }
+
+    private StockItem findStockItemByBookIsbn(String bookIsbn) {
         return warehouseRepository.findByBookIsbn(bookIsbn)
                 .orElseThrow(() ->
-                        new EntityNotFoundException(String.format(Messages.BOOK_IN_WAREHOUSE_NOT_FOUND, bookIsbn)))
-                .toDTO();
+                        new EntityNotFoundException(String.format(Messages.BOOK_IN_WAREHOUSE_NOT_FOUND, bookIsbn)));
     }
 
-    private Page<StockItemDTO> getStockItemDTOList(Page<StockItem> stockItems) {
+    private Slice<StockItemDTO> getStockItemDTOList(Slice<StockItem> stockItems) {
+        List<String> bookIsbns = stockItems.stream()
+                .map(StockItem::getBookIsbn)
+                .collect(Collectors.toList());
+        Map<String, Integer> shardQuantities = getShardQuantities(bookIsbns);
+        Map<String, Integer> pendingQuantities = getPendingQuantities(bookIsbns);
 
-        return new PageImpl<>(stockItems.stream()
-                .map(StockItem::toDTO)
-                .collect(Collectors.toList()));
+        return stockItems.map(stockItem -> toStockItemDTO(stockItem, shardQuantities, pendingQuantities));
+    }
+
+    private StockItemDTO toStockItemDTO(StockItem stockItem, Map<String, Integer> shardQuantities, Map<String, Integer> pendingQuantities) {
+        StockItemDTO stockItemDTO = stockItem.toDTO();
+        stockItemDTO.setQuantity(isHot(stockItem.getBookIsbn())
+                ? hotStockService.getQuantity(stockItem.getBookIsbn()).orElse(stockItemDTO.getQuantity())
+                : stockItemDTO.getQuantity()
+                + shardQuantities.getOrDefault(stockItemDTO.getBookIsbn(), 0)
+                + pendingQuantities.getOrDefault(stockItemDTO.getBookIsbn(), 0));
+
+        return stockItemDTO;
     }
 
     private void updateStockItemQuantity(StockItemDTO stockItemDTO, Integer quantity) {
@@ -0,0 +1,8 @@
+-- Support-desk lookups match any part of a client's surname, phone number or email (LIKE '%...%').
+-- Trigram GIN indexes serve those patterns (3+ characters) without scanning the client table;
+-- PostgreSQL keeps them in sync on every insert, update and delete.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS client_surname_trgm_idx ON client USING gin (surname gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS client_phone_number_trgm_idx ON client USING gin (phone_number gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS client_email_trgm_idx ON client USING gin (email gin_trgm_ops);
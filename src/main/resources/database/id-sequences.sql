@@ -0,0 +1,9 @@
+-- Entity ids are allocated in pools by PooledSequenceGenerator, so every id sequence must advance
+-- by the configured bookstore.id.allocation_size (spring.jpa.properties) in a single nextval call.
+-- Keep the increments below equal to it, PooledSequenceVerifier fails the startup otherwise.
+ALTER SEQUENCE author_id_seq INCREMENT BY 50;
+ALTER SEQUENCE client_id_seq INCREMENT BY 50;
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE publisher_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sold_book_id_seq INCREMENT BY 50;
+ALTER SEQUENCE warehouse_id_seq INCREMENT BY 50;
@@ -0,0 +1,6 @@
+-- Books of a NEW order stay withdrawn until the order is approved or cancelled, or until its hold expires.
+CREATE TABLE IF NOT EXISTS order_hold
+(
+    order_id   BIGINT PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
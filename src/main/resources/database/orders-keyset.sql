@@ -0,0 +1,3 @@
+-- Order searches are sorted and paged by (datetime, id). With this index a page seeks straight past the
+-- cursor's key instead of sorting every matching order.
+CREATE INDEX IF NOT EXISTS orders_datetime_id_idx ON orders (datetime, id);
@@ -0,0 +1,7 @@
+-- Last stock journal record written to the warehouse table by the hot stock flusher
+-- (bookstore.warehouse.hot-stock), stored in the same transaction as the quantities.
+CREATE TABLE IF NOT EXISTS stock_journal_checkpoint
+(
+    journal  VARCHAR(100) PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Append-only ledger of stock changes (bookstore.warehouse.ledger). Pending movements (applied = false)
+-- are folded into the warehouse quantities by the compaction job; until then they are added to the balance.
+CREATE SEQUENCE IF NOT EXISTS stock_movement_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS stock_movement
+(
+    id         BIGINT PRIMARY KEY DEFAULT nextval('stock_movement_id_seq'),
+    book_isbn  VARCHAR(50) NOT NULL,
+    quantity   INTEGER     NOT NULL,
+    type       VARCHAR(30) NOT NULL,
+    applied    BOOLEAN     NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS stock_movement_pending_idx ON stock_movement (book_isbn, id) WHERE NOT applied;
@@ -0,0 +1,3 @@
+-- One warehouse row per ISBN: findByBookIsbn expects a single row, and the stock import merges
+-- rows with INSERT ... ON CONFLICT (book_isbn), which needs a unique index to conflict on.
+CREATE UNIQUE INDEX IF NOT EXISTS warehouse_book_isbn_key ON warehouse (book_isbn);
@@ -0,0 +1,12 @@
+-- Stock of a hot ISBN can be split into several counters (PUT /api/v1/warehouse/{isbn}/shards), the
+-- warehouse row then keeps only the price. Used when bookstore.warehouse.sharding.enabled is true.
+CREATE SEQUENCE IF NOT EXISTS warehouse_shard_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS warehouse_shard
+(
+    id        BIGINT PRIMARY KEY DEFAULT nextval('warehouse_shard_id_seq'),
+    book_isbn VARCHAR(50) NOT NULL,
+    quantity  INTEGER     NOT NULL CHECK (quantity >= 0)
+);
+
+CREATE INDEX IF NOT EXISTS warehouse_shard_book_isbn_idx ON warehouse_shard (book_isbn);
@@ -0,0 +1,3 @@
+-- Optimistic locking of StockItem (@Version). Every statement that changes a warehouse row,
+-- including the JDBC batches, bumps the version so that a stale entity can't overwrite it.
+ALTER TABLE warehouse ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
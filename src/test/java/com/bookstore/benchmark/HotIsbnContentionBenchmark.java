@@ -0,0 +1,94 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.entity.StockItem;
+import com.bookstore.exception.NotEnoughInStockException;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.StockShardRepository;
+import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.service.WarehouseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures withdrawals per second of a single hot ISBN under 64 concurrent writers, with the stock
+ * kept in the warehouse row (1 shard) and split into several shards.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest(properties = {"bookstore.warehouse.sharding.enabled=true", "spring.datasource.hikari.maximum-pool-size=70"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class HotIsbnContentionBenchmark extends AbstractIT {
+
+    private static final String BOOK_ISBN = "978-000-000-000-2";
+    private static final int WRITERS = 64;
+    private static final int WITHDRAWALS_PER_WRITER = 200;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockShardRepository stockShardRepository;
+
+    @BeforeEach
+    public void setup() {
+        warehouseRepository.saveAndFlush(new StockItem(null, BOOK_ISBN, 25.3, WRITERS * WITHDRAWALS_PER_WRITER * 2));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        stockShardRepository.deleteAll(stockShardRepository.findAll());
+        warehouseRepository.findByBookIsbn(BOOK_ISBN).ifPresent(warehouseRepository::delete);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 16, 64})
+    public void withdrawHotIsbn(int shards) throws Exception {
+        warehouseService.splitStockItem(BOOK_ISBN, shards);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                int rejected = 0;
+                for (int j = 0; j < WITHDRAWALS_PER_WRITER; j++) {
+                    try {
+                        warehouseService.withdrawBooksFromStock(Map.of(BOOK_ISBN, 1));
+                    } catch (NotEnoughInStockException e) {
+                        rejected++;
+                    }
+                }
+                return rejected;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int rejected = 0;
+        for (Future<Integer> writer : writers) {
+            rejected += writer.get(10, TimeUnit.MINUTES);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("%d shard(s), %d writers: %.0f withdrawals/s, %d rejected%n", shards, WRITERS,
+                WRITERS * WITHDRAWALS_PER_WRITER / seconds, rejected);
+    }
+}
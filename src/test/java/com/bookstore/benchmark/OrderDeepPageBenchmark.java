@@ -0,0 +1,109 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.common.PageCursor;
+import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.entity.Client;
+import com.bookstore.entity.enums.CountMode;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.ClientRepository;
+import com.bookstore.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Measures the latency of reading page N of the orders with an offset and with the cursor of page N-1.
+ * Both reads skip the total count, which costs the same for every page and would hide the difference.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OrderDeepPageBenchmark extends AbstractIT {
+
+    private static final int LIMIT = 20;
+    private static final int ORDERS = 10_000 * LIMIT;
+    private static final int RUNS = 21;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client client;
+
+    @BeforeEach
+    public void setup() {
+        client = clientRepository.saveAndFlush(new Client(null, "Bench", "Mark", "+38(067)-55-55-555",
+                "bench.mark." + System.nanoTime() + "@gmail.com", "Ternopil, vyl Tekstylna 12"));
+        jdbcTemplate.update("INSERT INTO orders (id, client_id, status, datetime) " +
+                "SELECT nextval('orders_id_seq'), ?, 'NEW', timestamp '2022-01-01' + g * interval '1 second' " +
+                "FROM generate_series(1, ?) g", client.getId(), ORDERS);
+        jdbcTemplate.execute("ANALYZE orders");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM orders WHERE client_id = ?", client.getId());
+        clientRepository.delete(client);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1_000, 10_000})
+    public void readPage(int pageNumber) {
+        OrderSearchRequest offsetRequest = new OrderSearchRequest();
+        offsetRequest.setClientId(client.getId());
+        offsetRequest.setPage(pageNumber - 1);
+        offsetRequest.setLimit(LIMIT);
+        offsetRequest.setCount(CountMode.NONE);
+
+        OrderSearchRequest cursorRequest = new OrderSearchRequest();
+        cursorRequest.setClientId(client.getId());
+        cursorRequest.setLimit(LIMIT);
+        cursorRequest.setCount(CountMode.NONE);
+        cursorRequest.setCursor(cursorBefore(pageNumber));
+
+        double offsetMillis = medianMillis(() -> orderService.searchOrders(offsetRequest));
+        double cursorMillis = medianMillis(() -> orderService.searchOrders(cursorRequest));
+
+        System.out.printf("page %d of %d orders: offset %.2f ms, cursor %.2f ms%n", pageNumber, ORDERS,
+                offsetMillis, cursorMillis);
+    }
+
+    // the cursor a client gets with page N-1, the first page starts after the earliest possible key
+    private String cursorBefore(int pageNumber) {
+        if (pageNumber == 1) {
+            return PageCursor.encode(Instant.EPOCH, 0L);
+        }
+        return jdbcTemplate.queryForObject("SELECT datetime, id FROM orders WHERE client_id = ? " +
+                        "ORDER BY datetime, id OFFSET ? LIMIT 1",
+                (rs, rowNum) -> PageCursor.encode(rs.getTimestamp("datetime").toInstant(), rs.getLong("id")),
+                client.getId(), (pageNumber - 1) * LIMIT - 1);
+    }
+
+    private double medianMillis(Supplier<?> search) {
+        search.get();
+
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            search.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        return nanos[RUNS / 2] / 1e6;
+    }
+}
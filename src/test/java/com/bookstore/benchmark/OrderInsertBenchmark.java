@@ -0,0 +1,92 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.entity.Client;
+import com.bookstore.entity.Order;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.ClientRepository;
+import com.bookstore.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures order inserts per second for different order sizes.
+ * Run with {@code -Dbenchmark=true}; compare against a checkout that still uses IDENTITY ids.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OrderInsertBenchmark extends AbstractIT {
+
+    private static final int WARMUP_ORDERS = 200;
+    private static final int MEASURED_ORDERS = 2_000;
+    private static final int ORDERS_PER_TRANSACTION = 20;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Client client;
+
+    @BeforeEach
+    public void setup() {
+        client = clientRepository.saveAndFlush(new Client(null, "Bench", "Mark", "+38(067)-55-55-555",
+                "bench.mark." + System.nanoTime() + "@gmail.com", "Ternopil, vyl Tekstylna 12"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    public void insertOrders(int linesPerOrder) {
+        insert(WARMUP_ORDERS, linesPerOrder);
+
+        long start = System.nanoTime();
+        insert(MEASURED_ORDERS, linesPerOrder);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d lines/order: %.0f orders/s, %.0f rows/s%n", linesPerOrder,
+                MEASURED_ORDERS / seconds, MEASURED_ORDERS * (linesPerOrder + 1) / seconds);
+    }
+
+    private void insert(int orders, int linesPerOrder) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (int saved = 0; saved < orders; saved += ORDERS_PER_TRANSACTION) {
+            transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(
+                    IntStream.range(0, ORDERS_PER_TRANSACTION)
+                            .mapToObj(i -> createOrder(linesPerOrder))
+                            .collect(Collectors.toList())));
+        }
+    }
+
+    private Order createOrder(int lines) {
+        Order order = Order.builder()
+                .client(client)
+                .status(OrderStatus.NEW)
+                .datetime(Instant.now()).build();
+
+        List<SoldItem> books = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            books.add(new SoldItem(null, "978-617-679-" + i, order, 25.3, 1));
+        }
+        order.setBooks(books);
+
+        return order;
+    }
+}
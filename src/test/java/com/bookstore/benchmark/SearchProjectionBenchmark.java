@@ -0,0 +1,221 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.request.BookSearchRequest;
+import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.entity.Book;
+import com.bookstore.entity.Order;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.specification.BookSpecifications;
+import com.bookstore.repository.specification.OrderSpecifications;
+import com.bookstore.service.BookService;
+import com.bookstore.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Compares a page of book and order search results read as entities (with their eager associations)
+ * and through the search projections: statements run, rows and bytes of column data read.
+ * Bytes are the {@code pg_column_size} of the rows each path selects. Fails if the projections don't
+ * run fewer statements or read fewer rows than the entities, the numbers themselves are only printed.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SearchProjectionBenchmark extends AbstractIT {
+
+    private static final int BOOKS = 2_000;
+    private static final int AUTHORS_PER_BOOK = 3;
+    private static final int ORDERS = 2_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int LIMIT = 20;
+
+    private static final String BOOK_ENTITY_BYTES_SQL = "SELECT " +
+            "(SELECT sum(pg_column_size(b.*)) FROM book b WHERE b.isbn IN (:isbns)) + " +
+            "(SELECT sum(pg_column_size(p.*)) FROM publisher p WHERE p.id IN " +
+            "(SELECT b.publisher_id FROM book b WHERE b.isbn IN (:isbns))) + " +
+            "(SELECT sum(pg_column_size(ba.*) + pg_column_size(a.*)) FROM book_authors ba " +
+            "JOIN author a ON a.id = ba.author_id WHERE ba.book_isbn IN (:isbns))";
+    private static final String BOOK_VIEW_BYTES_SQL = "SELECT sum(pg_column_size(ROW(b.isbn, b.title, b.genre, " +
+            "p.id, p.title, p.country))) FROM book b LEFT JOIN publisher p ON p.id = b.publisher_id WHERE b.isbn IN (:isbns)";
+    private static final String BOOK_ENTITY_ROWS_SQL = "SELECT " +
+            "(SELECT count(*) FROM book b WHERE b.isbn IN (:isbns)) + " +
+            "(SELECT count(DISTINCT b.publisher_id) FROM book b WHERE b.isbn IN (:isbns)) + " +
+            "(SELECT count(*) FROM book_authors ba WHERE ba.book_isbn IN (:isbns))";
+
+    // the sold items of an order are loaded joined with their eager order and its client
+    private static final String ORDER_ENTITY_BYTES_SQL = "SELECT " +
+            "(SELECT sum(pg_column_size(o.*)) FROM orders o WHERE o.id IN (:ids)) + " +
+            "(SELECT sum(pg_column_size(c.*)) FROM client c WHERE c.id IN " +
+            "(SELECT o.client_id FROM orders o WHERE o.id IN (:ids))) + " +
+            "(SELECT sum(pg_column_size(s.*) + pg_column_size(o.*) + pg_column_size(c.*)) FROM sold_book s " +
+            "JOIN orders o ON o.id = s.order_id LEFT JOIN client c ON c.id = o.client_id WHERE s.order_id IN (:ids))";
+    private static final String ORDER_VIEW_BYTES_SQL = "SELECT " +
+            "(SELECT sum(pg_column_size(ROW(o.id, o.status, o.datetime, c.id, c.name, c.surname, c.phone_number, " +
+            "c.email, c.address))) FROM orders o LEFT JOIN client c ON c.id = o.client_id WHERE o.id IN (:ids)) + " +
+            "(SELECT sum(pg_column_size(ROW(s.order_id, s.id, s.book_isbn, s.price, s.quantity))) FROM sold_book s " +
+            "WHERE s.order_id IN (:ids))";
+    private static final String ORDER_ENTITY_ROWS_SQL = "SELECT " +
+            "(SELECT count(*) FROM orders o WHERE o.id IN (:ids)) + " +
+            "(SELECT count(DISTINCT o.client_id) FROM orders o WHERE o.id IN (:ids)) + " +
+            "(SELECT count(*) FROM sold_book s WHERE s.order_id IN (:ids))";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long publisherId;
+    private Long clientId;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        publisherId = jdbcTemplate.queryForObject("INSERT INTO publisher (id, title, country) " +
+                "VALUES (nextval('publisher_id_seq'), 'Bench', 'UA') RETURNING id", Long.class);
+        clientId = jdbcTemplate.queryForObject("INSERT INTO client (id, name, surname, phone_number, email, address) " +
+                "VALUES (nextval('client_id_seq'), 'Bench', 'Mark', '+38(067)-55-55-555', ?, 'Ternopil, vyl Tekstylna 12') " +
+                "RETURNING id", Long.class, "bench.mark." + System.nanoTime() + "@gmail.com");
+
+        jdbcTemplate.update("INSERT INTO author (id, name, surname, country) " +
+                "SELECT nextval('author_id_seq'), 'Bench', 'Author ' || g, 'UA' FROM generate_series(1, ?) g", BOOKS);
+        jdbcTemplate.update("INSERT INTO book (isbn, title, publisher_id, genre) " +
+                "SELECT 'bench-' || lpad(g::text, 8, '0'), 'Bench book ' || g, ?, 'HORROR' " +
+                "FROM generate_series(1, ?) g", publisherId, BOOKS);
+        jdbcTemplate.update("INSERT INTO book_authors (book_isbn, author_id) " +
+                "SELECT 'bench-' || lpad(g::text, 8, '0'), a.id FROM generate_series(1, ?) g " +
+                "CROSS JOIN generate_series(1, ?) k " +
+                "JOIN author a ON a.name = 'Bench' AND a.surname = 'Author ' || ((g + k) % ? + 1)",
+                BOOKS, AUTHORS_PER_BOOK, BOOKS);
+
+        jdbcTemplate.update("INSERT INTO orders (id, client_id, status, datetime) " +
+                "SELECT nextval('orders_id_seq'), ?, 'NEW', timestamp '2022-01-01' + g * interval '1 second' " +
+                "FROM generate_series(1, ?) g", clientId, ORDERS);
+        jdbcTemplate.update("INSERT INTO sold_book (id, book_isbn, order_id, price, quantity) " +
+                "SELECT nextval('sold_book_id_seq'), 'bench-' || lpad(i::text, 8, '0'), o.id, 25.3, 1 " +
+                "FROM orders o CROSS JOIN generate_series(1, ?) i WHERE o.client_id = ?", ITEMS_PER_ORDER, clientId);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM sold_book WHERE order_id IN (SELECT id FROM orders WHERE client_id = ?)", clientId);
+        jdbcTemplate.update("DELETE FROM orders WHERE client_id = ?", clientId);
+        jdbcTemplate.update("DELETE FROM book_authors WHERE book_isbn LIKE 'bench-%'");
+        jdbcTemplate.update("DELETE FROM book WHERE publisher_id = ?", publisherId);
+        jdbcTemplate.update("DELETE FROM author WHERE name = 'Bench' AND surname LIKE 'Author %'");
+        jdbcTemplate.update("DELETE FROM client WHERE id = ?", clientId);
+        jdbcTemplate.update("DELETE FROM publisher WHERE id = ?", publisherId);
+    }
+
+    @Test
+    public void searchBook() {
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setPublisherId(publisherId);
+        searchRequest.setLimit(LIMIT);
+
+        long entityStatements = statements(() -> inReadOnlyTransaction(() ->
+                bookRepository.findAll(BookSpecifications.generateQuery(searchRequest),
+                        BookSpecifications.KEYSET.getPageRequest(searchRequest)).map(Book::toDTO)));
+        long viewStatements = statements(() -> bookService.searchBook(searchRequest));
+        // both count the total the same way, the difference is in reading the page
+        List<String> isbns = bookService.searchBook(searchRequest).getContent().stream()
+                .map(BookDTO::getIsbn)
+                .collect(Collectors.toList());
+        MapSqlParameterSource page = new MapSqlParameterSource("isbns", isbns);
+
+        report("book", isbns.size(), entityStatements, viewStatements,
+                queryForLong(BOOK_ENTITY_ROWS_SQL, page), isbns.size(),
+                queryForLong(BOOK_ENTITY_BYTES_SQL, page), queryForLong(BOOK_VIEW_BYTES_SQL, page));
+    }
+
+    @Test
+    public void searchOrders() {
+        OrderSearchRequest searchRequest = new OrderSearchRequest();
+        searchRequest.setClientId(clientId);
+        searchRequest.setLimit(LIMIT);
+
+        long entityStatements = statements(() -> inReadOnlyTransaction(() ->
+                orderRepository.findAll(OrderSpecifications.generateQuery(searchRequest),
+                        OrderSpecifications.KEYSET.getPageRequest(searchRequest)).map(Order::toDTO)));
+        long viewStatements = statements(() -> orderService.searchOrders(searchRequest));
+        List<OrderDTO> orders = orderService.searchOrders(searchRequest).getContent();
+        MapSqlParameterSource page = new MapSqlParameterSource("ids", orders.stream()
+                .map(OrderDTO::getId)
+                .collect(Collectors.toList()));
+        long viewRows = orders.size() + orders.stream().mapToLong(order -> order.getBooks().size()).sum();
+
+        report("order", orders.size(), entityStatements, viewStatements,
+                queryForLong(ORDER_ENTITY_ROWS_SQL, page), viewRows,
+                queryForLong(ORDER_ENTITY_BYTES_SQL, page), queryForLong(ORDER_VIEW_BYTES_SQL, page));
+    }
+
+    private long statements(Supplier<?> search) {
+        statistics.clear();
+        search.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private <T> T inReadOnlyTransaction(Supplier<T> read) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> read.get());
+    }
+
+    private long queryForLong(String sql, MapSqlParameterSource parameters) {
+        return namedParameterJdbcTemplate.queryForObject(sql, parameters, Long.class);
+    }
+
+    private void report(String entity, int pageSize, long entityStatements, long viewStatements,
+                        long entityRows, long viewRows, long entityBytes, long viewBytes) {
+        System.out.printf("%s page of %d: entities %d statements, %d rows, %d bytes; " +
+                        "projection %d statements, %d rows, %d bytes%n", entity, pageSize,
+                entityStatements, entityRows, entityBytes, viewStatements, viewRows, viewBytes);
+        assertThat(viewStatements, lessThan(entityStatements));
+        assertThat(viewRows, lessThan(entityRows));
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookstore.integration.service;
+
+import com.bookstore.controller.dto.ClientDTO;
+import com.bookstore.controller.request.ClientSearchRequest;
+import com.bookstore.entity.Client;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.ClientRepository;
+import com.bookstore.service.ClientService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class ClientSearchIntegrationTests extends AbstractIT {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private List<Client> clients;
+
+    @BeforeEach
+    public void setup() {
+        clients = clientRepository.saveAllAndFlush(List.of(
+                new Client(null, "Yura", "Yush%ko", "+38(096)-37-44-555", "yura_tyt@gmail.com", "Ternopil, Bmyty 12/2"),
+                new Client(null, "Sasha", "Yushchenko", "+38(071)-75-26-404", "yuraxtyt@gmail.com", "Ternopil, Terstylna 12/1")));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        clientRepository.deleteAll(clients);
+    }
+
+    @Test
+    public void givenUnderscoreInEmail_whenSearchClient_thenMatchOnlyLiteralUnderscore() {
+        //given
+        ClientSearchRequest searchRequest = new ClientSearchRequest();
+        searchRequest.setEmail("a_t");
+
+        //when
+        List<String> emails = searchEmails(searchRequest);
+
+        //then
+        assertThat(emails, equalTo(List.of("yura_tyt@gmail.com")));
+    }
+
+    @Test
+    public void givenPercentInSurname_whenSearchClient_thenMatchOnlyLiteralPercent() {
+        //given
+        ClientSearchRequest searchRequest = new ClientSearchRequest();
+        searchRequest.setSurname("h%k");
+
+        //when
+        List<String> emails = searchEmails(searchRequest);
+
+        //then
+        assertThat(emails, equalTo(List.of("yura_tyt@gmail.com")));
+    }
+
+    private List<String> searchEmails(ClientSearchRequest searchRequest) {
+        return clientService.searchClient(searchRequest).getContent().stream()
+                .map(ClientDTO::getEmail)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,144 @@
+package com.bookstore.integration.service;
+
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.entity.Client;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.StockItem;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.ClientRepository;
+import com.bookstore.repository.OrderHoldRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.StockMovementRepository;
+import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.service.OrderService;
+import com.bookstore.service.StockLedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+public class OrderConcurrencyIntegrationTests extends AbstractIT {
+
+    private static final List<String> BOOK_ISBNS = IntStream.rangeClosed(1, 8)
+            .mapToObj(i -> String.format("978-000-000-001-%d", i))
+            .collect(Collectors.toList());
+    private static final int INITIAL_QUANTITY = 100_000;
+    private static final int CONCURRENT_CLIENTS = 32;
+    private static final int ORDERS = 2_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderHoldRepository orderHoldRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Client client;
+
+    @BeforeEach
+    public void setup() {
+        client = clientRepository.saveAndFlush(new Client(null, "Yura", "Yush", "+38(067)-55-55-555",
+                "yura.yush@gmail.com", "Ternopil, vyl Tekstylna 12"));
+        BOOK_ISBNS.forEach(bookIsbn ->
+                warehouseRepository.saveAndFlush(new StockItem(null, bookIsbn, 25.3, INITIAL_QUANTITY)));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        orderHoldRepository.deleteAllInBatch();
+        orderRepository.deleteAll(orderRepository.findAll());
+        stockMovementRepository.deleteAllInBatch();
+        BOOK_ISBNS.forEach(bookIsbn -> warehouseRepository.findByBookIsbn(bookIsbn).ifPresent(warehouseRepository::delete));
+        clientRepository.delete(client);
+    }
+
+    @Test
+    public void givenOverlappingMultiItemOrders_whenSaveOrder_thenNoConcurrencyFailureReachesClient() throws Exception {
+        //given
+        Map<String, AtomicInteger> ordered = new ConcurrentHashMap<>();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CLIENTS);
+
+        //when
+        List<Future<?>> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(executor.submit(() -> {
+                start.await();
+                OrderDTO order = randomOrder();
+                try {
+                    orderService.saveOrder(order);
+                    order.getBooks().forEach(soldItem -> ordered
+                            .computeIfAbsent(soldItem.getBookIsbn(), isbn -> new AtomicInteger())
+                            .addAndGet(soldItem.getQuantity()));
+                } catch (ConcurrencyFailureException e) {
+                    failures.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> placedOrder : orders) {
+            placedOrder.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        //then
+        stockLedgerService.compact(BOOK_ISBNS);
+        assertThat(failures.get(), equalTo(0));
+        for (String bookIsbn : BOOK_ISBNS) {
+            int withdrawn = ordered.getOrDefault(bookIsbn, new AtomicInteger()).get();
+            assertThat(warehouseRepository.findByBookIsbn(bookIsbn).get().getQuantity(),
+                    equalTo(INITIAL_QUANTITY - withdrawn));
+        }
+    }
+
+    // a shuffled subset of the books, so concurrent orders touch the same rows in opposite orders
+    private OrderDTO randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> bookIsbns = new ArrayList<>(BOOK_ISBNS);
+        Collections.shuffle(bookIsbns, random);
+
+        List<SoldItem> books = bookIsbns.subList(0, random.nextInt(2, bookIsbns.size() + 1)).stream()
+                .map(bookIsbn -> new SoldItem(null, bookIsbn, null, 0, random.nextInt(1, 4)))
+                .collect(Collectors.toList());
+        return OrderDTO.builder()
+                .books(books)
+                .client(client).build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.bookstore.integration.service;
+
+import com.bookstore.entity.StockItem;
+import com.bookstore.exception.NotEnoughInStockException;
+import com.bookstore.integration.AbstractIT;
+import com.bookstore.repository.StockShardRepository;
+import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.repository.projection.BookQuantityView;
+import com.bookstore.service.WarehouseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = "bookstore.warehouse.sharding.enabled=true")
+public class WarehouseConcurrencyIntegrationTests extends AbstractIT {
+
+    private static final String BOOK_ISBN = "978-000-000-000-1";
+    private static final int INITIAL_QUANTITY = 50;
+    private static final int CONCURRENT_ORDERS = 200;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockShardRepository stockShardRepository;
+
+    @BeforeEach
+    public void setup() {
+        warehouseRepository.saveAndFlush(new StockItem(null, BOOK_ISBN, 25.3, INITIAL_QUANTITY));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        stockShardRepository.deleteAll(stockShardRepository.findAll());
+        warehouseRepository.findByBookIsbn(BOOK_ISBN).ifPresent(warehouseRepository::delete);
+    }
+
+    @Test
+    public void givenConcurrentOrders_whenWithdrawBooksFromStock_thenNeverOversell() throws Exception {
+        assertNoOversell(() -> warehouseService.withdrawBooksFromStock(Map.of(BOOK_ISBN, 1)));
+    }
+
+    @Test
+    public void givenConcurrentOrders_whenWithdrawBookFromStock_thenNeverOversell() throws Exception {
+        assertNoOversell(() -> warehouseService.withdrawBookFromStock(BOOK_ISBN, 1));
+    }
+
+    @Test
+    public void givenShardedBookAndConcurrentOrders_whenWithdrawBooksFromStock_thenNeverOversell() throws Exception {
+        warehouseService.splitStockItem(BOOK_ISBN, 8);
+
+        assertNoOversell(() -> warehouseService.withdrawBooksFromStock(Map.of(BOOK_ISBN, 1)));
+        assertThat(stockShardRepository.sumQuantitiesByBookIsbnIn(List.of(BOOK_ISBN)).stream()
+                .mapToLong(BookQuantityView::getQuantity).sum(), equalTo(0L));
+    }
+
+    private void assertNoOversell(Runnable order) throws Exception {
+        //given
+        AtomicInteger withdrawn = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_ORDERS);
+
+        //when
+        List<Future<?>> orders = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_ORDERS; i++) {
+            orders.add(executor.submit(() -> {
+                start.await();
+                try {
+                    order.run();
+                    withdrawn.incrementAndGet();
+                } catch (NotEnoughInStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> placedOrder : orders) {
+            placedOrder.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        //then
+        StockItem stockItem = warehouseRepository.findByBookIsbn(BOOK_ISBN).get();
+        assertThat(withdrawn.get(), equalTo(INITIAL_QUANTITY));
+        assertThat(rejected.get(), equalTo(CONCURRENT_ORDERS - INITIAL_QUANTITY));
+        assertThat(stockItem.getQuantity(), equalTo(0));
+    }
+}
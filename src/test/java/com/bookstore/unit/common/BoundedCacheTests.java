@@ -0,0 +1,77 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.BoundedCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BoundedCacheTests {
+
+    @Test
+    public void givenMoreEntriesThanMaxSize_whenPut_thenEvictAndCountEvictions() {
+        //given
+        BoundedCache<Integer, String> cache = new BoundedCache<>(16, Duration.ofMinutes(5));
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "value-" + i);
+        }
+
+        //then
+        BoundedCache.Stats stats = cache.getStats();
+        assertThat(stats.getSize(), lessThanOrEqualTo(16));
+        assertThat(stats.getEvictions(), equalTo(100L - stats.getSize()));
+    }
+
+    @Test
+    public void givenExpiredEntry_whenGet_thenMissAndCountExpiration() throws InterruptedException {
+        //given
+        BoundedCache<String, Double> cache = new BoundedCache<>(100, Duration.ofMillis(1));
+        cache.put("978-617-679-145-4", 25.3);
+        Thread.sleep(10);
+
+        //when
+        Double price = cache.get("978-617-679-145-4");
+
+        //then
+        assertThat(price, nullValue());
+        assertThat(cache.getStats().getExpirations(), equalTo(1L));
+        assertThat(cache.getStats().getMisses(), equalTo(1L));
+    }
+
+    @Test
+    public void givenCachedAndMissingKeys_whenGetAll_thenReturnCachedOnlyAndCountHitsAndMisses() {
+        //given
+        BoundedCache<String, Double> cache = new BoundedCache<>(100, Duration.ofMinutes(5));
+        cache.put("978-617-679-145-4", 25.3);
+
+        //when
+        Map<String, Double> prices = cache.getAll(List.of("978-617-679-145-4", "978-617-8024-01-7"));
+
+        //then
+        assertThat(prices, equalTo(Map.of("978-617-679-145-4", 25.3)));
+        assertThat(cache.getStats().getHits(), equalTo(1L));
+        assertThat(cache.getStats().getMisses(), equalTo(1L));
+    }
+
+    @Test
+    public void givenInvalidationDuringLoad_whenPutWithReadGeneration_thenValueNotCached() {
+        //given
+        BoundedCache<String, Double> cache = new BoundedCache<>(100, Duration.ofMinutes(5));
+        long readGeneration = cache.generation();
+        cache.invalidate("978-617-679-145-4");
+
+        //when
+        cache.put("978-617-679-145-4", 25.3, readGeneration);
+
+        //then
+        assertThat(cache.get("978-617-679-145-4"), nullValue());
+    }
+}
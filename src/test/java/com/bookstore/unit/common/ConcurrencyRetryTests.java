@@ -0,0 +1,57 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.ConcurrencyRetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConcurrencyRetryTests {
+
+    private static final String BOOK_ISBN_1 = "978-617-679-145-4";
+    private static final String BOOK_ISBN_2 = "978-617-8024-01-7";
+
+    private final ConcurrencyRetry retry = new ConcurrencyRetry(3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @Test
+    public void givenTwoConflicts_whenExecute_thenRetryUntilSuccessAndCountThem() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+
+        //when
+        String result = retry.execute(BOOK_ISBN_1, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, BOOK_ISBN_1);
+            }
+            return "updated";
+        });
+
+        //then
+        ConcurrencyRetry.Stats stats = retry.getStats(10).get(0);
+        assertThat(result, equalTo("updated"));
+        assertThat(List.of(stats.getAttempts(), stats.getConflicts(), stats.getRetries(), stats.getFailures()), equalTo(List.of(3L, 2L, 2L, 0L)));
+    }
+
+    @Test
+    public void givenPersistentConflict_whenExecute_thenRethrowAfterMaxAttempts() {
+        //given
+        retry.execute(BOOK_ISBN_2, () -> "updated");
+
+        //when
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.execute(BOOK_ISBN_1, () -> {
+            throw new ObjectOptimisticLockingFailureException(Object.class, BOOK_ISBN_1);
+        }));
+
+        //then
+        List<ConcurrencyRetry.Stats> stats = retry.getStats(10);
+        assertThat(stats.get(0).getKey(), equalTo(BOOK_ISBN_1));
+        assertThat(List.of(stats.get(0).getConflicts(), stats.get(0).getRetries(), stats.get(0).getFailures()), equalTo(List.of(3L, 2L, 1L)));
+        assertThat(stats.get(1).getConflicts(), equalTo(0L));
+    }
+}
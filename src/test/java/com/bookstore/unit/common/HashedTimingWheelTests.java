@@ -0,0 +1,73 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.HashedTimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HashedTimingWheelTests {
+
+    private static final Instant START = Instant.parse("2022-03-03T00:00:00Z");
+
+    private HashedTimingWheel<Long> wheel;
+
+    @BeforeEach
+    public void setup() {
+        wheel = new HashedTimingWheel<>(Duration.ofSeconds(1), 8, START);
+    }
+
+    @Test
+    public void givenDeadlineAfterSeveralRotations_whenAdvance_thenExpireOnlyAtDeadline() {
+        //given
+        wheel.schedule(1L, START.plusSeconds(3));
+        wheel.schedule(2L, START.plusSeconds(19));
+
+        //when
+        List<Long> expiredFirst = wheel.advance(START.plusSeconds(3));
+        List<Long> expiredBeforeDeadline = wheel.advance(START.plusSeconds(18));
+        List<Long> expiredAtDeadline = wheel.advance(START.plusSeconds(19));
+
+        //then
+        assertThat(expiredFirst, equalTo(List.of(1L)));
+        assertThat(expiredBeforeDeadline, empty());
+        assertThat(expiredAtDeadline, equalTo(List.of(2L)));
+        assertThat(wheel.size(), equalTo(0));
+    }
+
+    @Test
+    public void givenCancelledItem_whenAdvance_thenNotExpired() {
+        //given
+        wheel.schedule(1L, START.plusSeconds(2));
+        wheel.schedule(2L, START.plusSeconds(2));
+        wheel.cancel(1L);
+
+        //when
+        List<Long> expired = wheel.advance(START.plusSeconds(5));
+
+        //then
+        assertThat(expired, equalTo(List.of(2L)));
+    }
+
+    @Test
+    public void givenLongPause_whenAdvance_thenExpireEverythingDueInOneRotation() {
+        //given
+        wheel.schedule(1L, START.plusSeconds(1));
+        wheel.schedule(2L, START.plusSeconds(30));
+        wheel.schedule(3L, START.plusSeconds(1000));
+
+        //when
+        List<Long> expired = wheel.advance(START.plusSeconds(100));
+
+        //then
+        assertThat(expired, containsInAnyOrder(1L, 2L));
+        assertThat(wheel.size(), equalTo(1));
+    }
+}
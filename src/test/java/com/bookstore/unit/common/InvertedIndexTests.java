@@ -0,0 +1,59 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.InvertedIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class InvertedIndexTests {
+
+    @Test
+    public void givenMixedCaseAccentedText_whenTokenize_thenFoldCaseAndAccents() {
+        //when
+        List<String> words = InvertedIndex.tokenize("Le Petit Café, VOL.2");
+
+        //then
+        assertThat(words, equalTo(List.of("le", "petit", "cafe", "vol", "2")));
+    }
+
+    @Test
+    public void givenIndexedDocuments_whenSearch_thenMatchAllWordsByPrefixAndRankByWeight() {
+        //given
+        InvertedIndex index = new InvertedIndex();
+        index.put("978-617-679-145-4", Map.of("art", 2, "of", 2, "war", 2));
+        index.put("978-617-8024-01-7", Map.of("war", 2, "and", 2, "peace", 2));
+        index.put("978-966-97821-0-6", Map.of("art", 1, "history", 2));
+
+        //when
+        List<String> artOfWar = index.search("Art WAR", 10);
+        List<String> art = index.search("ar", 10);
+        List<String> missing = index.search("art peace", 10);
+
+        //then
+        assertThat(artOfWar, equalTo(List.of("978-617-679-145-4")));
+        assertThat(art, equalTo(List.of("978-617-679-145-4", "978-966-97821-0-6")));
+        assertThat(missing, equalTo(List.of()));
+    }
+
+    @Test
+    public void givenReplacedAndRemovedDocuments_whenSearch_thenOnlyCurrentTermsMatch() {
+        //given
+        InvertedIndex index = new InvertedIndex();
+        index.put("978-617-679-145-4", Map.of("war", 2));
+        index.put("978-617-8024-01-7", Map.of("peace", 2));
+
+        //when
+        index.put("978-617-679-145-4", Map.of("art", 2));
+        index.remove("978-617-8024-01-7");
+
+        //then
+        assertThat(index.search("war", 10), equalTo(List.of()));
+        assertThat(index.search("art", 10), equalTo(List.of("978-617-679-145-4")));
+        assertThat(index.size(), equalTo(1));
+        assertThat(index.termCount(), equalTo(1));
+    }
+}
@@ -0,0 +1,42 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.IsbnSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class IsbnSetTests {
+
+    @Test
+    public void givenSetAndClearedIsbns_whenRetain_thenReturnSetOnesInGivenOrder() {
+        //given
+        IsbnSet isbnSet = new IsbnSet();
+        isbnSet.set("978-617-679-145-4", true);
+        isbnSet.set("978-617-8024-01-7", true);
+        isbnSet.set("978-966-97821-0-6", true);
+        isbnSet.set("978-617-8024-01-7", false);
+
+        //when
+        List<String> retained = isbnSet.retain(List.of("978-966-97821-0-6", "978-617-8024-01-7", "978-617-7807-04-8", "978-617-679-145-4"));
+
+        //then
+        assertThat(retained, equalTo(List.of("978-966-97821-0-6", "978-617-679-145-4")));
+        assertThat(isbnSet.size(), equalTo(2));
+    }
+
+    @Test
+    public void givenUnknownIsbn_whenClear_thenNotContained() {
+        //given
+        IsbnSet isbnSet = new IsbnSet();
+
+        //when
+        isbnSet.set("978-617-679-145-4", false);
+
+        //then
+        assertThat(isbnSet.contains("978-617-679-145-4"), equalTo(false));
+        assertThat(isbnSet.size(), equalTo(0));
+    }
+}
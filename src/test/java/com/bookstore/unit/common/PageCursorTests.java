@@ -0,0 +1,48 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.PageCursor;
+import com.bookstore.exception.InvalidPageCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PageCursorTests {
+
+    @Test
+    public void givenEncodedKeys_whenDecode_thenReturnSameKeys() {
+        //given
+        Instant datetime = Instant.parse("2021-11-03T10:15:30.123456Z");
+        String cursor = PageCursor.encode(datetime, 42L);
+
+        //when
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        //then
+        assertThat(pageCursor.getInstant(0), equalTo(datetime));
+        assertThat(pageCursor.getLong(1), equalTo(42L));
+    }
+
+    @Test
+    public void givenCursorWithFewerKeys_whenGetKey_thenThrowInvalidPageCursorException() {
+        //given
+        PageCursor pageCursor = PageCursor.decode(PageCursor.encode("978-617-679-145-4"));
+
+        //when
+        //then
+        assertThrows(InvalidPageCursorException.class, () -> pageCursor.getLong(1));
+    }
+
+    @Test
+    public void givenNotBase64Cursor_whenDecode_thenThrowInvalidPageCursorException() {
+        //given
+        String cursor = "not a cursor!";
+
+        //when
+        //then
+        assertThrows(InvalidPageCursorException.class, () -> PageCursor.decode(cursor));
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.StockExportWriter;
+import com.bookstore.common.StockImportReader;
+import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StockExportWriterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void givenStockItems_whenWriteCsv_thenWriteHeaderAndOneLinePerItem() throws Exception {
+        //given
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        StockExportWriter writer = new StockExportWriter(body, StockFileFormat.CSV, objectMapper);
+
+        //when
+        writer.write(new StockItemDTO(1L, "978-617-679-145-4", 25.3, 10));
+        writer.write(new StockItemDTO(2L, "978-617-8024-01-7", 45.0, 0));
+        writer.flush();
+
+        //then
+        assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8), equalTo(String.join(System.lineSeparator(),
+                "bookIsbn,price,quantity",
+                "978-617-679-145-4,25.3,10",
+                "978-617-8024-01-7,45.0,0", "")));
+    }
+
+    @Test
+    public void givenStockItem_whenWriteNdjson_thenImportReadsItBack() throws Exception {
+        //given
+        StockItemDTO stockItem = new StockItemDTO(null, "978-617-679-145-4", 25.3, 10);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        StockExportWriter writer = new StockExportWriter(body, StockFileFormat.NDJSON, objectMapper);
+
+        //when
+        writer.write(stockItem);
+        writer.flush();
+
+        //then
+        StockImportReader reader = new StockImportReader(new ByteArrayInputStream(body.toByteArray()), StockFileFormat.NDJSON, objectMapper);
+        assertThat(reader.next(), equalTo(stockItem));
+        assertThat(reader.next(), equalTo(null));
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.StockImportReader;
+import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StockImportReaderTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void givenCsvWithHeader_whenRead_thenReturnValidLinesAndCountRejected() throws Exception {
+        //given
+        String body = "bookIsbn,price,quantity\n"
+                + "978-617-679-145-4,25.3,10\n"
+                + "\n"
+                + "\"978-617-8024-01-7\", 45.0 , 0\n"
+                + "978-618-7807-04-8,0.5,3\n"
+                + "978-966-97821-0-6,abc,3\n"
+                + "978-966,12.0,3\n";
+
+        //when
+        StockImportReader reader = reader(body, StockFileFormat.CSV);
+        List<StockItemDTO> stockItems = readAll(reader);
+
+        //then
+        assertThat(stockItems, equalTo(List.of(
+                new StockItemDTO(null, "978-617-679-145-4", 25.3, 10),
+                new StockItemDTO(null, "978-617-8024-01-7", 45.0, 0))));
+        assertThat(reader.getRejected(), equalTo(3L));
+    }
+
+    @Test
+    public void givenNdjson_whenRead_thenReturnValidLinesAndCountRejected() throws Exception {
+        //given
+        String body = "{\"bookIsbn\":\"978-617-679-145-4\",\"price\":25.3,\"quantity\":10}\n"
+                + "{\"bookIsbn\":\"978-617-8024-01-7\",\"price\":45.0,\n"
+                + "{\"price\":45.0,\"quantity\":1}\n";
+
+        //when
+        StockImportReader reader = reader(body, StockFileFormat.NDJSON);
+        List<StockItemDTO> stockItems = readAll(reader);
+
+        //then
+        assertThat(stockItems, equalTo(List.of(new StockItemDTO(null, "978-617-679-145-4", 25.3, 10))));
+        assertThat(reader.getRejected(), equalTo(2L));
+    }
+
+    @Test
+    public void givenNdjsonWithNegativeQuantity_whenRead_thenRejectLineLikeCsv() throws Exception {
+        //given
+        String csvBody = "978-617-679-145-4,25.3,-5\n";
+        String body = "{\"bookIsbn\":\"978-617-679-145-4\",\"price\":25.3,\"quantity\":-5}\n"
+                + "{\"bookIsbn\":\"978-617-8024-01-7\",\"price\":45.0,\"quantity\":0}\n";
+
+        //when
+        StockImportReader ndjsonReader = reader(body, StockFileFormat.NDJSON);
+        List<StockItemDTO> stockItems = readAll(ndjsonReader);
+        StockImportReader csvReader = reader(csvBody, StockFileFormat.CSV);
+        List<StockItemDTO> csvStockItems = readAll(csvReader);
+
+        //then
+        assertThat(stockItems, equalTo(List.of(new StockItemDTO(null, "978-617-8024-01-7", 45.0, 0))));
+        assertThat(ndjsonReader.getRejected(), equalTo(1L));
+        assertThat(csvStockItems, equalTo(List.of()));
+        assertThat(csvReader.getRejected(), equalTo(1L));
+    }
+
+    private StockImportReader reader(String body, StockFileFormat format) {
+        return new StockImportReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, objectMapper);
+    }
+
+    private List<StockItemDTO> readAll(StockImportReader reader) throws Exception {
+        List<StockItemDTO> stockItems = new ArrayList<>();
+        StockItemDTO stockItem;
+        while ((stockItem = reader.next()) != null) {
+            stockItems.add(stockItem);
+        }
+
+        return stockItems;
+    }
+}
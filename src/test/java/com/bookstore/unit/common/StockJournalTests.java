@@ -0,0 +1,83 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.StockJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StockJournalTests {
+
+    private static final String BOOK_ISBN_1 = "978-617-679-145-4";
+    private static final String BOOK_ISBN_2 = "978-617-8024-01-7";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenUnflushedWithdrawals_whenRecoverAfterCrash_thenReturnThem() throws Exception {
+        //given
+        StockJournal journal = new StockJournal(directory, false);
+        journal.recover(0);
+        journal.append(Map.of(BOOK_ISBN_1, 2));
+        journal.append(Map.of(BOOK_ISBN_1, 1, BOOK_ISBN_2, 3));
+
+        //when
+        StockJournal.Batch recovered = new StockJournal(directory, false).recover(0);
+
+        //then
+        assertThat(recovered.getQuantities(), equalTo(Map.of(BOOK_ISBN_1, 3, BOOK_ISBN_2, 3)));
+        assertThat(recovered.getLastSeq(), equalTo(3L));
+    }
+
+    @Test
+    public void givenFlushedBatch_whenRecover_thenSkipRecordsCoveredByCheckpoint() throws Exception {
+        //given
+        StockJournal journal = new StockJournal(directory, false);
+        journal.recover(0);
+        journal.append(Map.of(BOOK_ISBN_1, 2));
+        StockJournal.Batch flushed = journal.drain();
+        journal.append(Map.of(BOOK_ISBN_1, 5));
+
+        //when
+        StockJournal.Batch recovered = new StockJournal(directory, false).recover(flushed.getLastSeq());
+
+        //then
+        assertThat(recovered.getQuantities(), equalTo(Map.of(BOOK_ISBN_1, 5)));
+    }
+
+    @Test
+    public void givenTornRecord_whenRecover_thenSkipIt() throws Exception {
+        //given
+        Files.write(directory.resolve("stock-journal-00000000000000000001-0.log"),
+                ("1\t" + BOOK_ISBN_1 + "\t2\n2\t" + BOOK_ISBN_2).getBytes(StandardCharsets.UTF_8));
+
+        //when
+        StockJournal.Batch recovered = new StockJournal(directory, false).recover(0);
+
+        //then
+        assertThat(recovered.getQuantities(), equalTo(Map.of(BOOK_ISBN_1, 2)));
+    }
+
+    @Test
+    public void givenReleasedBatch_whenRecover_thenNothingToReplay() throws Exception {
+        //given
+        StockJournal journal = new StockJournal(directory, false);
+        journal.recover(0);
+        journal.append(Map.of(BOOK_ISBN_1, 2));
+        journal.release(journal.drain());
+        journal.close();
+
+        //when
+        StockJournal.Batch recovered = new StockJournal(directory, false).recover(0);
+
+        //then
+        assertThat(recovered.getQuantities(), equalTo(Map.of()));
+    }
+}
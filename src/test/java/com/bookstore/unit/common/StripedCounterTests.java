@@ -0,0 +1,66 @@
+package com.bookstore.unit.common;
+
+import com.bookstore.common.StripedCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StripedCounterTests {
+
+    @Test
+    public void givenQuantitySpreadOverStripes_whenTryWithdraw_thenDrainSeveralStripes() {
+        //given
+        StripedCounter counter = new StripedCounter(10, 4);
+
+        //when
+        boolean withdrawn = counter.tryWithdraw(9);
+        boolean overdrawn = counter.tryWithdraw(2);
+
+        //then
+        assertThat(withdrawn, equalTo(true));
+        assertThat(overdrawn, equalTo(false));
+        assertThat(counter.sum(), equalTo(1));
+    }
+
+    @Test
+    public void givenConcurrentWithdrawals_whenTryWithdraw_thenNeverGoBelowZero() throws Exception {
+        //given
+        StripedCounter counter = new StripedCounter(1000, 16);
+        AtomicInteger withdrawn = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+
+        //when
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 100; j++) {
+                    if (counter.tryWithdraw(1)) {
+                        withdrawn.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(withdrawn.get(), equalTo(1000));
+        assertThat(counter.sum(), equalTo(0));
+    }
+}
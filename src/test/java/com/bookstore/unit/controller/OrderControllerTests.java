@@ -4,9 +4,12 @@ import com.bookstore.common.Messages;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.OrderController;
 import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderStatusUpdateResultDTO;
 import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.controller.request.OrderStatusBulkRequest;
 import com.bookstore.entity.Client;
 import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.enums.CountMode;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -26,6 +29,8 @@ import javax.validation.ConstraintViolationException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -74,6 +79,22 @@ public class OrderControllerTests {
                 .andExpect(content().json(objectMapper.writeValueAsString(expectedPage)));
     }
 
+    @Test
+    public void givenEstimateCountWithFilter_whenSearchOrder_thenStatus400() throws Exception {
+        //given
+        OrderSearchRequest searchRequest = new OrderSearchRequest();
+        searchRequest.setStatus(OrderStatus.NEW);
+        searchRequest.setCount(CountMode.ESTIMATE);
+
+        //when
+        mockMvc.perform(
+                        get(Messages.ORDER_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(searchRequest))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(orderService, Mockito.never()).searchOrders(Mockito.any());
+    }
+
     @Test
     public void givenNotValidClient_whenSaveOrder_thenThrowConstraintViolationException_andStatus400() throws Exception {
         //given
@@ -152,6 +173,66 @@ public class OrderControllerTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void givenValidBulkRequest_whenMergeOrders_thenReturnResults_andStatus200() throws Exception {
+        //given
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(List.of(1L, 2L), null, OrderStatus.APPROVED);
+        List<OrderStatusUpdateResultDTO> results = List.of(
+                new OrderStatusUpdateResultDTO(1L, true, null),
+                new OrderStatusUpdateResultDTO(2L, false, Messages.CANT_CHANGE_ORDER_STATUS));
+        Mockito.when(orderService.updateStatuses(Mockito.any())).thenReturn(results);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.ORDER_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    public void givenBulkRequestWithoutSelection_whenMergeOrders_thenStatus400() throws Exception {
+        //given
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(null, null, OrderStatus.APPROVED);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.ORDER_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenBulkRequestWithEmptyFilter_whenMergeOrders_thenStatus400() throws Exception {
+        //given
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(null, new OrderSearchRequest(), OrderStatus.CANCELLED);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.ORDER_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(orderService, Mockito.never()).updateStatuses(Mockito.any());
+    }
+
+    @Test
+    public void givenBulkRequestWithTooManyIds_whenMergeOrders_thenStatus400() throws Exception {
+        //given
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().collect(Collectors.toList());
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(ids, null, OrderStatus.APPROVED);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.ORDER_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(orderService, Mockito.never()).updateStatuses(Mockito.any());
+    }
+
     private void performUpdateNotValidOrder(OrderDTO Order) throws Exception {
         mockMvc.perform(
                         put(Messages.ORDER_CONTROLLER_URI + Messages.ID_MAPPING, Order.getId())
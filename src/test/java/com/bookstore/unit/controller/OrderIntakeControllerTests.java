@@ -0,0 +1,93 @@
+package com.bookstore.unit.controller;
+
+import com.bookstore.common.Messages;
+import com.bookstore.controller.OrderIntakeController;
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderIntakeStatusDTO;
+import com.bookstore.entity.Client;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.enums.OrderIntakeState;
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.exception.OrderIntakeRejectedException;
+import com.bookstore.service.OrderIntakeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = OrderIntakeController.class, properties = "bookstore.orders.intake.enabled=true")
+public class OrderIntakeControllerTests {
+
+    @MockBean
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private OrderDTO order;
+
+    @BeforeEach
+    public void setup() {
+        SoldItem item = new SoldItem(1L, "978-617-679-145-4", null, 25.6, 2);
+        Client client = new Client(1L, "Yura", "Yush", "+38(067)-55-55-555", "yura.yush@gmail.com", "Ternopil, vyl Tekstylna 12");
+        order = new OrderDTO(null, List.of(item), client, Instant.now(), OrderStatus.NEW);
+    }
+
+    @Test
+    public void givenValidOrder_whenSubmitOrder_thenReturnTrackingId_andStatus202() throws Exception {
+        //given
+        OrderIntakeStatusDTO intakeStatus = new OrderIntakeStatusDTO("tracking-id", OrderIntakeState.QUEUED, null, null);
+        Mockito.when(orderIntakeService.submitOrder(Mockito.any())).thenReturn(intakeStatus);
+
+        //when
+        mockMvc.perform(
+                        post(Messages.ORDER_INTAKE_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(order))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(content().json(objectMapper.writeValueAsString(intakeStatus)));
+    }
+
+    @Test
+    public void givenFullQueue_whenSubmitOrder_thenStatus503() throws Exception {
+        //given
+        Mockito.when(orderIntakeService.submitOrder(Mockito.any()))
+                .thenThrow(new OrderIntakeRejectedException(Messages.ORDER_INTAKE_QUEUE_FULL));
+
+        //when
+        mockMvc.perform(
+                        post(Messages.ORDER_INTAKE_CONTROLLER_URI)
+                                .content(objectMapper.writeValueAsString(order))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void givenTrackingId_whenGetIntakeStatus_thenReturnStatus_andStatus200() throws Exception {
+        //given
+        OrderIntakeStatusDTO intakeStatus = new OrderIntakeStatusDTO("tracking-id", OrderIntakeState.COMPLETED, 1L, null);
+        Mockito.when(orderIntakeService.getIntakeStatus(intakeStatus.getTrackingId())).thenReturn(intakeStatus);
+
+        //when
+        mockMvc.perform(
+                        get(Messages.ORDER_INTAKE_CONTROLLER_URI + Messages.TRACKING_ID_MAPPING, intakeStatus.getTrackingId()))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(intakeStatus)));
+    }
+}
@@ -3,8 +3,15 @@ package com.bookstore.unit.controller;
 import com.bookstore.common.Messages;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.WarehouseController;
+import com.bookstore.controller.dto.StockAvailabilityDTO;
+import com.bookstore.controller.dto.StockConflictStatsDTO;
+import com.bookstore.controller.dto.StockImportResultDTO;
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.controller.dto.StockRepriceResultDTO;
+import com.bookstore.controller.request.StockRepriceRequest;
 import com.bookstore.controller.request.WarehouseSearchRequest;
+import com.bookstore.entity.enums.PriceOperation;
+import com.bookstore.entity.enums.StockFileFormat;
 import com.bookstore.service.WarehouseService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,13 +25,18 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import javax.validation.ConstraintViolationException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(WarehouseController.class)
@@ -116,6 +128,133 @@ public class WarehouseControllerTests {
                 .andExpect(content().json(objectMapper.writeValueAsString(stockItem)));
     }
 
+    @Test
+    public void givenValidShards_whenSplitStockItem_thenSplitStockItem_andStatus200() throws Exception {
+        //given
+        Mockito.when(warehouseService.splitStockItem(stockItem.getBookIsbn(), 8)).thenReturn(stockItem);
+
+        //when
+        mockMvc.perform(
+                        put(Messages.WAREHOUSE_CONTROLLER_URI + Messages.SHARDS_MAPPING, stockItem.getBookIsbn())
+                                .param(Messages.SHARDS_PATH, "8"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(stockItem)));
+    }
+
+    @Test
+    public void givenNotValidShards_whenSplitStockItem_thenStatus400() throws Exception {
+        //when
+        mockMvc.perform(
+                        put(Messages.WAREHOUSE_CONTROLLER_URI + Messages.SHARDS_MAPPING, stockItem.getBookIsbn())
+                                .param(Messages.SHARDS_PATH, "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenNdjsonBody_whenImportStockItems_thenReturnCounts_andStatus200() throws Exception {
+        //given
+        StockImportResultDTO importResult = new StockImportResultDTO(1, 0, 0);
+        Mockito.when(warehouseService.importStockItems(Mockito.any(), Mockito.eq(StockFileFormat.NDJSON))).thenReturn(importResult);
+
+        //when
+        mockMvc.perform(
+                        post(Messages.WAREHOUSE_CONTROLLER_URI + Messages.IMPORT_MAPPING)
+                                .content(objectMapper.writeValueAsString(stockItem))
+                                .contentType(Messages.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(importResult)));
+    }
+
+    @Test
+    public void givenJsonBody_whenImportStockItems_thenStatus415() throws Exception {
+        //when
+        mockMvc.perform(
+                        post(Messages.WAREHOUSE_CONTROLLER_URI + Messages.IMPORT_MAPPING)
+                                .content(objectMapper.writeValueAsString(stockItem))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void givenCsvFormat_whenExportStockItems_thenStreamBody_andStatus200() throws Exception {
+        //given
+        String csv = "bookIsbn,price,quantity\n978-617-679-145-4,25.3,10\n";
+        Mockito.doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(csv.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(warehouseService).exportStockItems(Mockito.any(), Mockito.eq(StockFileFormat.CSV));
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(
+                        get(Messages.WAREHOUSE_CONTROLLER_URI + Messages.EXPORT_MAPPING)
+                                .param(Messages.FORMAT_PATH, StockFileFormat.CSV.name()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(Messages.TEXT_CSV))
+                .andExpect(content().string(csv));
+    }
+
+    @Test
+    public void givenLimit_whenGetConflictStats_thenReturnStats_andStatus200() throws Exception {
+        //given
+        List<StockConflictStatsDTO> conflictStats = List.of(new StockConflictStatsDTO(stockItem.getBookIsbn(), 12, 4, 3, 1));
+        Mockito.when(warehouseService.getConflictStats(5)).thenReturn(conflictStats);
+
+        //when
+        mockMvc.perform(
+                        get(Messages.WAREHOUSE_CONTROLLER_URI + Messages.CONFLICTS_MAPPING)
+                                .param(Messages.LIMIT_PATH, "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(conflictStats)));
+    }
+
+    @Test
+    public void givenIsbns_whenGetStockAvailability_thenReturnMap_andStatus200() throws Exception {
+        //given
+        Map<String, StockAvailabilityDTO> availability = Map.of(stockItem.getBookIsbn(), new StockAvailabilityDTO(25.3, 10));
+        Mockito.when(warehouseService.getStockAvailability(List.of(stockItem.getBookIsbn(), "978-617-8024-01-7")))
+                .thenReturn(availability);
+
+        //when
+        mockMvc.perform(
+                        get(Messages.WAREHOUSE_CONTROLLER_URI + Messages.AVAILABILITY_MAPPING)
+                                .param(Messages.ISBNS_PATH, stockItem.getBookIsbn(), "978-617-8024-01-7"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(availability)));
+    }
+
+    @Test
+    public void givenPublisherPromotion_whenRepriceStockItems_thenReturnResult_andStatus200() throws Exception {
+        //given
+        StockRepriceRequest request = new StockRepriceRequest(null, 1L, null, null, null, PriceOperation.MULTIPLY, 0.9);
+        StockRepriceResultDTO result = new StockRepriceResultDTO(12000, 3);
+        Mockito.when(warehouseService.repriceStockItems(request)).thenReturn(result);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.WAREHOUSE_CONTROLLER_URI + Messages.PRICES_MAPPING)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(result)));
+    }
+
+    @Test
+    public void givenRepriceWithoutSelection_whenRepriceStockItems_thenStatus400() throws Exception {
+        //given
+        StockRepriceRequest request = new StockRepriceRequest(null, null, null, null, null, PriceOperation.SET, 30.0);
+
+        //when
+        mockMvc.perform(
+                        patch(Messages.WAREHOUSE_CONTROLLER_URI + Messages.PRICES_MAPPING)
+                                .content(objectMapper.writeValueAsString(request))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     private void performSaveNotValidStockItem(StockItemDTO StockItem) throws Exception {
         mockMvc.perform(
                         post(Messages.WAREHOUSE_CONTROLLER_URI)
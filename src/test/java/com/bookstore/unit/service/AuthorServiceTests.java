@@ -18,12 +18,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -58,10 +58,10 @@ public class AuthorServiceTests {
 
         PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
         Page<Author> pageFromDB = new PageImpl<>(List.of(author1, author2), page, 2L);
-        Page<AuthorDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(author1, author2), page, 2L));
+        Slice<AuthorDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(author1, author2), page, 2L));
 
         //when
-        Page<AuthorDTO> actualPage = doSearchAuthor(pageFromDB, searchRequest);
+        Slice<AuthorDTO> actualPage = doSearchAuthor(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -76,10 +76,10 @@ public class AuthorServiceTests {
 
         PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
         Page<Author> pageFromDB = new PageImpl<>(List.of(author1, author4), page, 2L);
-        Page<AuthorDTO> expectedPage = getPageDTOList(pageFromDB);
+        Slice<AuthorDTO> expectedPage = getPageDTOList(pageFromDB);
 
         //when
-        Page<AuthorDTO> actualPage = doSearchAuthor(pageFromDB, searchRequest);
+        Slice<AuthorDTO> actualPage = doSearchAuthor(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -136,7 +136,7 @@ public class AuthorServiceTests {
         assertThrows(EntityNotFoundException.class, () -> authorService.updateAuthor(author1.toDTO(), author1.getId()));//todo check message
     }
 
-    private Page<AuthorDTO> doSearchAuthor(Page<Author> pageFromDB, AuthorSearchRequest searchRequest) {
+    private Slice<AuthorDTO> doSearchAuthor(Page<Author> pageFromDB, AuthorSearchRequest searchRequest) {
         when(authorRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(pageFromDB);
 
@@ -145,8 +145,6 @@ public class AuthorServiceTests {
     }
 
     private Page<AuthorDTO> getPageDTOList(Page<Author> authors) {
-        return new PageImpl<>(authors.stream()
-                .map(Author::toDTO)
-                .collect(Collectors.toList()));
+        return authors.map(Author::toDTO);
     }
 }
@@ -1,14 +1,24 @@
 package com.bookstore.unit.service;
 
+import com.bookstore.common.CursorSlice;
+import com.bookstore.common.Messages;
+import com.bookstore.common.PageCursor;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.dto.BookDTO;
+import com.bookstore.controller.dto.SearchIndexStatsDTO;
 import com.bookstore.controller.request.BookSearchRequest;
 import com.bookstore.entity.Author;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.Publisher;
 import com.bookstore.entity.enums.BookGenre;
 import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.exception.InvalidPageCursorException;
+import com.bookstore.repository.AuthorRepository;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.projection.BookSearchView;
+import com.bookstore.repository.projection.BookTitleView;
+import com.bookstore.repository.specification.BookSpecifications;
+import com.bookstore.service.WarehouseService;
 import com.bookstore.service.impl.BookServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,12 +31,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -41,6 +54,12 @@ public class BookServiceTests {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private AuthorRepository authorRepository;
+
+    @Mock
+    private WarehouseService warehouseService;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -62,12 +81,12 @@ public class BookServiceTests {
         BookSearchRequest searchRequest = new BookSearchRequest();
         searchRequest.setGenre(BookGenre.SCIENCE_FICTION);
 
-        PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
-        Page<Book> pageFromDB = new PageImpl<>(List.of(book1, book4), page, 2L);
-        Page<BookDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(book1, book4), page, 2L));
+        PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT, BookSpecifications.KEYSET.getSort());
+        List<BookSearchView> booksFromDB = List.of(toSearchView(book1), toSearchView(book4));
+        Slice<BookDTO> expectedPage = getPageDTOList(new PageImpl<>(booksFromDB, page, 2L));
 
         //when
-        Page<BookDTO> actualPage = doSearchBook(pageFromDB, searchRequest);
+        Slice<BookDTO> actualPage = doSearchBook(booksFromDB, Pagination.DEFAULT_LIMIT, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -81,17 +100,148 @@ public class BookServiceTests {
         searchRequest.setPage(0);
         searchRequest.setLimit(2);
 
-        PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
-        Page<Book> pageFromDB = new PageImpl<>(List.of(book1), page, 2L);
-        Page<BookDTO> expectedPage = getPageDTOList(pageFromDB);
+        PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit(), BookSpecifications.KEYSET.getSort());
+        List<BookSearchView> booksFromDB = List.of(toSearchView(book1));
+        Slice<BookDTO> expectedPage = getPageDTOList(new PageImpl<>(booksFromDB, page, 1L));
 
         //when
-        Page<BookDTO> actualPage = doSearchBook(pageFromDB, searchRequest);
+        Slice<BookDTO> actualPage = doSearchBook(booksFromDB, searchRequest.getLimit(), searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInStockOnly_whenSearchBook_thenScanPastSoldOutBooksWithoutWarehouseQuery() {
+        //given
+        ReflectionTestUtils.setField(bookService, "inStockScanSize", 2);
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setInStockOnly(true);
+        searchRequest.setLimit(2);
+
+        when(bookRepository.findSearchViews(any(Specification.class), eq(BookSpecifications.KEYSET.getSort()), eq(0L), eq(2)))
+                .thenReturn(List.of(toSearchView(book1), toSearchView(book2)),
+                        List.of(toSearchView(book3), toSearchView(book4)));
+        when(warehouseService.findInStockIsbns(List.of(book1.getIsbn(), book2.getIsbn())))
+                .thenReturn(List.of(book1.getIsbn()));
+        when(warehouseService.findInStockIsbns(List.of(book3.getIsbn(), book4.getIsbn())))
+                .thenReturn(List.of(book3.getIsbn(), book4.getIsbn()));
+
+        //when
+        Slice<BookDTO> actualPage = bookService.searchBook(searchRequest);
+
+        //then
+        assertThat(actualPage.getContent(), equalTo(List.of(toSearchView(book1).toDTO(), toSearchView(book3).toDTO())));
+        assertThat(((CursorSlice<BookDTO>) actualPage).getNextCursor(), equalTo(PageCursor.encode(book3.getIsbn())));
+        verify(bookRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenInStockOnlyWithPageAndNoCursor_whenSearchBook_thenThrowInvalidPageCursorWithoutScan() {
+        //given
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setInStockOnly(true);
+        searchRequest.setPage(3);
+
+        //when
+        InvalidPageCursorException exception = assertThrows(InvalidPageCursorException.class, () -> bookService.searchBook(searchRequest));
+
+        //then
+        assertThat(exception.getMessage(), equalTo(String.format(Messages.IN_STOCK_PAGE_WITHOUT_CURSOR, 3)));
+        verify(bookRepository, never()).findSearchViews(any(Specification.class), any(), anyLong(), anyInt());
+        verify(warehouseService, never()).findInStockIsbns(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRebuiltTitleIndex_whenSearchBookByTitle_thenLoadOnlyRankedPageWithoutLike() {
+        //given
+        ReflectionTestUtils.setField(bookService, "titleIndexRebuildBatchSize", 10);
+        ReflectionTestUtils.setField(bookService, "titleIndexMaxResults", 10);
+        when(bookRepository.findTitleViewsAfterIsbn(isNull(), eq(10)))
+                .thenReturn(List.of(toTitleView(book1), toTitleView(book2), toTitleView(book3), toTitleView(book4)));
+        when(bookRepository.findAllById(Set.of()))
+                .thenReturn(List.of());
+        SearchIndexStatsDTO stats = bookService.rebuildTitleIndex();
+
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setTitle("МИСТЕЦТВО");
+        when(bookRepository.findSearchViews(any(Specification.class), eq(Sort.unsorted()), eq(0L), eq(1)))
+                .thenReturn(List.of(toSearchView(book1)));
+
+        //when
+        Slice<BookDTO> actualPage = bookService.searchBook(searchRequest);
+
+        //then
+        assertThat(stats.getDocuments(), equalTo(4));
+        assertThat(actualPage.getContent(), equalTo(List.of(toSearchView(book1).toDTO())));
+        verify(bookRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRebuiltTitleIndex_whenSaveAndDeleteBook_thenUpdateIndex() {
+        //given
+        ReflectionTestUtils.setField(bookService, "titleIndexRebuildBatchSize", 10);
+        ReflectionTestUtils.setField(bookService, "titleIndexMaxResults", 10);
+        when(bookRepository.findTitleViewsAfterIsbn(isNull(), eq(10)))
+                .thenReturn(List.of(toTitleView(book1)));
+        when(bookRepository.findAllById(Set.of()))
+                .thenReturn(List.of());
+        bookService.rebuildTitleIndex();
+
+        Book renamedBook = new Book(book1.getIsbn(), "Антена", book1.getPublisher(), book1.getAuthor(), book1.getGenre());
+        when(bookRepository.saveAndFlush(Mockito.any()))
+                .thenReturn(renamedBook);
+        when(bookRepository.findSearchViews(any(Specification.class), eq(Sort.unsorted()), eq(0L), eq(1)))
+                .thenReturn(List.of(toSearchView(renamedBook)));
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setTitle("антен");
+
+        //when
+        bookService.saveBook(renamedBook.toDTO());
+        Slice<BookDTO> renamedPage = bookService.searchBook(searchRequest);
+        bookService.deleteBookByIsbn(book1.getIsbn());
+        Slice<BookDTO> deletedPage = bookService.searchBook(searchRequest);
+
+        //then
+        assertThat(renamedPage.getContent(), equalTo(List.of(toSearchView(renamedBook).toDTO())));
+        assertThat(deletedPage.getContent(), equalTo(List.of()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenRebuiltTitleIndex_whenSaveBookWithAuthorReference_thenFindBookByAuthorSurname() {
+        //given
+        ReflectionTestUtils.setField(bookService, "titleIndexRebuildBatchSize", 10);
+        ReflectionTestUtils.setField(bookService, "titleIndexMaxResults", 10);
+        when(bookRepository.findTitleViewsAfterIsbn(isNull(), eq(10)))
+                .thenReturn(List.of());
+        when(bookRepository.findAllById(Set.of()))
+                .thenReturn(List.of());
+        bookService.rebuildTitleIndex();
+
+        Author authorReference = new Author(2L, null, null, null, null);
+        Book savedBook = new Book(book1.getIsbn(), book1.getTitle(), book1.getPublisher(), List.of(authorReference), book1.getGenre());
+        when(bookRepository.saveAndFlush(Mockito.any()))
+                .thenReturn(savedBook);
+        when(authorRepository.findAllById(Set.of(2L)))
+                .thenReturn(List.of(new Author(2L, "Serhiy", "Zhadan", "UA", new ArrayList<>())));
+        when(bookRepository.findSearchViews(any(Specification.class), eq(Sort.unsorted()), eq(0L), eq(1)))
+                .thenReturn(List.of(toSearchView(savedBook)));
+        BookSearchRequest searchRequest = new BookSearchRequest();
+        searchRequest.setTitle("zhadan");
+
+        //when
+        bookService.saveBook(savedBook.toDTO());
+        Slice<BookDTO> actualPage = bookService.searchBook(searchRequest);
+
+        //then
+        assertThat(actualPage.getContent(), equalTo(List.of(toSearchView(savedBook).toDTO())));
+    }
+
     @Test
     public void givenValidBook_whenSaveBook_thenSaveAndReturnBook() throws Exception {
         //given
@@ -143,17 +293,28 @@ public class BookServiceTests {
         assertThrows(EntityNotFoundException.class, () -> bookService.updateBook(book1.toDTO(), book1.getIsbn()));//todo check message
     }
 
-    private Page<BookDTO> doSearchBook(Page<Book> pageFromDB, BookSearchRequest searchRequest) {
-        when(bookRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(pageFromDB);
+    @SuppressWarnings("unchecked")
+    private Slice<BookDTO> doSearchBook(List<BookSearchView> booksFromDB, int limit, BookSearchRequest searchRequest) {
+        when(bookRepository.findSearchViews(any(Specification.class), eq(BookSpecifications.KEYSET.getSort()), eq(0L), eq(limit + 1)))
+                .thenReturn(booksFromDB);
 
 
         return bookService.searchBook(searchRequest);
     }
 
-    private Page<BookDTO> getPageDTOList(Page<Book> Books) {
-        return new PageImpl<>(Books.stream()
-                .map(Book::toDTO)
-                .collect(Collectors.toList()));
+    private Page<BookDTO> getPageDTOList(Page<BookSearchView> Books) {
+        return Books.map(BookSearchView::toDTO);
+    }
+
+    private BookSearchView toSearchView(Book book) {
+        Publisher publisher = book.getPublisher();
+        return new BookSearchView(book.getIsbn(), book.getTitle(), book.getGenre(),
+                publisher.getId(), publisher.getTitle(), publisher.getCountry());
+    }
+
+    private BookTitleView toTitleView(Book book) {
+        BookTitleView titleView = new BookTitleView(book.getIsbn(), book.getTitle());
+        book.getAuthor().forEach(author -> titleView.getAuthorNames().addAll(List.of(author.getName(), author.getSurname())));
+        return titleView;
     }
 }
@@ -19,11 +19,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -58,10 +58,10 @@ public class ClientServiceTests {
 
         PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
         Page<Client> pageFromDB = new PageImpl<>(List.of(client1, client2), page, 2L);
-        Page<ClientDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(client1, client2), page, 2L));
+        Slice<ClientDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(client1, client2), page, 2L));
 
         //when
-        Page<ClientDTO> actualPage = doSearchClient(pageFromDB, searchRequest);
+        Slice<ClientDTO> actualPage = doSearchClient(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -77,10 +77,10 @@ public class ClientServiceTests {
 
         PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
         Page<Client> pageFromDB = new PageImpl<>(List.of(client1, client4), page, 2L);
-        Page<ClientDTO> expectedPage = getPageDTOList(pageFromDB);
+        Slice<ClientDTO> expectedPage = getPageDTOList(pageFromDB);
 
         //when
-        Page<ClientDTO> actualPage = doSearchClient(pageFromDB, searchRequest);
+        Slice<ClientDTO> actualPage = doSearchClient(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -160,7 +160,7 @@ public class ClientServiceTests {
         assertThrows(EntityAlreadyExistException.class, () -> clientService.updateClient(client1.toDTO(), client1.getId()));
     }
 
-    private Page<ClientDTO> doSearchClient(Page<Client> pageFromDB, ClientSearchRequest searchRequest) {
+    private Slice<ClientDTO> doSearchClient(Page<Client> pageFromDB, ClientSearchRequest searchRequest) {
         when(clientRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(pageFromDB);
 
@@ -169,8 +169,6 @@ public class ClientServiceTests {
     }
 
     private Page<ClientDTO> getPageDTOList(Page<Client> Clients) {
-        return new PageImpl<>(Clients.stream()
-                .map(Client::toDTO)
-                .collect(Collectors.toList()));
+        return Clients.map(Client::toDTO);
     }
 }
@@ -0,0 +1,149 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.common.StockJournal;
+import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockJournalCheckpoint;
+import com.bookstore.repository.StockJournalCheckpointRepository;
+import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.service.impl.HotStockServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HotStockServiceTests {
+
+    private static final String JOURNAL_NAME = "test";
+    private static final String HOT_ISBN = "978-617-679-145-4";
+    private static final String COLD_ISBN = "978-617-8024-01-7";
+
+    @Mock
+    private WarehouseRepository warehouseRepository;
+
+    @Mock
+    private StockJournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private HotStockServiceImpl hotStockService;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(hotStockService, "hotIsbns", Set.of(HOT_ISBN));
+        ReflectionTestUtils.setField(hotStockService, "stripes", 4);
+        ReflectionTestUtils.setField(hotStockService, "journalDirectory", directory.toString());
+        ReflectionTestUtils.setField(hotStockService, "journalName", JOURNAL_NAME);
+        ReflectionTestUtils.setField(hotStockService, "fsync", false);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        ((StockJournal) ReflectionTestUtils.getField(hotStockService, "journal")).close();
+    }
+
+    @Test
+    public void givenWithdrawals_whenFlush_thenWriteNetQuantitiesWithCheckpoint() throws Exception {
+        //given
+        start(0L, 10);
+        hotStockService.withdraw(Map.of(HOT_ISBN, 2));
+        hotStockService.withdraw(Map.of(HOT_ISBN, 3));
+        hotStockService.withdraw(Map.of(HOT_ISBN, -1));
+
+        //when
+        hotStockService.flush();
+        hotStockService.flush();
+
+        //then
+        verify(warehouseRepository).subtractQuantities(Map.of(HOT_ISBN, 4));
+        verify(checkpointRepository).save(new StockJournalCheckpoint(JOURNAL_NAME, 3L));
+        verify(checkpointRepository, never()).save(new StockJournalCheckpoint(JOURNAL_NAME, 4L));
+        assertThat(hotStockService.getQuantity(HOT_ISBN), equalTo(OptionalInt.of(6)));
+    }
+
+    @Test
+    public void givenFailedFlush_whenFlushAgain_thenWriteRestoredBatchWithNewWithdrawals() throws Exception {
+        //given
+        start(0L, 10);
+        hotStockService.withdraw(Map.of(HOT_ISBN, 2));
+        doThrow(new IllegalStateException("connection lost"))
+                .when(warehouseRepository).subtractQuantities(Map.of(HOT_ISBN, 2));
+        hotStockService.flush();
+        hotStockService.withdraw(Map.of(HOT_ISBN, 3));
+
+        //when
+        hotStockService.flush();
+
+        //then
+        verify(warehouseRepository).subtractQuantities(Map.of(HOT_ISBN, 5));
+        verify(checkpointRepository).save(new StockJournalCheckpoint(JOURNAL_NAME, 2L));
+    }
+
+    @Test
+    public void givenJournalAfterCheckpoint_whenStart_thenReplayNewRecordsBeforeLoadingCounters() throws Exception {
+        //given
+        StockJournal journal = new StockJournal(directory, false);
+        journal.recover(0);
+        journal.append(Map.of(HOT_ISBN, 2));
+        journal.append(Map.of(HOT_ISBN, 5));
+        journal.close();
+
+        //when
+        start(1L, 3);
+
+        //then
+        InOrder replay = inOrder(warehouseRepository, checkpointRepository);
+        replay.verify(warehouseRepository).subtractQuantities(Map.of(HOT_ISBN, 5));
+        replay.verify(checkpointRepository).save(new StockJournalCheckpoint(JOURNAL_NAME, 2L));
+        replay.verify(warehouseRepository).findByBookIsbnIn(Set.of(HOT_ISBN));
+        assertThat(hotStockService.getQuantity(HOT_ISBN), equalTo(OptionalInt.of(3)));
+    }
+
+    @Test
+    public void givenNotHotIsbn_whenGetQuantity_thenReturnEmpty() throws Exception {
+        //given
+        start(0L, 10);
+
+        //when
+        OptionalInt quantity = hotStockService.getQuantity(COLD_ISBN);
+
+        //then
+        assertThat(hotStockService.isHot(COLD_ISBN), equalTo(false));
+        assertThat(quantity, equalTo(OptionalInt.empty()));
+    }
+
+    private void start(long checkpointSeq, int quantity) throws Exception {
+        when(checkpointRepository.findById(JOURNAL_NAME))
+                .thenReturn(Optional.of(new StockJournalCheckpoint(JOURNAL_NAME, checkpointSeq)));
+        when(warehouseRepository.findByBookIsbnIn(Set.of(HOT_ISBN)))
+                .thenReturn(List.of(new StockItem(1L, HOT_ISBN, 25.3, quantity)));
+        hotStockService.start();
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.repository.OrderHoldRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.service.WarehouseService;
+import com.bookstore.service.impl.OrderHoldServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.bookstore.unit.service.ProjectionViews.bookQuantityView;
+import static com.bookstore.unit.service.ProjectionViews.orderStatusView;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderHoldServiceTests {
+
+    private static final String BOOK_ISBN = "978-617-679-145-4";
+    private static final Instant NOW = Instant.parse("2024-03-01T10:00:00Z");
+
+    @Mock
+    private OrderHoldRepository orderHoldRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private WarehouseService warehouseService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderHoldServiceImpl orderHoldService;
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(orderHoldService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(orderHoldService, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(orderHoldService, "tick", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(orderHoldService, "wheelSize", 8);
+        orderHoldService.init();
+    }
+
+    @Test
+    public void givenHoldsClaimedByAnotherCaller_whenReleaseHolds_thenReturnBooksOnlyForOwnClaims() {
+        //given
+        when(orderHoldRepository.claimHolds(List.of(1L, 2L)))
+                .thenReturn(List.of(1L));
+        when(orderRepository.sumQuantitiesByOrderIdIn(List.of(1L)))
+                .thenReturn(List.of(bookQuantityView(BOOK_ISBN, 3L)));
+
+        //when
+        orderHoldService.releaseHolds(List.of(1L, 2L));
+
+        //then
+        verify(warehouseService).withdrawBooksFromStock(Map.of(BOOK_ISBN, -3));
+    }
+
+    @Test
+    public void givenAlreadyReleasedHolds_whenReleaseHolds_thenWarehouseUntouched() {
+        //given
+        when(orderHoldRepository.claimHolds(List.of(1L)))
+                .thenReturn(List.of());
+
+        //when
+        orderHoldService.releaseHolds(List.of(1L));
+
+        //then
+        verify(warehouseService, never()).withdrawBooksFromStock(Mockito.any());
+    }
+
+    @Test
+    public void givenExpiredHold_whenReleaseExpiredHolds_thenCancelOrderAndReturnBooks() {
+        //given
+        when(orderHoldRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        orderHoldService.placeHold(1L);
+        Instant later = NOW.plus(Duration.ofMinutes(31));
+        ReflectionTestUtils.setField(orderHoldService, "clock", Clock.fixed(later, ZoneOffset.UTC));
+
+        when(orderHoldRepository.findExpiredOrderIds(List.of(1L), later))
+                .thenReturn(List.of(1L));
+        when(orderRepository.findStatusesByIdIn(List.of(1L)))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.CANCELLED)));
+        when(orderHoldRepository.claimHolds(List.of(1L)))
+                .thenReturn(List.of(1L));
+        when(orderRepository.sumQuantitiesByOrderIdIn(List.of(1L)))
+                .thenReturn(List.of(bookQuantityView(BOOK_ISBN, 2L)));
+
+        //when
+        orderHoldService.releaseExpiredHolds();
+
+        //then
+        verify(orderRepository).updateOrdersStatus(OrderStatus.CANCELLED, List.of(1L), Set.of(OrderStatus.NEW));
+        verify(warehouseService).withdrawBooksFromStock(Map.of(BOOK_ISBN, -2));
+    }
+}
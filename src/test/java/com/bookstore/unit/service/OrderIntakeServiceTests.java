@@ -0,0 +1,143 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderIntakeStatusDTO;
+import com.bookstore.entity.Client;
+import com.bookstore.entity.SoldItem;
+import com.bookstore.entity.enums.OrderIntakeState;
+import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.exception.NotEnoughInStockException;
+import com.bookstore.exception.OrderIntakeRejectedException;
+import com.bookstore.service.OrderService;
+import com.bookstore.service.impl.OrderIntakeServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderIntakeServiceTests {
+
+    private static final String AVAILABLE_ISBN = "978-617-679-145-4";
+    private static final String SOLD_OUT_ISBN = "978-617-8024-01-7";
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderIntakeServiceImpl orderIntakeService;
+
+    private Client client;
+
+    @BeforeEach
+    public void setup() {
+        client = new Client(1L, "Yura", "Yush", "+38(067)-55-55-555", "yura.yush@gmail.com", "Ternopil, vyl Tekstylna 12");
+        ReflectionTestUtils.setField(orderIntakeService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(orderIntakeService, "batchSize", 10);
+        ReflectionTestUtils.setField(orderIntakeService, "statusRetention", 100);
+    }
+
+    @AfterEach
+    public void cleanup() throws InterruptedException {
+        orderIntakeService.stop();
+    }
+
+    @Test
+    public void givenOrderFailingInGroup_whenSubmitOrders_thenOtherOrdersOfGroupAreCompleted() throws Exception {
+        //given
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.saveOrder(argThat(order -> containsBook(order, AVAILABLE_ISBN))))
+                .thenAnswer(invocation -> {
+                    writerBusy.countDown();
+                    release.await();
+                    return OrderDTO.builder().id(1L).build();
+                });
+        when(orderService.saveOrder(argThat(order -> containsBook(order, SOLD_OUT_ISBN))))
+                .thenThrow(new NotEnoughInStockException(SOLD_OUT_ISBN));
+        ReflectionTestUtils.setField(orderIntakeService, "queueCapacity", 10);
+        orderIntakeService.start();
+
+        //when
+        OrderIntakeStatusDTO blockingOrder = orderIntakeService.submitOrder(createOrder(AVAILABLE_ISBN));
+        writerBusy.await();
+        OrderIntakeStatusDTO completedOrder = orderIntakeService.submitOrder(createOrder(AVAILABLE_ISBN));
+        OrderIntakeStatusDTO failedOrder = orderIntakeService.submitOrder(createOrder(SOLD_OUT_ISBN));
+        release.countDown();
+
+        //then
+        assertThat(awaitProcessed(blockingOrder).getState(), equalTo(OrderIntakeState.COMPLETED));
+        assertThat(awaitProcessed(completedOrder).getState(), equalTo(OrderIntakeState.COMPLETED));
+        assertThat(awaitProcessed(failedOrder).getState(), equalTo(OrderIntakeState.FAILED));
+    }
+
+    @Test
+    public void givenFullQueue_whenSubmitOrder_thenThrowOrderIntakeRejectedException() throws Exception {
+        //given
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.saveOrder(Mockito.any()))
+                .thenAnswer(invocation -> {
+                    writerBusy.countDown();
+                    release.await();
+                    return OrderDTO.builder().id(1L).build();
+                });
+        orderIntakeService.start();
+
+        //when
+        orderIntakeService.submitOrder(createOrder(AVAILABLE_ISBN));
+        writerBusy.await();
+        orderIntakeService.submitOrder(createOrder(AVAILABLE_ISBN));
+
+        //then
+        assertThrows(OrderIntakeRejectedException.class, () -> orderIntakeService.submitOrder(createOrder(AVAILABLE_ISBN)));
+        release.countDown();
+    }
+
+    @Test
+    public void givenNotValidTrackingId_whenGetIntakeStatus_thenThrowEntityNotFoundException() {
+        //given
+        orderIntakeService.start();
+
+        //then
+        assertThrows(EntityNotFoundException.class, () -> orderIntakeService.getIntakeStatus("unknown"));
+    }
+
+    private OrderDTO createOrder(String bookIsbn) {
+        return OrderDTO.builder()
+                .books(List.of(new SoldItem(null, bookIsbn, null, 0, 1)))
+                .client(client).build();
+    }
+
+    private boolean containsBook(OrderDTO order, String bookIsbn) {
+        return order != null && order.getBooks().get(0).getBookIsbn().equals(bookIsbn);
+    }
+
+    private OrderIntakeStatusDTO awaitProcessed(OrderIntakeStatusDTO submitted) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        OrderIntakeStatusDTO status = orderIntakeService.getIntakeStatus(submitted.getTrackingId());
+        while (status.getState() == OrderIntakeState.QUEUED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            status = orderIntakeService.getIntakeStatus(submitted.getTrackingId());
+        }
+        return status;
+    }
+}
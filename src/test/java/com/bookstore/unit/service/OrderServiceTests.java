@@ -1,41 +1,74 @@
 package com.bookstore.unit.service;
 
+import com.bookstore.common.CursorSlice;
+import com.bookstore.common.Messages;
+import com.bookstore.common.PageCursor;
 import com.bookstore.common.Pagination;
 import com.bookstore.controller.dto.OrderDTO;
+import com.bookstore.controller.dto.OrderStatusUpdateResultDTO;
 import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.controller.request.OrderStatusBulkRequest;
 import com.bookstore.entity.Client;
 import com.bookstore.entity.Order;
 import com.bookstore.entity.SoldItem;
 import com.bookstore.entity.StockItem;
+import com.bookstore.entity.enums.CountMode;
 import com.bookstore.entity.enums.OrderStatus;
 import com.bookstore.exception.CantChangeOrderStatusException;
 import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.repository.OrderHoldRepository;
 import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.repository.projection.OrderSearchView;
+import com.bookstore.repository.specification.OrderSpecifications;
+import com.bookstore.service.OrderHoldService;
+import com.bookstore.service.SearchCountService;
+import com.bookstore.service.WarehouseService;
+import com.bookstore.service.impl.OrderHoldServiceImpl;
 import com.bookstore.service.impl.OrderServiceImpl;
 import com.bookstore.service.impl.WarehouseServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static com.bookstore.unit.service.ProjectionViews.bookQuantityView;
+import static com.bookstore.unit.service.ProjectionViews.orderStatusView;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +80,21 @@ public class OrderServiceTests {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Mock
+    private WarehouseService warehouseServiceMock;
+
+    @Mock
+    private OrderHoldService orderHoldService;
+
+    @Mock
+    private OrderHoldRepository orderHoldRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SearchCountService searchCountService;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -73,6 +121,11 @@ public class OrderServiceTests {
         order1 = new Order(1L, List.of(item1), client, OrderStatus.NEW, time1);
         order2 = new Order(2L, List.of(item2), client, OrderStatus.CANCELLED, time2);
         order3 = new Order(3L, List.of(item3), client, OrderStatus.APPROVED, time3);
+
+        ReflectionTestUtils.setField(orderService, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(orderService, "retryBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(orderService, "retryMaxBackoff", Duration.ZERO);
+        orderService.init();
     }
 
     @Test
@@ -81,12 +134,12 @@ public class OrderServiceTests {
         OrderSearchRequest searchRequest = new OrderSearchRequest();
         searchRequest.setStatus(OrderStatus.NEW);
 
-        PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
-        Page<Order> pageFromDB = new PageImpl<>(List.of(order1), page, 2L);
-        Page<OrderDTO> expectedPage = getPageDTOList(pageFromDB);
+        PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT, OrderSpecifications.KEYSET.getSort());
+        List<OrderSearchView> ordersFromDB = List.of(toSearchView(order1));
+        Slice<OrderDTO> expectedPage = getPageDTOList(new PageImpl<>(ordersFromDB, page, 1L));
 
         //when
-        Page<OrderDTO> actualPage = doSearchOrder(pageFromDB, searchRequest);
+        Slice<OrderDTO> actualPage = doSearchOrder(ordersFromDB, Pagination.DEFAULT_LIMIT, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -100,21 +153,44 @@ public class OrderServiceTests {
         searchRequest.setPage(0);
         searchRequest.setLimit(2);
 
-        PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
-        Page<Order> pageFromDB = new PageImpl<>(List.of(order1, order2, order3), page, 2L);
-        Page<OrderDTO> expectedPage = getPageDTOList(pageFromDB);
+        PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit(), OrderSpecifications.KEYSET.getSort());
+        List<OrderSearchView> ordersFromDB = List.of(toSearchView(order1), toSearchView(order2), toSearchView(order3));
+        Slice<OrderDTO> expectedPage = getPageDTOList(new PageImpl<>(ordersFromDB.subList(0, 2), page, 3L));
+
+        when(searchCountService.count(eq(orderRepository), any(Specification.class), eq(searchRequest)))
+                .thenReturn(3L);
 
         //when
-        Page<OrderDTO> actualPage = doSearchOrder(pageFromDB, searchRequest);
+        Slice<OrderDTO> actualPage = doSearchOrder(ordersFromDB, searchRequest.getLimit(), searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
     }
 
+    @Test
+    public void givenCursor_whenSearchOrder_thenSeekPastItWithoutOffset() {
+        //given
+        OrderSearchRequest searchRequest = new OrderSearchRequest();
+        searchRequest.setLimit(1);
+        searchRequest.setCursor(PageCursor.encode(order1.getDatetime(), order1.getId()));
+        searchRequest.setCount(CountMode.NONE);
+
+        when(orderRepository.findSearchViews(any(Specification.class), eq(OrderSpecifications.KEYSET.getSort()), eq(0L), eq(2)))
+                .thenReturn(List.of(toSearchView(order2), toSearchView(order3)));
+
+        //when
+        CursorSlice<OrderDTO> actualPage = (CursorSlice<OrderDTO>) orderService.searchOrders(searchRequest);
+
+        //then
+        assertThat(actualPage.getContent(), equalTo(List.of(toSearchView(order2).toDTO())));
+        assertThat(actualPage.getNextCursor(), equalTo(PageCursor.encode(order2.getDatetime(), order2.getId())));
+        verify(orderRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
     @Test
     public void givenNotValidOrderStatus_whenUpdateOrder_thenThrowCantChangeOrderStatusException() {
         //given
-        when(orderRepository.findById(Mockito.any()))
+        when(orderRepository.findForUpdateById(Mockito.any()))
                 .thenReturn(Optional.of(order2));
 
         //then
@@ -125,35 +201,369 @@ public class OrderServiceTests {
     @Test
     public void givenNotValidOrderStatus_whenUpdateStatus_thenThrowCantChangeOrderStatusException() {
         //given
-        when(orderRepository.findById(Mockito.any()))
-                .thenReturn(Optional.of(order2));
+        when(orderRepository.updateOrderStatus(OrderStatus.APPROVED, order2.getId(), OrderStatus.APPROVED.getAllowedPreviousStatuses()))
+                .thenReturn(0);
+        when(orderRepository.existsById(order2.getId()))
+                .thenReturn(true);
 
         //then
-        assertThrows(CantChangeOrderStatusException.class, () -> orderService.updateStatus(order2.getId(), OrderStatus.APPROVED));
+        assertThrows(CantChangeOrderStatusException.class, () -> orderService.updateStatus(order2.getId(), OrderStatus.APPROVED, false));
+
+    }
 
+    @Test
+    public void givenNotValidOrderId_whenUpdateStatus_thenThrowEntityNotFoundException() {
+        //given
+        when(orderRepository.existsById(Mockito.any()))
+                .thenReturn(false);
+
+        //then
+        assertThrows(EntityNotFoundException.class, () -> orderService.updateStatus(order1.getId(), OrderStatus.APPROVED, false));
+    }
+
+    @Test
+    public void givenValidOrderStatus_whenUpdateStatus_thenUpdateWithSingleStatementWithoutReload() {
+        //given
+        when(orderRepository.updateOrderStatus(OrderStatus.APPROVED, order1.getId(), OrderStatus.APPROVED.getAllowedPreviousStatuses()))
+                .thenReturn(1);
+
+        //when
+        OrderDTO updatedOrder = orderService.updateStatus(order1.getId(), OrderStatus.APPROVED, false);
+
+        //then
+        assertThat(updatedOrder.getId(), equalTo(order1.getId()));
+        assertThat(updatedOrder.getStatus(), equalTo(OrderStatus.APPROVED));
+        verify(orderRepository, never()).findById(Mockito.any());
+        verify(orderHoldService).confirmHolds(List.of(order1.getId()));
+    }
+
+    @Test
+    public void givenCancelledOrder_whenUpdateStatus_thenReleaseHold() {
+        //given
+        when(orderRepository.updateOrderStatus(OrderStatus.CANCELLED, order1.getId(), OrderStatus.CANCELLED.getAllowedPreviousStatuses()))
+                .thenReturn(1);
+
+        //when
+        orderService.updateStatus(order1.getId(), OrderStatus.CANCELLED, false);
+
+        //then
+        verify(orderHoldService).releaseHolds(List.of(order1.getId()));
+        verify(orderHoldService, never()).confirmHolds(Mockito.any());
+    }
+
+    @Test
+    public void givenValidOrderStatusAndReload_whenUpdateStatus_thenReturnReloadedOrder() {
+        //given
+        order1.setStatus(OrderStatus.APPROVED);
+        when(orderRepository.updateOrderStatus(OrderStatus.APPROVED, order1.getId(), OrderStatus.APPROVED.getAllowedPreviousStatuses()))
+                .thenReturn(1);
+        when(orderRepository.findById(order1.getId()))
+                .thenReturn(Optional.of(order1));
+
+        //when
+        OrderDTO updatedOrder = orderService.updateStatus(order1.getId(), OrderStatus.APPROVED, true);
+
+        //then
+        assertThat(updatedOrder, equalTo(order1.toDTO()));
+    }
+
+    @Test
+    public void givenOrderStatusTransitions_whenCanBeChangedTo_thenMatchOrderLifecycle() {
+        assertThat(OrderStatus.NEW.canBeChangedTo(OrderStatus.APPROVED), equalTo(true));
+        assertThat(OrderStatus.APPROVED.canBeChangedTo(OrderStatus.COMPLETED), equalTo(true));
+        assertThat(OrderStatus.APPROVED.canBeChangedTo(OrderStatus.NEW), equalTo(false));
+        assertThat(OrderStatus.CANCELLED.canBeChangedTo(OrderStatus.APPROVED), equalTo(false));
+        assertThat(OrderStatus.COMPLETED.canBeChangedTo(OrderStatus.CANCELLED), equalTo(false));
     }
 
     @Test
     public void givenNotValidOrderId_whenUpdateOrder_thenThrowEntityNotFoundException() {
         //when
-        when(orderRepository.findById(Mockito.any()))
+        when(orderRepository.findForUpdateById(Mockito.any()))
                 .thenReturn(Optional.empty());
 
         //then
         assertThrows(EntityNotFoundException.class, () -> orderService.updateOrder(order1.getId(), order1.toDTO()));//todo check message
     }
 
-    private Page<OrderDTO> doSearchOrder(Page<Order> pageFromDB, OrderSearchRequest searchRequest) {
-        when(orderRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(pageFromDB);
+    @Test
+    public void givenValidOrder_whenSaveOrder_thenReserveBooksAndSetPricesInOnePass() {
+        //given
+        SoldItem soldItem1 = new SoldItem(null, stockItem1.getBookIsbn(), null, 0, 2);
+        SoldItem soldItem2 = new SoldItem(null, stockItem1.getBookIsbn(), null, 0, 1);
+        SoldItem soldItem3 = new SoldItem(null, stockItem2.getBookIsbn(), null, 0, 4);
+        OrderDTO orderDTO = new OrderDTO(null, List.of(soldItem1, soldItem2, soldItem3), order1.getClient(), null, null);
+
+        when(warehouseServiceMock.withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), 3, stockItem2.getBookIsbn(), 4)))
+                .thenReturn(List.of(stockItem1.toDTO(), stockItem2.toDTO()));
+
+        when(orderRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        OrderDTO savedOrder = orderService.saveOrder(orderDTO);
+
+        //then
+        assertThat(savedOrder.getStatus(), equalTo(OrderStatus.NEW));
+        assertThat(soldItem1.getPrice(), equalTo(stockItem1.getPrice()));
+        assertThat(soldItem2.getPrice(), equalTo(stockItem1.getPrice()));
+        assertThat(soldItem3.getPrice(), equalTo(stockItem2.getPrice()));
+        verify(warehouseServiceMock, never()).getBookPrice(Mockito.any());
+        verify(orderHoldService).placeHold(savedOrder.getId());
+    }
+
+    @Test
+    public void givenDeadlock_whenSaveOrder_thenRetryInNewTransaction() {
+        //given
+        SoldItem soldItem = new SoldItem(null, stockItem1.getBookIsbn(), null, 0, 1);
+        OrderDTO orderDTO = new OrderDTO(null, List.of(soldItem), order1.getClient(), null, null);
+
+        when(warehouseServiceMock.withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), 1)))
+                .thenThrow(new DeadlockLoserDataAccessException("deadlock detected", null))
+                .thenReturn(List.of(stockItem1.toDTO()));
+        when(orderRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        OrderDTO savedOrder = orderService.saveOrder(orderDTO);
+
+        //then
+        assertThat(savedOrder.getStatus(), equalTo(OrderStatus.NEW));
+        assertThat(soldItem.getPrice(), equalTo(stockItem1.getPrice()));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(orderHoldService).placeHold(savedOrder.getId());
+    }
+
+    @Test
+    public void givenChangedLines_whenUpdateOrder_thenApplyOnlyNetStockDifference() {
+        //given
+        SoldItem changedItem = new SoldItem(null, stockItem1.getBookIsbn(), null, 0, 3);
+        SoldItem addedItem = new SoldItem(null, stockItem3.getBookIsbn(), null, 0, 1);
+        OrderDTO orderDTO = new OrderDTO(null, List.of(changedItem, addedItem), order1.getClient(), null, null);
+        Order currentOrder = new Order(1L, List.of(
+                new SoldItem(1L, stockItem1.getBookIsbn(), null, 25.3, 2),
+                new SoldItem(2L, stockItem2.getBookIsbn(), null, 45.0, 4)), order1.getClient(), OrderStatus.NEW, order1.getDatetime());
+
+        when(orderRepository.findForUpdateById(currentOrder.getId()))
+                .thenReturn(Optional.of(currentOrder));
+        when(warehouseServiceMock.withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), 1, stockItem2.getBookIsbn(), -4, stockItem3.getBookIsbn(), 1)))
+                .thenReturn(List.of(stockItem1.toDTO(), stockItem2.toDTO(), stockItem3.toDTO()));
+        when(orderRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        OrderDTO updatedOrder = orderService.updateOrder(currentOrder.getId(), orderDTO);
+
+        //then
+        assertThat(updatedOrder.getId(), equalTo(currentOrder.getId()));
+        assertThat(changedItem.getPrice(), equalTo(stockItem1.getPrice()));
+        assertThat(addedItem.getPrice(), equalTo(stockItem3.getPrice()));
+        verify(warehouseServiceMock, never()).updateStockItem(Mockito.any(), Mockito.any(), Mockito.any());
+        InOrder replaceLines = inOrder(orderRepository);
+        replaceLines.verify(orderRepository).deleteSoldItemsByOrderId(currentOrder.getId());
+        replaceLines.verify(orderRepository).save(Mockito.any());
+    }
+
+    @Test
+    public void givenUpdatedOrder_whenHoldExpires_thenReturnOnlyCurrentLines() {
+        //given
+        Instant placedAt = Instant.parse("2024-03-01T10:00:00Z");
+        OrderHoldServiceImpl holdService = holdService(placedAt);
+        when(orderHoldRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        holdService.placeHold(1L);
+
+        // sold_book rows of the order, as the repository would keep them
+        List<SoldItem> storedItems = new ArrayList<>(List.of(new SoldItem(1L, stockItem1.getBookIsbn(), null, 25.3, 2)));
+        Order currentOrder = new Order(1L, new ArrayList<>(storedItems), order1.getClient(), OrderStatus.NEW, order1.getDatetime());
+        OrderDTO orderDTO = new OrderDTO(null, List.of(new SoldItem(1L, stockItem1.getBookIsbn(), null, 0, 3)), order1.getClient(), null, null);
+        when(orderRepository.findForUpdateById(currentOrder.getId()))
+                .thenReturn(Optional.of(currentOrder));
+        when(warehouseServiceMock.withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), 1)))
+                .thenReturn(List.of(stockItem1.toDTO()));
+        when(orderRepository.deleteSoldItemsByOrderId(currentOrder.getId()))
+                .thenAnswer(invocation -> {
+                    int deleted = storedItems.size();
+                    storedItems.clear();
+                    return deleted;
+                });
+        when(orderRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> {
+                    Order order = invocation.getArgument(0);
+                    storedItems.addAll(order.getBooks());
+                    return order;
+                });
+        when(orderRepository.sumQuantitiesByOrderIdIn(List.of(1L)))
+                .thenAnswer(invocation -> storedItems.stream()
+                        .collect(Collectors.groupingBy(SoldItem::getBookIsbn, Collectors.summingLong(SoldItem::getQuantity)))
+                        .entrySet().stream()
+                        .map(books -> bookQuantityView(books.getKey(), books.getValue()))
+                        .collect(Collectors.toList()));
+        orderService.updateOrder(currentOrder.getId(), orderDTO);
+
+        Instant expiredAt = placedAt.plus(Duration.ofMinutes(31));
+        ReflectionTestUtils.setField(holdService, "clock", Clock.fixed(expiredAt, ZoneOffset.UTC));
+        when(orderHoldRepository.findExpiredOrderIds(List.of(1L), expiredAt))
+                .thenReturn(List.of(1L));
+        when(orderRepository.findStatusesByIdIn(List.of(1L)))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.CANCELLED)));
+        when(orderHoldRepository.claimHolds(List.of(1L)))
+                .thenReturn(List.of(1L));
+
+        //when
+        holdService.releaseExpiredHolds();
+
+        //then
+        verify(warehouseServiceMock).withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), -3));
+    }
+
+    @Test
+    public void givenHoldExpiringWhileWaitingForOrderLock_whenUpdateOrder_thenThrowCantChangeOrderStatusException() {
+        //given
+        Instant placedAt = Instant.parse("2024-03-01T10:00:00Z");
+        Instant expiredAt = placedAt.plus(Duration.ofMinutes(31));
+        OrderHoldServiceImpl holdService = holdService(placedAt);
+        when(orderHoldRepository.save(Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        holdService.placeHold(1L);
+        ReflectionTestUtils.setField(holdService, "clock", Clock.fixed(expiredAt, ZoneOffset.UTC));
+
+        // status of the order row, as the sweeper leaves it
+        AtomicReference<OrderStatus> storedStatus = new AtomicReference<>(OrderStatus.NEW);
+        OrderDTO orderDTO = new OrderDTO(null, List.of(new SoldItem(null, stockItem1.getBookIsbn(), null, 0, 3)), order1.getClient(), null, null);
+        when(orderHoldRepository.findExpiredOrderIds(List.of(1L), expiredAt))
+                .thenReturn(List.of(1L));
+        when(orderRepository.updateOrdersStatus(OrderStatus.CANCELLED, List.of(1L), Set.of(OrderStatus.NEW)))
+                .thenAnswer(invocation -> {
+                    storedStatus.set(OrderStatus.CANCELLED);
+                    return 1;
+                });
+        when(orderRepository.findStatusesByIdIn(List.of(1L)))
+                .thenAnswer(invocation -> List.of(orderStatusView(1L, storedStatus.get())));
+        when(orderHoldRepository.claimHolds(List.of(1L)))
+                .thenReturn(List.of(1L));
+        when(orderRepository.sumQuantitiesByOrderIdIn(List.of(1L)))
+                .thenReturn(List.of(bookQuantityView(stockItem1.getBookIsbn(), 2L)));
+        // the sweeper commits first, the update gets the row lock only afterwards
+        when(orderRepository.findForUpdateById(1L))
+                .thenAnswer(invocation -> {
+                    holdService.releaseExpiredHolds();
+                    return Optional.of(new Order(1L, List.of(new SoldItem(1L, stockItem1.getBookIsbn(), null, 25.3, 2)),
+                            order1.getClient(), storedStatus.get(), order1.getDatetime()));
+                });
+
+        //when
+        assertThrows(CantChangeOrderStatusException.class, () -> orderService.updateOrder(1L, orderDTO));
+
+        //then
+        verify(warehouseServiceMock).withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), -2));
+        verify(warehouseServiceMock, never()).withdrawBooksFromStock(Map.of(stockItem1.getBookIsbn(), 1));
+        verify(orderRepository, never()).save(Mockito.any());
+    }
+
+    @Test
+    public void givenOrderIds_whenUpdateStatuses_thenReturnResultPerId() {
+        //given
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(List.of(1L, 2L, 3L, 4L), null, OrderStatus.COMPLETED);
+
+        when(orderRepository.findStatusesByIdIn(request.getIds()))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.NEW), orderStatusView(2L, OrderStatus.CANCELLED), orderStatusView(3L, OrderStatus.APPROVED)));
+        when(orderRepository.updateOrdersStatus(OrderStatus.COMPLETED, List.of(1L, 3L), OrderStatus.COMPLETED.getAllowedPreviousStatuses()))
+                .thenReturn(2);
+
+        //when
+        List<OrderStatusUpdateResultDTO> results = orderService.updateStatuses(request);
+
+        //then
+        assertThat(results.stream().map(OrderStatusUpdateResultDTO::isUpdated).collect(Collectors.toList()),
+                equalTo(List.of(true, false, true, false)));
+        assertThat(results.get(1).getMessage(), equalTo(Messages.CANT_CHANGE_ORDER_STATUS));
+        assertThat(results.get(3).getMessage(), equalTo(String.format(Messages.ORDER_ID_NOT_FOUND, 4L)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenFilterMatchingMoreThanChunk_whenUpdateStatuses_thenReadIdsChunkByChunkAfterLastOne() {
+        //given
+        OrderSearchRequest filter = new OrderSearchRequest();
+        filter.setStatus(OrderStatus.NEW);
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(null, filter, OrderStatus.APPROVED);
+        List<Long> firstChunk = LongStream.rangeClosed(1, 500).boxed().collect(Collectors.toList());
+
+        when(orderRepository.findIdsAfter(any(Specification.class), isNull(), eq(500)))
+                .thenReturn(firstChunk);
+        when(orderRepository.findIdsAfter(any(Specification.class), eq(500L), eq(500)))
+                .thenReturn(List.of(501L));
+        when(orderRepository.findStatusesByIdIn(firstChunk))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.NEW)));
+        when(orderRepository.findStatusesByIdIn(List.of(501L)))
+                .thenReturn(List.of(orderStatusView(501L, OrderStatus.NEW)));
+        when(orderRepository.updateOrdersStatus(eq(OrderStatus.APPROVED), any(), eq(OrderStatus.APPROVED.getAllowedPreviousStatuses())))
+                .thenReturn(1);
+
+        //when
+        List<OrderStatusUpdateResultDTO> results = orderService.updateStatuses(request);
+
+        //then
+        verify(orderRepository).updateOrdersStatus(OrderStatus.APPROVED, List.of(1L), OrderStatus.APPROVED.getAllowedPreviousStatuses());
+        verify(orderRepository).updateOrdersStatus(OrderStatus.APPROVED, List.of(501L), OrderStatus.APPROVED.getAllowedPreviousStatuses());
+        assertThat(results.size(), equalTo(501));
+        assertThat(results.get(500).isUpdated(), equalTo(true));
+    }
+
+    @Test
+    public void givenConcurrentlyChangedOrder_whenUpdateStatuses_thenReportItAsNotUpdated() {
+        //given
+        OrderStatusBulkRequest request = new OrderStatusBulkRequest(List.of(1L, 3L), null, OrderStatus.COMPLETED);
+
+        when(orderRepository.findStatusesByIdIn(request.getIds()))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.NEW), orderStatusView(3L, OrderStatus.APPROVED)))
+                .thenReturn(List.of(orderStatusView(1L, OrderStatus.COMPLETED), orderStatusView(3L, OrderStatus.CANCELLED)));
+        when(orderRepository.updateOrdersStatus(OrderStatus.COMPLETED, List.of(1L, 3L), OrderStatus.COMPLETED.getAllowedPreviousStatuses()))
+                .thenReturn(1);
+
+        //when
+        List<OrderStatusUpdateResultDTO> results = orderService.updateStatuses(request);
+
+        //then
+        assertThat(results.stream().map(OrderStatusUpdateResultDTO::isUpdated).collect(Collectors.toList()),
+                equalTo(List.of(true, false)));
+    }
+
+    private OrderHoldServiceImpl holdService(Instant now) {
+        OrderHoldServiceImpl holdService = new OrderHoldServiceImpl();
+        ReflectionTestUtils.setField(holdService, "orderHoldRepository", orderHoldRepository);
+        ReflectionTestUtils.setField(holdService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(holdService, "warehouseService", warehouseServiceMock);
+        ReflectionTestUtils.setField(holdService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(holdService, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(holdService, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(holdService, "tick", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(holdService, "wheelSize", 8);
+        holdService.init();
+        return holdService;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Slice<OrderDTO> doSearchOrder(List<OrderSearchView> ordersFromDB, int limit, OrderSearchRequest searchRequest) {
+        when(orderRepository.findSearchViews(any(Specification.class), eq(OrderSpecifications.KEYSET.getSort()), eq(0L), eq(limit + 1)))
+                .thenReturn(ordersFromDB);
 
 
         return orderService.searchOrders(searchRequest);
     }
 
-    private Page<OrderDTO> getPageDTOList(Page<Order> Orders) {
-        return new PageImpl<>(Orders.stream()
-                .map(Order::toDTO)
-                .collect(Collectors.toList()));
+    private Page<OrderDTO> getPageDTOList(Page<OrderSearchView> Orders) {
+        return Orders.map(OrderSearchView::toDTO);
+    }
+
+    private OrderSearchView toSearchView(Order order) {
+        Client client = order.getClient();
+        OrderSearchView view = new OrderSearchView(order.getId(), order.getStatus(), order.getDatetime(), client.getId(),
+                client.getName(), client.getSurname(), client.getPhoneNumber(), client.getEmail(), client.getAddress());
+        order.getBooks().forEach(book -> view.getBooks().add(
+                new SoldItem(book.getId(), book.getBookIsbn(), null, book.getPrice(), book.getQuantity())));
+        return view;
     }
 }
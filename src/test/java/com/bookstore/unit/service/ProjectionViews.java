@@ -0,0 +1,40 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.repository.projection.BookQuantityView;
+import com.bookstore.repository.projection.OrderStatusView;
+
+// rows of the repositories' interface projections, as the service tests stub them
+final class ProjectionViews {
+
+    private ProjectionViews() {
+    }
+
+    static BookQuantityView bookQuantityView(String bookIsbn, Long quantity) {
+        return new BookQuantityView() {
+            @Override
+            public String getBookIsbn() {
+                return bookIsbn;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    static OrderStatusView orderStatusView(Long id, OrderStatus status) {
+        return new OrderStatusView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public OrderStatus getStatus() {
+                return status;
+            }
+        };
+    }
+}
@@ -18,11 +18,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -57,10 +57,10 @@ public class PublisherServiceTest {
 
         PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
         Page<Publisher> pageFromDB = new PageImpl<>(List.of(publisher1, publisher2), page, 2L);
-        Page<PublisherDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(publisher1, publisher2), page, 2L));
+        Slice<PublisherDTO> expectedPage = getPageDTOList(new PageImpl<>(List.of(publisher1, publisher2), page, 2L));
 
         //when
-        Page<PublisherDTO> actualPage = doSearchPublisher(pageFromDB, searchRequest);
+        Slice<PublisherDTO> actualPage = doSearchPublisher(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -75,10 +75,10 @@ public class PublisherServiceTest {
 
         PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
         Page<Publisher> pageFromDB = new PageImpl<>(List.of(publisher1, publisher4), page, 2L);
-        Page<PublisherDTO> expectedPage = getPageDTOList(pageFromDB);
+        Slice<PublisherDTO> expectedPage = getPageDTOList(pageFromDB);
 
         //when
-        Page<PublisherDTO> actualPage = doSearchPublisher(pageFromDB, searchRequest);
+        Slice<PublisherDTO> actualPage = doSearchPublisher(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -135,7 +135,7 @@ public class PublisherServiceTest {
         assertThrows(EntityNotFoundException.class, () -> publisherService.updatePublisher(publisher1.toDTO(), publisher1.getId()));//todo check message
     }
 
-    private Page<PublisherDTO> doSearchPublisher(Page<Publisher> pageFromDB, PublisherSearchRequest searchRequest) {
+    private Slice<PublisherDTO> doSearchPublisher(Page<Publisher> pageFromDB, PublisherSearchRequest searchRequest) {
         when(publisherRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(pageFromDB);
 
@@ -144,8 +144,6 @@ public class PublisherServiceTest {
     }
 
     private Page<PublisherDTO> getPageDTOList(Page<Publisher> Publishers) {
-        return new PageImpl<>(Publishers.stream()
-                .map(Publisher::toDTO)
-                .collect(Collectors.toList()));
+        return Publishers.map(Publisher::toDTO);
     }
 }
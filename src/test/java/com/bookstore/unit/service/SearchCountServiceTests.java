@@ -0,0 +1,119 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.controller.request.OrderSearchRequest;
+import com.bookstore.entity.Order;
+import com.bookstore.entity.enums.CountMode;
+import com.bookstore.entity.enums.OrderStatus;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.specification.OrderSpecifications;
+import com.bookstore.service.impl.SearchCountServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchCountServiceTests {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private SearchCountServiceImpl searchCountService;
+
+    private final Specification<Order> query = OrderSpecifications.generateQuery(new OrderSearchRequest());
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(searchCountService, "countCacheMaxSize", 100);
+        ReflectionTestUtils.setField(searchCountService, "countCacheTtl", Duration.ofMinutes(1));
+        searchCountService.init();
+    }
+
+    @Test
+    public void givenCachedCountMode_whenCountTwoPagesOfSameSearch_thenCountOnce() {
+        //given
+        OrderSearchRequest firstPage = searchRequest(CountMode.CACHED, 0);
+        OrderSearchRequest secondPage = searchRequest(CountMode.CACHED, 1);
+
+        when(orderRepository.count(query)).thenReturn(42L);
+
+        //when
+        long firstTotal = searchCountService.count(orderRepository, query, firstPage);
+        long secondTotal = searchCountService.count(orderRepository, query, secondPage);
+
+        //then
+        assertThat(firstTotal, equalTo(42L));
+        assertThat(secondTotal, equalTo(42L));
+        verify(orderRepository, times(1)).count(query);
+    }
+
+    @Test
+    public void givenExactCountMode_whenCountTwoPagesOfSameSearch_thenCountEachPage() {
+        //given
+        when(orderRepository.count(query)).thenReturn(42L);
+
+        //when
+        searchCountService.count(orderRepository, query, searchRequest(CountMode.EXACT, 0));
+        searchCountService.count(orderRepository, query, searchRequest(CountMode.EXACT, 1));
+
+        //then
+        verify(orderRepository, times(2)).count(query);
+    }
+
+    @Test
+    public void givenEstimateCountModeWithoutFilter_whenCount_thenReturnPlannerEstimate() {
+        //given
+        OrderSearchRequest searchRequest = new OrderSearchRequest();
+        searchRequest.setCount(CountMode.ESTIMATE);
+
+        when(orderRepository.estimateCount()).thenReturn(1_000_000L);
+
+        //when
+        long total = searchCountService.count(orderRepository, query, searchRequest);
+
+        //then
+        assertThat(total, equalTo(1_000_000L));
+        verify(orderRepository, never()).count(query);
+    }
+
+    @Test
+    public void givenEstimateCountModeWithFilter_whenCount_thenThrowIllegalArgumentException() {
+        //when
+        assertThrows(IllegalArgumentException.class,
+                () -> searchCountService.count(orderRepository, query, searchRequest(CountMode.ESTIMATE, 0)));
+
+        //then
+        verify(orderRepository, never()).estimateCount();
+        verify(orderRepository, never()).count(query);
+    }
+
+    @Test
+    public void givenEstimateCountModeWithFilter_whenValidate_thenCountModeNotValid() {
+        //then
+        assertThat(searchRequest(CountMode.ESTIMATE, 0).isCountModeValid(), equalTo(false));
+        assertThat(searchRequest(CountMode.CACHED, 0).isCountModeValid(), equalTo(true));
+    }
+
+    private OrderSearchRequest searchRequest(CountMode count, int page) {
+        OrderSearchRequest searchRequest = new OrderSearchRequest();
+        searchRequest.setStatus(OrderStatus.NEW);
+        searchRequest.setPage(page);
+        searchRequest.setCount(count);
+        return searchRequest;
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookstore.unit.service;
+
+import com.bookstore.entity.enums.StockMovementType;
+import com.bookstore.repository.StockMovementRepository;
+import com.bookstore.service.impl.StockLedgerServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerServiceTests {
+
+    private static final String ISBN_1 = "978-617-679-145-4";
+    private static final String ISBN_2 = "978-617-8024-01-7";
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @InjectMocks
+    private StockLedgerServiceImpl stockLedgerService;
+
+    @Test
+    public void givenBalances_whenWithdraw_thenLockBeforeReadingAndAppendOnlyCoveredWithdrawals() {
+        //given
+        when(stockMovementRepository.findBalances(Set.of(ISBN_1, ISBN_2)))
+                .thenReturn(Map.of(ISBN_1, 5, ISBN_2, 1));
+
+        //when
+        List<String> shortages = stockLedgerService.withdraw(Map.of(ISBN_1, 5, ISBN_2, 2), StockMovementType.ORDER_WITHDRAWAL);
+
+        //then
+        assertThat(shortages, equalTo(List.of(ISBN_2)));
+        InOrder withdrawal = inOrder(stockMovementRepository);
+        withdrawal.verify(stockMovementRepository).lockBooks(Set.of(ISBN_1, ISBN_2));
+        withdrawal.verify(stockMovementRepository).findBalances(Set.of(ISBN_1, ISBN_2));
+        withdrawal.verify(stockMovementRepository).appendPendingMovements(eq(Map.of(ISBN_1, -5)), eq(StockMovementType.ORDER_WITHDRAWAL), any());
+    }
+
+    @Test
+    public void givenOnlyReturns_whenWithdraw_thenNeitherLockNorAppend() {
+        //when
+        List<String> shortages = stockLedgerService.withdraw(Map.of(ISBN_1, -2), StockMovementType.ORDER_WITHDRAWAL);
+
+        //then
+        assertThat(shortages, equalTo(List.of()));
+        verify(stockMovementRepository, never()).lockBooks(any());
+        verify(stockMovementRepository, never()).appendPendingMovements(any(), any(), any());
+    }
+}
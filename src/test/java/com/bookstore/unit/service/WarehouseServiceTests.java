@@ -1,34 +1,73 @@
 package com.bookstore.unit.service;
 
+import com.bookstore.common.Messages;
 import com.bookstore.common.Pagination;
+import com.bookstore.controller.dto.StockAvailabilityDTO;
+import com.bookstore.controller.dto.StockConflictStatsDTO;
+import com.bookstore.controller.dto.StockImportResultDTO;
 import com.bookstore.controller.dto.StockItemDTO;
+import com.bookstore.controller.dto.StockRepriceResultDTO;
+import com.bookstore.controller.request.StockRepriceRequest;
 import com.bookstore.controller.request.WarehouseSearchRequest;
 import com.bookstore.entity.StockItem;
+import com.bookstore.entity.StockShard;
+import com.bookstore.entity.enums.PriceOperation;
+import com.bookstore.entity.enums.StockFileFormat;
+import com.bookstore.entity.enums.StockMovementType;
 import com.bookstore.exception.EntityNotFoundException;
+import com.bookstore.exception.HotStockSplitException;
 import com.bookstore.exception.NotEnoughInStockException;
+import com.bookstore.exception.StockShardingDisabledException;
+import com.bookstore.repository.StockShardRepository;
 import com.bookstore.repository.WarehouseRepository;
+import com.bookstore.repository.projection.BookPriceView;
+import com.bookstore.service.HotStockService;
+import com.bookstore.service.StockLedgerService;
 import com.bookstore.service.impl.WarehouseServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
-
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static com.bookstore.unit.service.ProjectionViews.bookQuantityView;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +76,21 @@ public class WarehouseServiceTests {
     @Mock
     private WarehouseRepository warehouseRepository;
 
+    @Mock
+    private StockShardRepository stockShardRepository;
+
+    @Mock
+    private HotStockService hotStockService;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private WarehouseServiceImpl warehouseService;
 
@@ -48,6 +102,14 @@ public class WarehouseServiceTests {
         item2 = new StockItem(2L, "978-617-8024-01-7", 45.0, 25);
         item3 = new StockItem(3L, "978-618-7807-04-8", 154.5, 23);
         item4 = new StockItem(4L, "978-966-97821-0-6", 178.4, 20);
+
+        ReflectionTestUtils.setField(warehouseService, "priceCacheMaxSize", 100);
+        ReflectionTestUtils.setField(warehouseService, "priceCacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(warehouseService, "importBatchSize", 100);
+        ReflectionTestUtils.setField(warehouseService, "retryMaxAttempts", 3);
+        ReflectionTestUtils.setField(warehouseService, "retryBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(warehouseService, "retryMaxBackoff", Duration.ZERO);
+        warehouseService.init();
     }
 
     @Test
@@ -58,10 +120,10 @@ public class WarehouseServiceTests {
 
         PageRequest page = PageRequest.of(Pagination.DEFAULT_PAGE, Pagination.DEFAULT_LIMIT);
         Page<StockItem> pageFromDB = new PageImpl<>(List.of(item1, item2), page, 2L);
-        Page<StockItemDTO> expectedPage = getPageDTOList(pageFromDB);
+        Slice<StockItemDTO> expectedPage = getPageDTOList(pageFromDB);
 
         //when
-        Page<StockItemDTO> actualPage = doSearchStockItem(pageFromDB, searchRequest);
+        Slice<StockItemDTO> actualPage = doSearchStockItem(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -77,10 +139,10 @@ public class WarehouseServiceTests {
 
         PageRequest page = PageRequest.of(searchRequest.getPage(), searchRequest.getLimit());
         Page<StockItem> pageFromDB = new PageImpl<>(List.of(item3, item4), page, 2L);
-        Page<StockItemDTO> expectedPage = getPageDTOList(pageFromDB);
+        Slice<StockItemDTO> expectedPage = getPageDTOList(pageFromDB);
 
         //when
-        Page<StockItemDTO> actualPage = doSearchStockItem(pageFromDB, searchRequest);
+        Slice<StockItemDTO> actualPage = doSearchStockItem(pageFromDB, searchRequest);
 
         //then
         assertThat(actualPage, equalTo(expectedPage));
@@ -115,6 +177,47 @@ public class WarehouseServiceTests {
         assertThat(item1.toDTO(), equalTo(actualStockItem));
     }
 
+    @Test
+    public void givenConcurrentChange_whenUpdateStockItem_thenRetryAndCountConflict() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "ledgerEnabled", false);
+
+        when(warehouseRepository.findByBookIsbn(item1.getBookIsbn()))
+                .thenReturn(Optional.of(item1));
+        when(warehouseRepository.saveAndFlush(Mockito.any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(StockItem.class, item1.getId()))
+                .thenReturn(item1);
+
+        //when
+        StockItemDTO actualStockItem = warehouseService.updateStockItem(item1.getBookIsbn(), 1, null);
+
+        //then
+        verify(warehouseRepository, Mockito.times(2)).saveAndFlush(item1);
+        assertThat(actualStockItem, equalTo(item1.toDTO()));
+        assertThat(warehouseService.getConflictStats(10), equalTo(List.of(new StockConflictStatsDTO(item1.getBookIsbn(), 2, 1, 1, 0))));
+    }
+
+    @Test
+    public void givenLedgerAndConcurrentChange_whenUpdateStockItem_thenRetryAndCountConflict() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "ledgerEnabled", true);
+        item1.setVersion(7L);
+
+        when(warehouseRepository.findByBookIsbn(item1.getBookIsbn()))
+                .thenReturn(Optional.of(item1));
+        when(warehouseRepository.updatePrice(item1.getBookIsbn(), item1.getPrice(), 7L))
+                .thenReturn(0, 1);
+
+        //when
+        StockItemDTO actualStockItem = warehouseService.updateStockItem(item1.getBookIsbn(), 1, null);
+
+        //then
+        verify(warehouseRepository, Mockito.times(2)).updatePrice(item1.getBookIsbn(), item1.getPrice(), 7L);
+        verify(stockLedgerService, Mockito.times(1)).recordMovements(Map.of(item1.getBookIsbn(), 1), StockMovementType.MANUAL_ADJUSTMENT, false);
+        assertThat(actualStockItem.getQuantity(), equalTo(11));
+        assertThat(warehouseService.getConflictStats(10), equalTo(List.of(new StockConflictStatsDTO(item1.getBookIsbn(), 2, 1, 1, 0))));
+    }
+
     @Test
     public void givenNotValidIsbn_whenUpdateStockItem_thenThrowsEntityNotFoundException() {
 
@@ -138,20 +241,444 @@ public class WarehouseServiceTests {
         int withdrawQuantity = 1;
         item1.setQuantity(item1.getQuantity() - withdrawQuantity);
 
+        when(warehouseRepository.withdrawQuantity(item1.getBookIsbn(), withdrawQuantity))
+                .thenReturn(1);
+
         when(warehouseRepository.findByBookIsbn(Mockito.any()))
                 .thenReturn(Optional.of(item1));
 
+        //when
+        StockItemDTO actualStockItem = warehouseService.withdrawBookFromStock(item1.getBookIsbn(), withdrawQuantity);
+
+        //then
+        assertThat(item1.toDTO(), equalTo(actualStockItem));
+    }
+
+    @Test
+    public void givenValidQuantities_whenWithdrawBooksFromStock_thenUpdateAllAndReturnStockItems() {
+        //given
+        Map<String, Integer> quantitiesByIsbn = Map.of(item1.getBookIsbn(), 2, item2.getBookIsbn(), 5);
+
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+
+        when(warehouseRepository.withdrawQuantities(quantitiesByIsbn))
+                .thenReturn(List.of());
+
+        //when
+        List<StockItemDTO> actualStockItems = warehouseService.withdrawBooksFromStock(quantitiesByIsbn);
+
+        //then
+        assertThat(actualStockItems.get(0).getQuantity(), equalTo(8));
+        assertThat(actualStockItems.get(1).getQuantity(), equalTo(20));
+    }
+
+    @Test
+    public void givenNotValidQuantities_whenWithdrawBooksFromStock_thenThrowsNotEnoughInStockExceptionWithAllShortages() {
+        //given
+        Map<String, Integer> quantitiesByIsbn = Map.of(item1.getBookIsbn(), 20, item2.getBookIsbn(), 30);
+
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+
+        //when
+        NotEnoughInStockException exception = assertThrows(NotEnoughInStockException.class,
+                () -> warehouseService.withdrawBooksFromStock(quantitiesByIsbn));
+
+        //then
+        assertThat(exception.getMessage(), containsString(item1.getBookIsbn()));
+        assertThat(exception.getMessage(), containsString(item2.getBookIsbn()));
+        verify(warehouseRepository, never()).withdrawQuantities(Mockito.any());
+    }
+
+    @Test
+    public void givenConcurrentlySoldOutBook_whenWithdrawBooksFromStock_thenThrowsNotEnoughInStockException() {
+        //given
+        Map<String, Integer> quantitiesByIsbn = Map.of(item1.getBookIsbn(), 2, item2.getBookIsbn(), 5);
+
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+
+        when(warehouseRepository.withdrawQuantities(quantitiesByIsbn))
+                .thenReturn(List.of(item2.getBookIsbn()));
+
+        //when
+        NotEnoughInStockException exception = assertThrows(NotEnoughInStockException.class,
+                () -> warehouseService.withdrawBooksFromStock(quantitiesByIsbn));
+
+        //then
+        assertThat(exception.getMessage(), containsString(item2.getBookIsbn()));
+    }
+
+    @Test
+    public void givenNotValidIsbn_whenWithdrawBooksFromStock_thenThrowsEntityNotFoundException() {
+        //given
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1));
+
+        //then
+        assertThrows(EntityNotFoundException.class,
+                () -> warehouseService.withdrawBooksFromStock(Map.of(item1.getBookIsbn(), 1, item2.getBookIsbn(), 1)));
+    }
+
+    @Test
+    public void givenShardedBook_whenWithdrawBooksFromStock_thenWithdrawFromShardsAndReturnSummedQuantity() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "shardingEnabled", true);
+        item1.setQuantity(0);
+
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+        when(stockShardRepository.sumQuantitiesByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(bookQuantityView(item1.getBookIsbn(), 12L)));
+        when(warehouseRepository.withdrawQuantities(Map.of(item2.getBookIsbn(), 5)))
+                .thenReturn(List.of());
+        when(stockShardRepository.withdrawQuantities(Map.of(item1.getBookIsbn(), 2)))
+                .thenReturn(List.of());
+
+        //when
+        List<StockItemDTO> actualStockItems = warehouseService.withdrawBooksFromStock(Map.of(item1.getBookIsbn(), 2, item2.getBookIsbn(), 5));
+
+        //then
+        assertThat(actualStockItems.get(0).getQuantity(), equalTo(10));
+        assertThat(actualStockItems.get(1).getQuantity(), equalTo(20));
+    }
+
+    @Test
+    public void givenHotBook_whenWithdrawBooksFromStock_thenWithdrawInMemoryAndReturnLiveQuantity() {
+        //given
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+        when(hotStockService.isHot(Mockito.any()))
+                .thenAnswer(invocation -> item1.getBookIsbn().equals(invocation.getArgument(0)));
+        when(hotStockService.getQuantity(item1.getBookIsbn()))
+                .thenReturn(OptionalInt.of(7));
+        when(hotStockService.withdraw(Map.of(item1.getBookIsbn(), 2)))
+                .thenReturn(List.of());
+        when(warehouseRepository.withdrawQuantities(Map.of(item2.getBookIsbn(), 5)))
+                .thenReturn(List.of());
+
+        //when
+        List<StockItemDTO> actualStockItems = warehouseService.withdrawBooksFromStock(Map.of(item1.getBookIsbn(), 2, item2.getBookIsbn(), 5));
+
+        //then
+        assertThat(actualStockItems.get(0).getQuantity(), equalTo(5));
+        assertThat(actualStockItems.get(1).getQuantity(), equalTo(20));
+    }
+
+    @Test
+    public void givenHotBookAndRolledBackTransaction_whenWithdrawBooksFromStock_thenGiveBooksBack() {
+        //given
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1));
+        when(hotStockService.isHot(item1.getBookIsbn()))
+                .thenReturn(true);
+        when(hotStockService.getQuantity(item1.getBookIsbn()))
+                .thenReturn(OptionalInt.of(8));
+        when(hotStockService.withdraw(Map.of(item1.getBookIsbn(), 2)))
+                .thenReturn(List.of());
+
+        //when
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            warehouseService.withdrawBooksFromStock(Map.of(item1.getBookIsbn(), 2));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //then
+        verify(hotStockService).withdraw(Map.of(item1.getBookIsbn(), -2));
+    }
+
+    @Test
+    public void givenPendingMovements_whenWithdrawBooksFromStock_thenAppendWithdrawalAndReturnWithoutRowUpdate() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "ledgerEnabled", true);
+        item1.setQuantity(0);
+        Map<String, Integer> quantitiesByIsbn = Map.of(item1.getBookIsbn(), 2, item2.getBookIsbn(), -1);
+
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2));
+        when(stockLedgerService.getPendingQuantities(Mockito.any()))
+                .thenReturn(Map.of(item1.getBookIsbn(), 3));
+        when(stockLedgerService.withdraw(quantitiesByIsbn, StockMovementType.ORDER_WITHDRAWAL))
+                .thenReturn(List.of());
+
+        //when
+        List<StockItemDTO> actualStockItems = warehouseService.withdrawBooksFromStock(quantitiesByIsbn);
+
+        //then
+        verify(warehouseRepository, never()).withdrawQuantities(any());
+        verify(stockLedgerService, never()).compact(any());
+        verify(stockLedgerService).recordMovements(Map.of(item2.getBookIsbn(), 1), StockMovementType.ORDER_RETURN, false);
+        assertThat(actualStockItems.get(0).getQuantity(), equalTo(1));
+        assertThat(actualStockItems.get(1).getQuantity(), equalTo(26));
+    }
+
+    @Test
+    public void givenLedger_whenUpdateStockItem_thenAppendPendingMovementWithoutRowUpdate() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "ledgerEnabled", true);
+
+        when(warehouseRepository.findByBookIsbn(item1.getBookIsbn()))
+                .thenReturn(Optional.of(item1));
+        when(warehouseRepository.updatePrice(item1.getBookIsbn(), item1.getPrice(), item1.getVersion()))
+                .thenReturn(1);
+        when(stockLedgerService.getPendingQuantities(List.of(item1.getBookIsbn())))
+                .thenReturn(Map.of(item1.getBookIsbn(), 4));
+
+        //when
+        StockItemDTO actualStockItem = warehouseService.updateStockItem(item1.getBookIsbn(), 5, null);
+
+        //then
+        verify(stockLedgerService).recordMovements(Map.of(item1.getBookIsbn(), 5), StockMovementType.MANUAL_ADJUSTMENT, false);
+        verify(warehouseRepository, never()).saveAndFlush(any());
+        assertThat(actualStockItem.getQuantity(), equalTo(19));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenCsvStockFile_whenImportStockItems_thenUpsertOnceAndCountResults() {
+        //given
+        String body = "bookIsbn,price,quantity\n"
+                + item1.getBookIsbn() + ",25.3,10\n"
+                + "978-000-000-000-1,12.5,4\n"
+                + item2.getBookIsbn() + ",0.1,4\n"
+                + item1.getBookIsbn() + ",26.0,12\n";
+        ArgumentCaptor<List<StockItem>> stockItems = ArgumentCaptor.forClass(List.class);
+        when(warehouseRepository.upsertStockItems(any()))
+                .thenReturn(1);
+
+        //when
+        StockImportResultDTO result = warehouseService.importStockItems(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), StockFileFormat.CSV);
+
+        //then
+        verify(warehouseRepository).upsertStockItems(stockItems.capture());
+        assertThat(stockItems.getValue(), equalTo(List.of(
+                new StockItem(null, item1.getBookIsbn(), 26.0, 12),
+                new StockItem(null, "978-000-000-000-1", 12.5, 4))));
+        assertThat(result, equalTo(new StockImportResultDTO(1, 2, 1)));
+    }
+
+    @Test
+    public void givenHotBook_whenExportStockItems_thenStreamRowsWithLiveQuantity() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "exportFetchSize", 1000);
+        when(hotStockService.isHot(Mockito.any()))
+                .thenAnswer(invocation -> item2.getBookIsbn().equals(invocation.getArgument(0)));
+        when(hotStockService.getQuantity(item2.getBookIsbn()))
+                .thenReturn(OptionalInt.of(7));
+        doAnswer(invocation -> {
+            Consumer<StockItem> consumer = invocation.getArgument(1);
+            List.of(item1, item2).forEach(consumer);
+            return null;
+        }).when(warehouseRepository).streamStockBalances(anyInt(), any());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        //when
+        warehouseService.exportStockItems(body, StockFileFormat.CSV);
+
+        //then
+        assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8), equalTo(String.join(System.lineSeparator(),
+                "bookIsbn,price,quantity",
+                item1.getBookIsbn() + ",25.3,10",
+                item2.getBookIsbn() + ",45.0,7", "")));
+    }
+
+    @Test
+    public void givenChangedBalances_whenRefreshInStockSet_thenFindOnlyBooksInStock() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "exportFetchSize", 1000);
+        item2.setQuantity(0);
+        doAnswer(invocation -> {
+            Consumer<StockItem> consumer = invocation.getArgument(1);
+            List.of(item1, item2, item3).forEach(consumer);
+            return null;
+        }).when(warehouseRepository).streamStockBalances(anyInt(), any());
+        warehouseService.rebuildInStockSet();
+
+        Map<String, Integer> quantitiesByIsbn = Map.of(item1.getBookIsbn(), 10, item2.getBookIsbn(), -3);
+        when(warehouseRepository.findByBookIsbnIn(Mockito.any()))
+                .thenReturn(List.of(item1, item2))
+                .thenReturn(List.of(new StockItem(1L, item1.getBookIsbn(), 25.3, 0), new StockItem(2L, item2.getBookIsbn(), 45.0, 3)));
+        when(warehouseRepository.withdrawQuantities(quantitiesByIsbn))
+                .thenReturn(List.of());
+        warehouseService.withdrawBooksFromStock(quantitiesByIsbn);
+
+        //when
+        warehouseService.refreshInStockSet();
+
+        //then
+        assertThat(warehouseService.findInStockIsbns(List.of(item1.getBookIsbn(), item2.getBookIsbn(), item3.getBookIsbn())),
+                equalTo(List.of(item2.getBookIsbn(), item3.getBookIsbn())));
+    }
+
+    @Test
+    public void givenInStockSetNotBuilt_whenFindInStockIsbns_thenReadBalancesFromDatabase() {
+        //given
+        item2.setQuantity(0);
+        List<String> bookIsbns = List.of(item3.getBookIsbn(), item2.getBookIsbn(), item1.getBookIsbn());
+        when(warehouseRepository.findStockBalances(bookIsbns))
+                .thenReturn(List.of(item1, item2, item3));
+
+        //when
+        List<String> inStockIsbns = warehouseService.findInStockIsbns(bookIsbns);
+
+        //then
+        assertThat(inStockIsbns, equalTo(List.of(item3.getBookIsbn(), item1.getBookIsbn())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenShards_whenSplitStockItem_thenSpreadQuantityEvenly() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "shardingEnabled", true);
+        when(warehouseRepository.findForUpdateByBookIsbn(item1.getBookIsbn()))
+                .thenReturn(Optional.of(item1));
+        when(stockShardRepository.findForUpdateByBookIsbn(item1.getBookIsbn()))
+                .thenReturn(List.of());
+        ArgumentCaptor<List<StockShard>> shards = ArgumentCaptor.forClass(List.class);
+
+        //when
+        StockItemDTO actualStockItem = warehouseService.splitStockItem(item1.getBookIsbn(), 3);
+
+        //then
+        verify(stockShardRepository).saveAll(shards.capture());
+        assertThat(shards.getValue().stream().map(StockShard::getQuantity).collect(Collectors.toList()), equalTo(List.of(4, 3, 3)));
+        assertThat(item1.getQuantity(), equalTo(0));
+        assertThat(actualStockItem.getQuantity(), equalTo(10));
+    }
+
+    @Test
+    public void givenShardingDisabled_whenSplitStockItem_thenRefuseAndKeepQuantityInRow() {
+        //when
+        StockShardingDisabledException exception = assertThrows(StockShardingDisabledException.class,
+                () -> warehouseService.splitStockItem(item1.getBookIsbn(), 3));
+
+        //then
+        assertThat(exception.getMessage(), equalTo(String.format(Messages.STOCK_SHARDING_NOT_ENABLED, item1.getBookIsbn())));
+        assertThat(item1.getQuantity(), equalTo(10));
+        verify(stockShardRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void givenHotIsbn_whenSplitStockItem_thenRefuseAndKeepQuantityInRow() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "shardingEnabled", true);
+        when(hotStockService.isHot(item1.getBookIsbn()))
+                .thenReturn(true);
+
+        //when
+        HotStockSplitException exception = assertThrows(HotStockSplitException.class,
+                () -> warehouseService.splitStockItem(item1.getBookIsbn(), 3));
+
+        //then
+        assertThat(exception.getMessage(), equalTo(String.format(Messages.HOT_STOCK_NOT_SPLITTABLE, item1.getBookIsbn())));
+        verify(warehouseRepository, never()).findForUpdateByBookIsbn(any());
+        verify(stockShardRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void givenPartlyCachedPrices_whenGetBookPrices_thenLoadOnlyMissesWithOneQuery() {
+        //given
+        when(warehouseRepository.findPricesByBookIsbnIn(Set.of(item1.getBookIsbn())))
+                .thenReturn(List.of(bookPriceView(item1)));
+        when(warehouseRepository.findPricesByBookIsbnIn(Set.of(item2.getBookIsbn(), item3.getBookIsbn())))
+                .thenReturn(List.of(bookPriceView(item2), bookPriceView(item3)));
+        warehouseService.getBookPrice(item1.getBookIsbn());
+
+        //when
+        Map<String, Double> prices = warehouseService.getBookPrices(List.of(item1.getBookIsbn(), item2.getBookIsbn(), item3.getBookIsbn()));
+
+        //then
+        assertThat(prices, equalTo(Map.of(item1.getBookIsbn(), item1.getPrice(), item2.getBookIsbn(), item2.getPrice(), item3.getBookIsbn(), item3.getPrice())));
+        assertThat(warehouseService.getPriceCacheStats().getHits(), equalTo(1L));
+        assertThat(warehouseService.getPriceCacheStats().getMisses(), equalTo(3L));
+    }
+
+    @Test
+    public void givenCart_whenGetStockAvailability_thenReadBalancesOnceAndCachePrices() {
+        //given
+        List<String> bookIsbns = List.of(item1.getBookIsbn(), item2.getBookIsbn(), "978-000-000-000-1");
+        when(warehouseRepository.findStockBalances(Set.of(item1.getBookIsbn(), item2.getBookIsbn(), "978-000-000-000-1")))
+                .thenReturn(List.of(item1, item2));
+
+        //when
+        Map<String, StockAvailabilityDTO> availability = warehouseService.getStockAvailability(bookIsbns);
+        double cachedPrice = warehouseService.getBookPrice(item2.getBookIsbn());
+
+        //then
+        assertThat(availability, equalTo(Map.of(
+                item1.getBookIsbn(), new StockAvailabilityDTO(25.3, 10),
+                item2.getBookIsbn(), new StockAvailabilityDTO(45.0, 25))));
+        assertThat(cachedPrice, equalTo(45.0));
+        verify(warehouseRepository, never()).findPricesByBookIsbnIn(any());
+    }
+
+    @Test
+    public void givenCachedPrice_whenSaveStockItem_thenReloadPrice() {
+        //given
+        when(warehouseRepository.findPricesByBookIsbnIn(Set.of(item1.getBookIsbn())))
+                .thenReturn(List.of(bookPriceView(item1)));
         when(warehouseRepository.saveAndFlush(Mockito.any()))
                 .thenReturn(item1);
+        warehouseService.getBookPrice(item1.getBookIsbn());
 
         //when
-        StockItemDTO actualStockItem = warehouseService.withdrawBookFromStock(item1.getBookIsbn(), withdrawQuantity);
+        warehouseService.saveStockItem(item1.toDTO());
+        warehouseService.getBookPrice(item1.getBookIsbn());
 
         //then
-        assertThat(item1.toDTO(), equalTo(actualStockItem));
+        verify(warehouseRepository, Mockito.times(2)).findPricesByBookIsbnIn(Set.of(item1.getBookIsbn()));
+    }
+
+    @Test
+    public void givenPublisherPromotion_whenRepriceStockItems_thenUpdateInChunksAndReloadPrices() {
+        //given
+        ReflectionTestUtils.setField(warehouseService, "repriceChunkSize", 2);
+        StockRepriceRequest request = new StockRepriceRequest(null, 1L, null, null, null, PriceOperation.MULTIPLY, 0.9);
+
+        when(warehouseRepository.findPricesByBookIsbnIn(Set.of(item1.getBookIsbn())))
+                .thenReturn(List.of(bookPriceView(item1)));
+        when(warehouseRepository.repriceStockItems(request, "", 2))
+                .thenReturn(List.of(item1.getBookIsbn(), item2.getBookIsbn()));
+        when(warehouseRepository.repriceStockItems(request, item2.getBookIsbn(), 2))
+                .thenReturn(List.of(item3.getBookIsbn()));
+        warehouseService.getBookPrice(item1.getBookIsbn());
+
+        //when
+        StockRepriceResultDTO result = warehouseService.repriceStockItems(request);
+        warehouseService.getBookPrice(item1.getBookIsbn());
+
+        //then
+        assertThat(result, equalTo(new StockRepriceResultDTO(3, 2)));
+        verify(warehouseRepository, Mockito.times(2)).findPricesByBookIsbnIn(Set.of(item1.getBookIsbn()));
+    }
+
+    @Test
+    public void givenNotValidIsbn_whenGetBookPrice_thenThrowsEntityNotFoundException() {
+        //then
+        assertThrows(EntityNotFoundException.class, () -> warehouseService.getBookPrice(item1.getBookIsbn()));
+    }
+
+    private BookPriceView bookPriceView(StockItem stockItem) {
+        return new BookPriceView() {
+            @Override
+            public String getBookIsbn() {
+                return stockItem.getBookIsbn();
+            }
+
+            @Override
+            public Double getPrice() {
+                return stockItem.getPrice();
+            }
+        };
     }
 
-    private Page<StockItemDTO> doSearchStockItem(Page<StockItem> pageFromDB, WarehouseSearchRequest searchRequest) {
+    private Slice<StockItemDTO> doSearchStockItem(Page<StockItem> pageFromDB, WarehouseSearchRequest searchRequest) {
         when(warehouseRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(pageFromDB);
 
@@ -160,8 +687,6 @@ public class WarehouseServiceTests {
     }
 
     private Page<StockItemDTO> getPageDTOList(Page<StockItem> StockItems) {
-        return new PageImpl<>(StockItems.stream()
-                .map(StockItem::toDTO)
-                .collect(Collectors.toList()));
+        return StockItems.map(StockItem::toDTO);
     }
 }